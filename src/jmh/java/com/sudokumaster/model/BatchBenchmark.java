@@ -0,0 +1,80 @@
+package com.sudokumaster.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boards checked per microsecond: one {@code int[][]} at a time with
+ * {@link PuzzleGenerator#validateBoard}, and a whole {@link BoardBatch} with the scalar and the
+ * Vector API {@link BatchValidator}. The boards are fixed-seed random solved grids.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+    private static final long SEED = 42L;
+    private static final int BOARDS = 4096;
+
+    private final int[][][] boards = new int[BOARDS][9][9];
+    private final BoardBatch batch = new BoardBatch(BOARDS);
+    private final boolean[] results = new boolean[BOARDS];
+    private final BatchValidator vector = BatchValidator.create();
+
+    @Setup
+    public void setUp() {
+        ScalableSolver solver = new ScalableSolver(3);
+        SplittableRandom random = new SplittableRandom(SEED);
+        byte[] cells = new byte[81];
+        for (int i = 0; i < BOARDS; i++) {
+            solver.fill(random, cells);
+            for (int cell = 0; cell < 81; cell++) {
+                boards[i][cell / 9][cell % 9] = cells[cell];
+            }
+            batch.add(cells);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int validateBoardEach() {
+        int valid = 0;
+        for (int[][] board : boards) {
+            valid += PuzzleGenerator.validateBoard(board) ? 1 : 0;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int scalarCheckSolved() {
+        return BatchValidator.scalar().checkSolved(batch, results);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int vectorCheckSolved() {
+        return vector.checkSolved(batch, results);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int vectorCheckValid() {
+        return vector.checkValid(batch, results);
+    }
+}
@@ -0,0 +1,122 @@
+package com.sudokumaster.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link SudokuBoard} operations called on every user move.
+ * Inputs come from the hard 17-clue corpus and a fixed-seed stream of moves, so runs are reproducible.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private static final long SEED = 42L;
+    private static final int MOVES = 1024;
+
+    private SudokuBoard puzzle;
+    private SudokuBoard solved;
+    // Pre-drawn moves: cell index and digit.
+    private final int[] moveCells = new int[MOVES];
+    private final int[] moveDigits = new int[MOVES];
+    // Empty cells of the puzzle with a legal digit for each.
+    private int[] emptyCells;
+    private int[] legalDigits;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        puzzle = new SudokuBoard();
+        puzzle.resetBoard(HardPuzzles.parseBoard(HardPuzzles.SEVENTEEN_CLUE[0]));
+
+        byte[] solution = new byte[81];
+        new SolutionCounter().solve(HardPuzzles.parse(HardPuzzles.SEVENTEEN_CLUE[0]), solution);
+        int[][] solvedGrid = new int[9][9];
+        for (int i = 0; i < 81; i++) {
+            solvedGrid[i / 9][i % 9] = solution[i];
+        }
+        solved = new SudokuBoard();
+        solved.resetBoard(solvedGrid);
+
+        Random random = new Random(SEED);
+        for (int i = 0; i < MOVES; i++) {
+            moveCells[i] = random.nextInt(81);
+            moveDigits[i] = random.nextInt(9) + 1;
+        }
+        int empty = 0;
+        int[] cells = new int[81];
+        int[] digits = new int[81];
+        for (int cell = 0; cell < 81; cell++) {
+            int candidates = puzzle.getCandidates(cell / 9, cell % 9);
+            if (candidates != 0) {
+                cells[empty] = cell;
+                digits[empty] = Integer.numberOfTrailingZeros(candidates) + 1;
+                empty++;
+            }
+        }
+        emptyCells = Arrays.copyOf(cells, empty);
+        legalDigits = Arrays.copyOf(digits, empty);
+
+        // Mark every candidate so annotation updates have work to do.
+        for (int cell : emptyCells) {
+            for (int digit = 1; digit <= 9; digit++) {
+                puzzle.addAnnotation(cell / 9, cell % 9, digit);
+            }
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        int i = next++ & (MOVES - 1);
+        int cell = moveCells[i];
+        return puzzle.isValidMove(cell / 9, cell % 9, moveDigits[i]);
+    }
+
+    /**
+     * Places a legal digit in an empty cell and clears it again, so the board state stays stable.
+     */
+    @Benchmark
+    public boolean placeNumberAndClear() {
+        int i = next++ % emptyCells.length;
+        int row = emptyCells[i] / 9;
+        int col = emptyCells[i] % 9;
+        boolean placed = puzzle.placeNumber(row, col, legalDigits[i]);
+        puzzle.clearCell(row, col);
+        return placed;
+    }
+
+    @Benchmark
+    public void updateAnnotationsAfterMove() {
+        int i = next++ & (MOVES - 1);
+        int cell = moveCells[i];
+        puzzle.updateAnnotationsAfterMove(cell / 9, cell % 9, moveDigits[i]);
+    }
+
+    @Benchmark
+    public boolean isSolvedComplete() {
+        return solved.isSolved();
+    }
+
+    @Benchmark
+    public boolean isSolvedPuzzle() {
+        return puzzle.isSolved();
+    }
+}
@@ -0,0 +1,123 @@
+package com.sudokumaster.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of puzzle generation and board validation.
+ * The {@link GeneratorCore} benchmarks start from a fixed seed and are fully reproducible;
+ * the {@link PuzzleGenerator} and {@link SudokuGenerator} entry points draw from their own
+ * random sources, so individual puzzles vary between runs while the averages stay stable.
+ * Rated generation keeps only puzzles whose rating matches the difficulty; the clue-count cuts
+ * empty a fixed {@value #CUT_REMOVALS} cells whatever the difficulty parameter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD"})
+    public Difficulty difficulty;
+
+    private static final long SEED = 42L;
+    private static final int CUT_REMOVALS = 50;
+
+    private final SudokuGenerator sudokuGenerator = new SudokuGenerator();
+    private final GeneratorCore core = new GeneratorCore(SEED);
+    private final byte[] puzzle = new byte[81];
+    private int[][] solvedGrid;
+    private int[][] hardPuzzle;
+    // Unique puzzles rated at the benchmark's difficulty, canonicalized in turn.
+    private final byte[][] generated = new byte[256][81];
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+    private final byte[] form = new byte[81];
+    private int next;
+    private final PuzzleMultiplier multiplier = new PuzzleMultiplier(SEED);
+
+    @Setup
+    public void setUp() {
+        core.setSeed(SEED);
+        hardPuzzle = HardPuzzles.parseBoard(HardPuzzles.SEVENTEEN_CLUE[0]);
+        byte[] solution = new byte[81];
+        new SolutionCounter().solve(HardPuzzles.parse(HardPuzzles.SEVENTEEN_CLUE[0]), solution);
+        solvedGrid = new int[9][9];
+        for (int i = 0; i < 81; i++) {
+            solvedGrid[i / 9][i % 9] = solution[i];
+        }
+        for (byte[] cells : generated) {
+            core.generate(difficulty, cells, null);
+            multiplier.addSeed(cells, difficulty);
+        }
+        core.setSeed(SEED);
+    }
+
+    @Benchmark
+    public byte[] coreGenerate() {
+        core.generate(CUT_REMOVALS, false, puzzle, null);
+        return puzzle;
+    }
+
+    @Benchmark
+    public byte[] coreGenerateUnique() {
+        core.generate(CUT_REMOVALS, true, puzzle, null);
+        return puzzle;
+    }
+
+    @Benchmark
+    public byte[] coreGenerateRated() {
+        core.generate(difficulty, puzzle, null);
+        return puzzle;
+    }
+
+    @Benchmark
+    public byte[] canonicalize() {
+        canonicalizer.canonicalize(generated[next++ & (generated.length - 1)], form);
+        return form;
+    }
+
+    @Benchmark
+    public byte[] multiply() {
+        multiplier.next(difficulty, puzzle);
+        return puzzle;
+    }
+
+    @Benchmark
+    public SudokuBoard generatePuzzle() {
+        return PuzzleGenerator.generatePuzzle(CUT_REMOVALS);
+    }
+
+    @Benchmark
+    public SudokuBoard generateUniquePuzzle() {
+        return PuzzleGenerator.generateUniquePuzzle(difficulty);
+    }
+
+    @Benchmark
+    public int[][] sudokuGeneratorPuzzle() {
+        // SudokuGenerator levels 1-3 correspond to EASY-HARD.
+        return sudokuGenerator.generatePuzzle(difficulty.ordinal() + 1);
+    }
+
+    @Benchmark
+    public boolean validateCompleteBoard() {
+        return PuzzleGenerator.validateBoard(solvedGrid);
+    }
+
+    @Benchmark
+    public boolean validateHardPuzzle() {
+        return PuzzleGenerator.validateBoard(hardPuzzle);
+    }
+}
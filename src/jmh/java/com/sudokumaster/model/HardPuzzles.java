@@ -0,0 +1,48 @@
+package com.sudokumaster.model;
+
+/**
+ * Fixed corpus of hard puzzles shared by the benchmarks.
+ * Every entry has been checked to have a unique solution.
+ */
+final class HardPuzzles {
+
+    /**
+     * Puzzles with 17 givens, the minimum for a unique solution.
+     * They are very sparse and hard for a row-major backtracker.
+     */
+    static final String[] SEVENTEEN_CLUE = {
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+            "000000010400000000020000000000050604008000300001090000300400200050100000000807000",
+            "000000012000035000000600070700000300000400800100000000000120000080000040050000600",
+            "000000012003600000000007000410020000000500300700000600280000040000300500000000000",
+            "000000012008030000000000040120500000000004700060000000507000300000620000000100000",
+            "000000013000030080070000000000206000030000900000010000600500204000400700100000000",
+            "000000013000200000000000080000760200008000400010000000200000750600340000000008000",
+            "000000000000003085001020000000507000004000100090000000500000073002010000000040009"
+    };
+
+    private HardPuzzles() {
+    }
+
+    /**
+     * Parses an 81-character line into a flat cell array.
+     */
+    static byte[] parse(String line) {
+        byte[] cells = new byte[81];
+        for (int i = 0; i < 81; i++) {
+            cells[i] = (byte) (line.charAt(i) - '0');
+        }
+        return cells;
+    }
+
+    /**
+     * Parses an 81-character line into a 9x9 board.
+     */
+    static int[][] parseBoard(String line) {
+        int[][] board = new int[9][9];
+        for (int i = 0; i < 81; i++) {
+            board[i / 9][i % 9] = line.charAt(i) - '0';
+        }
+        return board;
+    }
+}
@@ -0,0 +1,47 @@
+package com.sudokumaster.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DifficultyRater} throughput over a fixed set of seeded puzzles that rate HARD.
+ * Each invocation rates the next puzzle of the set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaterBenchmark {
+
+    private static final int PUZZLES = 1024;
+
+    private final DifficultyRater rater = new DifficultyRater();
+    private final byte[][] puzzles = new byte[PUZZLES][81];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        GeneratorCore core = new GeneratorCore(42);
+        for (byte[] puzzle : puzzles) {
+            core.generate(Difficulty.HARD, puzzle, null);
+        }
+    }
+
+    @Benchmark
+    public Rating rate() {
+        next = (next + 1) & (PUZZLES - 1);
+        return rater.rate(puzzles[next]);
+    }
+}
@@ -0,0 +1,83 @@
+package com.sudokumaster.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the solvers on the hard 17-clue corpus: the Dancing Links solver, the bitmask
+ * solution counter, the row-major backtracker in {@link SudokuGenerator} and the fork-join
+ * {@link ParallelSolver} on all cores. Each invocation solves (or checks uniqueness of) one puzzle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7"})
+    public int puzzle;
+
+    private final DancingLinksSolver dancingLinks = new DancingLinksSolver();
+    private final SolutionCounter counter = new SolutionCounter();
+    private final SudokuGenerator backtracker = new SudokuGenerator();
+    private final byte[] solution = new byte[81];
+    private byte[] cells;
+    private int[][] board;
+    private int[][] work;
+    private ParallelSolver parallel;
+
+    @Setup
+    public void setUp() {
+        cells = HardPuzzles.parse(HardPuzzles.SEVENTEEN_CLUE[puzzle]);
+        board = HardPuzzles.parseBoard(HardPuzzles.SEVENTEEN_CLUE[puzzle]);
+        work = new int[9][9];
+        parallel = new ParallelSolver(3);
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallel.close();
+    }
+
+    @Benchmark
+    public boolean dancingLinksSolve() {
+        return dancingLinks.solve(cells, solution);
+    }
+
+    @Benchmark
+    public int dancingLinksUniqueness() {
+        return dancingLinks.countSolutions(cells, 2);
+    }
+
+    @Benchmark
+    public int solutionCounterUniqueness() {
+        return counter.countSolutions(cells, 2);
+    }
+
+    @Benchmark
+    public int parallelSolverUniqueness() {
+        return parallel.countSolutions(cells, 2);
+    }
+
+    @Benchmark
+    public boolean backtrackerSolve() {
+        for (int row = 0; row < 9; row++) {
+            System.arraycopy(board[row], 0, work[row], 0, 9);
+        }
+        return backtracker.solvePuzzle(work);
+    }
+}
@@ -1,19 +1,62 @@
 package com.sudokumaster;
 
+import com.sudokumaster.cli.SudokuCli;
+import com.sudokumaster.io.GameStore;
+import com.sudokumaster.model.PuzzlePool;
 import com.sudokumaster.model.SudokuBoard;
 import com.sudokumaster.view.SudokuView;
 import com.sudokumaster.controller.SudokuController;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * Main class to run the Sudoku application.
+ * With command-line arguments it runs the headless {@link SudokuCli} instead of the GUI.
+ * The game in progress is saved under {@code ~/.sudokumaster} and resumed on the next start.
  */
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(SudokuCli.run(args));
+        }
+
+        GameStore store = openStore(Path.of(System.getProperty("user.home"), ".sudokumaster"));
+        GameStore.SavedGame saved = null;
+        if (store != null) {
+            try {
+                saved = store.load();
+            } catch (IOException e) {
+                System.err.println("Could not resume the saved game: " + e.getMessage());
+            }
+            // Write the last moves when the window closes.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    System.err.println("Could not save the game: " + e.getMessage());
+                }
+            }));
+        }
+
         // Initialize model, view, and controller.
         SudokuBoard board = new SudokuBoard();
         SudokuView view = new SudokuView();
-        SudokuController controller = new SudokuController(board, view);
+        SudokuController controller = new SudokuController(board, view, new PuzzlePool(), store);
+
+        if (saved != null && !saved.board().isSolved()) {
+            controller.resumeGame(saved);
+        } else {
+            controller.showNewGameDialog();
+        }
+    }
 
-        controller.showNewGameDialog();
+    private static GameStore openStore(Path directory) {
+        try {
+            return new GameStore(directory);
+        } catch (IOException e) {
+            System.err.println("Saving is disabled: " + e.getMessage());
+            return null;
+        }
     }
 }
@@ -0,0 +1,522 @@
+package com.sudokumaster.cli;
+
+import com.sudokumaster.io.PuzzleCodec;
+import com.sudokumaster.model.BatchValidator;
+import com.sudokumaster.model.BoardBatch;
+import com.sudokumaster.model.CanonicalIndex;
+import com.sudokumaster.model.Canonicalizer;
+import com.sudokumaster.model.Difficulty;
+import com.sudokumaster.model.DifficultyRater;
+import com.sudokumaster.model.MinimalGenerator;
+import com.sudokumaster.model.PuzzleGenerator;
+import com.sudokumaster.model.PuzzleMultiplier;
+import com.sudokumaster.model.Rating;
+import com.sudokumaster.model.SolutionCounter;
+import com.sudokumaster.model.SudokuBoard;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Headless command-line front end for bulk puzzle processing.
+ * <p>
+ * Puzzles are read and written in the 81-character line format (see {@link PuzzleCodec}).
+ * Input lines are processed in batches; each batch is handled in parallel and written back in
+ * input order. Throughput is reported on standard error.
+ * <pre>
+ * generate --difficulty EASY|MEDIUM|HARD --count N   write N unique puzzles rated at that difficulty
+ *          [--distinct]                               no two of which are transformed copies
+ *          [--seeds FILE]                             transformed copies of the seeds rated at that difficulty
+ *          [--minimal]                                minimal puzzles rated at that difficulty
+ * solve    [file...]                                  write the solution of every puzzle
+ * validate [file...]                                  tag every puzzle unique/multiple/unsolvable/malformed
+ * rate     [file...]                                  tag every puzzle with its rating, hardest technique and difficulty
+ * check    [file...]                                  tag every board solved/valid/invalid/malformed
+ *
+ * Common options: --threads N (default: all cores), --out FILE (default: stdout), --quiet
+ * </pre>
+ */
+public class SudokuCli {
+
+    private static final int BATCH_SIZE = 8192;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+
+    // Per-thread working state; each worker owns its own counter, rater and cell buffers.
+    private static final ThreadLocal<Worker> WORKERS = ThreadLocal.withInitial(Worker::new);
+
+    private final PrintStream err;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path outFile;
+    private boolean quiet;
+    private Difficulty difficulty = Difficulty.MEDIUM;
+    private long count = 1;
+    private boolean distinct;
+    private Path seedFile;
+    private boolean minimal;
+    private final List<Path> inputs = new ArrayList<>();
+
+    private SudokuCli(PrintStream err) {
+        this.err = err;
+    }
+
+    /**
+     * Runs the command line with the process's standard streams.
+     *
+     * @return the process exit code.
+     */
+    public static int run(String[] args) {
+        return run(args, System.in, System.out, System.err);
+    }
+
+    /**
+     * Runs the command line with the given streams.
+     *
+     * @return the process exit code: 0 on success, 2 on a usage error, 1 on an I/O error.
+     */
+    static int run(String[] args, InputStream in, OutputStream out, PrintStream err) {
+        if (args.length == 0) {
+            printUsage(err);
+            return 2;
+        }
+        SudokuCli cli = new SudokuCli(err);
+        String command = args[0];
+        try {
+            cli.parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            err.println("error: " + e.getMessage());
+            printUsage(err);
+            return 2;
+        }
+        try {
+            switch (command) {
+                case "generate":
+                    if (cli.seedFile != null) {
+                        cli.generateFromSeeds(in, out);
+                    } else if (cli.minimal) {
+                        cli.generateMinimal(out);
+                    } else {
+                        cli.generate(out);
+                    }
+                    return 0;
+                case "solve":
+                case "validate":
+                case "rate":
+                    cli.process(command, in, out);
+                    return 0;
+                case "check":
+                    cli.check(in, out);
+                    return 0;
+                default:
+                    err.println("error: unknown command " + command);
+                    printUsage(err);
+                    return 2;
+            }
+        } catch (IOException e) {
+            err.println("error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Turns a failed worker task into an {@link IOException}, so {@link #run} reports it as
+     * {@code error: ...} with exit code 1 instead of a stack trace.
+     */
+    static IOException workerFailure(ExecutionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        String message = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+        return new IOException("worker failed: " + message, cause);
+    }
+
+    private static void printUsage(PrintStream err) {
+        err.println("usage: sudokumaster <command> [options] [file...]");
+        err.println("  generate --difficulty EASY|MEDIUM|HARD --count N [--distinct] [--minimal | --seeds FILE]");
+        err.println("  solve    [file...]   solve every puzzle");
+        err.println("  validate [file...]   check every puzzle for a unique solution");
+        err.println("  rate     [file...]   rate every puzzle by the techniques it needs");
+        err.println("  check    [file...]   check every board for a finished grid or a conflict");
+        err.println("options: --threads N, --out FILE, --quiet; '-' or no file reads stdin");
+    }
+
+    private void parseOptions(String[] args) {
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++i, arg));
+                    if (threads < 1) {
+                        throw new IllegalArgumentException("--threads must be at least 1");
+                    }
+                    break;
+                case "--out":
+                    outFile = Path.of(value(args, ++i, arg));
+                    break;
+                case "--difficulty":
+                    difficulty = Difficulty.valueOf(value(args, ++i, arg).toUpperCase(Locale.ROOT));
+                    break;
+                case "--count":
+                    count = Long.parseLong(value(args, ++i, arg));
+                    if (count < 0) {
+                        throw new IllegalArgumentException("--count must not be negative");
+                    }
+                    break;
+                case "--quiet":
+                    quiet = true;
+                    break;
+                case "--distinct":
+                    distinct = true;
+                    break;
+                case "--seeds":
+                    seedFile = Path.of(value(args, ++i, arg));
+                    break;
+                case "--minimal":
+                    minimal = true;
+                    break;
+                default:
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("unknown option " + arg);
+                    }
+                    inputs.add(Path.of(arg));
+                    break;
+            }
+        }
+        if (distinct && seedFile != null) {
+            throw new IllegalArgumentException("--distinct cannot be combined with --seeds; copies of a seed are not distinct");
+        }
+        if (minimal && seedFile != null) {
+            throw new IllegalArgumentException("--minimal cannot be combined with --seeds");
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private void generate(OutputStream stdout) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Progress progress = new Progress("generate");
+        String[] results = new String[BATCH_SIZE];
+        // Canonical forms of everything written so far, kept off the heap for large packs.
+        CanonicalIndex seen = distinct ? new CanonicalIndex(Math.min(count, 1 << 20), true) : null;
+        try (Writer writer = openOutput(stdout)) {
+            for (long done = 0; done < count; ) {
+                int size = (int) Math.min(BATCH_SIZE, count - done);
+                // Each worker draws from its own thread-local random source.
+                pool.submit(() -> IntStream.range(0, size).parallel()
+                        .forEach(i -> results[i] = formatBoard(distinct
+                                ? PuzzleGenerator.generateDistinctPuzzle(difficulty, seen)
+                                : PuzzleGenerator.generateUniquePuzzle(difficulty)))).get();
+                write(writer, results, size);
+                progress.add(size);
+                done += size;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw workerFailure(e);
+        } finally {
+            pool.shutdown();
+        }
+        progress.finish();
+    }
+
+    /**
+     * Writes minimal puzzles rated at the requested difficulty. Puzzles are cut one at a time,
+     * with the uniqueness tests of each cut spread over the threads.
+     */
+    private void generateMinimal(OutputStream stdout) throws IOException {
+        Progress progress = new Progress("generate");
+        Worker worker = WORKERS.get();
+        Canonicalizer canonicalizer = distinct ? new Canonicalizer() : null;
+        CanonicalIndex seen = distinct ? new CanonicalIndex(Math.min(count, 1 << 20), true) : null;
+        byte[] form = new byte[PuzzleCodec.CELLS];
+        try (MinimalGenerator generator = new MinimalGenerator(threads);
+             Writer writer = openOutput(stdout)) {
+            for (long done = 0; done < count; ) {
+                generator.generate(worker.puzzle, worker.solution);
+                if (worker.rater.rate(worker.puzzle).difficulty() != difficulty) {
+                    continue;
+                }
+                if (distinct) {
+                    canonicalizer.canonicalize(worker.puzzle, form);
+                    if (!seen.add(form)) {
+                        continue;
+                    }
+                }
+                writer.write(PuzzleCodec.formatLine(worker.puzzle));
+                writer.write('\n');
+                progress.add(1);
+                done++;
+            }
+        }
+        progress.finish();
+    }
+
+    /**
+     * Rates the seed puzzles and writes transformed copies of the ones at the requested
+     * difficulty. Copies need no search, so this runs on one thread.
+     */
+    private void generateFromSeeds(InputStream stdin, OutputStream stdout) throws IOException {
+        PuzzleMultiplier multiplier = new PuzzleMultiplier();
+        byte[] cells = new byte[PuzzleCodec.CELLS];
+        long loaded = 0;
+        long rejected = 0;
+        try (BufferedReader reader = openInput(seedFile, stdin)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (!PuzzleCodec.parseLine(line, cells)) {
+                    rejected++;
+                    continue;
+                }
+                try {
+                    multiplier.addSeed(cells);
+                    loaded++;
+                } catch (IllegalArgumentException e) {
+                    // Not exactly one solution.
+                    rejected++;
+                }
+            }
+        }
+        int usable = multiplier.getSeedCount(difficulty);
+        if (!quiet) {
+            err.printf(Locale.ROOT, "seeds: %d loaded, %d rejected, %d rated %s%n", loaded, rejected, usable, difficulty);
+        }
+        if (usable == 0) {
+            throw new IOException("No seed puzzle in " + seedFile + " is rated " + difficulty);
+        }
+        Progress progress = new Progress("generate");
+        try (Writer writer = openOutput(stdout)) {
+            for (long done = 0; done < count; ) {
+                int size = (int) Math.min(BATCH_SIZE, count - done);
+                for (int i = 0; i < size; i++) {
+                    multiplier.next(difficulty, cells);
+                    writer.write(PuzzleCodec.formatLine(cells));
+                    writer.write('\n');
+                }
+                progress.add(size);
+                done += size;
+            }
+        }
+        progress.finish();
+    }
+
+    private void process(String command, InputStream stdin, OutputStream stdout) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Progress progress = new Progress(command);
+        String[] lines = new String[BATCH_SIZE];
+        String[] results = new String[BATCH_SIZE];
+        try (Writer writer = openOutput(stdout)) {
+            Iterator<Path> files = inputs.isEmpty() ? List.of(Path.of("-")).iterator() : inputs.iterator();
+            while (files.hasNext()) {
+                try (BufferedReader reader = openInput(files.next(), stdin)) {
+                    int n;
+                    while ((n = readBatch(reader, lines)) > 0) {
+                        int size = n;
+                        pool.submit(() -> IntStream.range(0, size).parallel()
+                                .forEach(i -> results[i] = apply(command, lines[i]))).get();
+                        write(writer, results, size);
+                        progress.add(size);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw workerFailure(e);
+        } finally {
+            pool.shutdown();
+        }
+        progress.finish();
+    }
+
+    /**
+     * Tags boards as solved (a finished grid), valid (no conflicts yet) or invalid. Each batch
+     * of lines is packed into a {@link BoardBatch} and checked in one pass, with SIMD lanes when
+     * the JVM runs with {@code --add-modules jdk.incubator.vector}.
+     */
+    private void check(InputStream stdin, OutputStream stdout) throws IOException {
+        BatchValidator validator = BatchValidator.create();
+        BoardBatch batch = new BoardBatch(BATCH_SIZE);
+        String[] lines = new String[BATCH_SIZE];
+        boolean[] malformed = new boolean[BATCH_SIZE];
+        boolean[] solved = new boolean[BATCH_SIZE];
+        boolean[] valid = new boolean[BATCH_SIZE];
+        byte[] cells = new byte[PuzzleCodec.CELLS];
+        byte[] empty = new byte[PuzzleCodec.CELLS];
+        Progress progress = new Progress("check");
+        try (Writer writer = openOutput(stdout)) {
+            Iterator<Path> files = inputs.isEmpty() ? List.of(Path.of("-")).iterator() : inputs.iterator();
+            while (files.hasNext()) {
+                try (BufferedReader reader = openInput(files.next(), stdin)) {
+                    int n;
+                    while ((n = readBatch(reader, lines)) > 0) {
+                        batch.clear();
+                        for (int i = 0; i < n; i++) {
+                            malformed[i] = !PuzzleCodec.parseLine(lines[i], cells);
+                            batch.add(malformed[i] ? empty : cells);
+                        }
+                        validator.checkSolved(batch, solved);
+                        validator.checkValid(batch, valid);
+                        for (int i = 0; i < n; i++) {
+                            writer.write(lines[i].strip());
+                            writer.write(malformed[i] ? "\tmalformed\n"
+                                    : solved[i] ? "\tsolved\n" : valid[i] ? "\tvalid\n" : "\tinvalid\n");
+                        }
+                        progress.add(n);
+                    }
+                }
+            }
+        }
+        progress.finish();
+    }
+
+    private static void write(Writer writer, String[] lines, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            writer.write(lines[i]);
+            writer.write('\n');
+        }
+    }
+
+    private static int readBatch(BufferedReader reader, String[] lines) throws IOException {
+        int n = 0;
+        String line;
+        while (n < lines.length && (line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                lines[n++] = line;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Handles one input line for a processing command.
+     */
+    private static String apply(String command, String line) {
+        Worker worker = WORKERS.get();
+        if (!PuzzleCodec.parseLine(line, worker.puzzle)) {
+            return line.strip() + "\tmalformed";
+        }
+        String puzzle = PuzzleCodec.formatLine(worker.puzzle);
+        switch (command) {
+            case "solve":
+                if (worker.counter.solve(worker.puzzle, worker.solution)) {
+                    return PuzzleCodec.formatLine(worker.solution);
+                }
+                return puzzle + "\tunsolvable";
+            case "validate":
+                int solutions = worker.counter.countSolutions(worker.puzzle, 2);
+                return puzzle + "\t" + (solutions == 0 ? "unsolvable" : solutions == 1 ? "unique" : "multiple");
+            case "rate":
+                int found = worker.counter.countSolutions(worker.puzzle, 2);
+                if (found != 1) {
+                    return puzzle + "\t" + (found == 0 ? "unsolvable" : "multiple");
+                }
+                Rating rating = worker.rater.rate(worker.puzzle);
+                return puzzle + "\t" + rating.score() + "\t" + rating.hardest() + "\t" + rating.difficulty();
+            default:
+                throw new IllegalArgumentException(command);
+        }
+    }
+
+    private static String formatBoard(SudokuBoard board) {
+        byte[] cells = WORKERS.get().puzzle;
+        PuzzleCodec.toCells(board.getBoard(), cells);
+        return PuzzleCodec.formatLine(cells);
+    }
+
+    private static BufferedReader openInput(Path path, InputStream stdin) throws IOException {
+        if (path.toString().equals("-")) {
+            return new BufferedReader(new InputStreamReader(stdin, StandardCharsets.US_ASCII), BUFFER_SIZE);
+        }
+        return Files.newBufferedReader(path, StandardCharsets.US_ASCII);
+    }
+
+    private Writer openOutput(OutputStream stdout) throws IOException {
+        if (outFile != null) {
+            return Files.newBufferedWriter(outFile, StandardCharsets.US_ASCII);
+        }
+        // Flush but do not close the caller's stream.
+        return new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.US_ASCII), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * Reusable buffers for one worker thread.
+     */
+    private static final class Worker {
+        final SolutionCounter counter = new SolutionCounter();
+        final DifficultyRater rater = new DifficultyRater();
+        final byte[] puzzle = new byte[PuzzleCodec.CELLS];
+        final byte[] solution = new byte[PuzzleCodec.CELLS];
+    }
+
+    /**
+     * Reports records per second on standard error, at most once per interval.
+     */
+    private final class Progress {
+        private final String command;
+        private final long start = System.nanoTime();
+        private long lastReport = start;
+        private long records;
+
+        Progress(String command) {
+            this.command = command;
+        }
+
+        void add(long n) {
+            records += n;
+            long now = System.nanoTime();
+            if (!quiet && now - lastReport >= REPORT_INTERVAL_NANOS) {
+                lastReport = now;
+                report(now);
+            }
+        }
+
+        void finish() {
+            if (!quiet) {
+                report(System.nanoTime());
+            }
+        }
+
+        private void report(long now) {
+            double seconds = Math.max(now - start, 1) / 1e9;
+            err.printf(Locale.ROOT, "%s: %d records in %.1f s (%.0f/s)%n", command, records, seconds, records / seconds);
+        }
+    }
+}
@@ -1,71 +1,99 @@
 package com.sudokumaster.controller;
 
+import com.sudokumaster.io.GameStore;
 import com.sudokumaster.model.Difficulty;
+import com.sudokumaster.model.Hint;
+import com.sudokumaster.model.HintFinder;
+import com.sudokumaster.model.MoveJournal;
 import com.sudokumaster.model.PuzzleGenerator;
+import com.sudokumaster.model.PuzzlePool;
 import com.sudokumaster.model.SudokuBoard;
 import com.sudokumaster.view.SudokuView;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Controller class that coordinates interactions between the model and the view.
- * It handles numeric input, board cell selection, game flow, and annotation mode.
+ * It handles numeric input, board cell selection, game flow, undo/redo, hints, and annotation mode.
+ * Every change to the board goes through a {@link MoveJournal} so it can be undone, and is
+ * saved through an optional {@link GameStore} so the game can be resumed.
  */
 public class SudokuController {
 
+    private static final Color GUIDE_COLOR = new Color(144, 238, 144);
+
     private SudokuBoard board;
+    private MoveJournal journal;
     private final SudokuView view;
+    // Pre-generated puzzles so starting a new game does not wait for generation.
+    private final PuzzlePool puzzlePool;
+    private final HintFinder hintFinder = new HintFinder();
+    // Saves the game in the background; null when saving is unavailable.
+    private final GameStore store;
     private int selectedRow = -1;
     private int selectedCol = -1;
     // Stores the fixed numbers of the puzzle (the initial board state).
     private int[][] fixedBoard;
+    // Background generation of a non-9x9 game; null when none is running. Only touched on the EDT.
+    private SwingWorker<SudokuBoard, Void> pendingGame;
 
     public SudokuController(SudokuBoard board, SudokuView view) {
+        this(board, view, new PuzzlePool());
+    }
+
+    public SudokuController(SudokuBoard board, SudokuView view, PuzzlePool puzzlePool) {
+        this(board, view, puzzlePool, null);
+    }
+
+    /**
+     * @param store where the game is saved, or null to disable saving.
+     */
+    public SudokuController(SudokuBoard board, SudokuView view, PuzzlePool puzzlePool, GameStore store) {
         this.board = board;
+        this.journal = new MoveJournal(board);
         this.view = view;
+        this.puzzlePool = puzzlePool;
+        this.store = store;
         initController();
     }
 
     private void initController() {
-        // Attach listeners to number buttons.
-        for (Component comp : view.getNumberPanel().getComponents()) {
-            if (comp instanceof JButton) {
-                JButton numberButton = (JButton) comp;
-                numberButton.addActionListener(new NumberButtonListener());
-            }
-        }
         view.getNewGameItem().addActionListener(e -> showNewGameDialog());
-        // Attach listeners to board cells.
-        JButton[][] boardCells = view.getBoardCells();
-        for (int row = 0; row < boardCells.length; row++) {
-            for (int col = 0; col < boardCells[row].length; col++) {
-                boardCells[row][col].addActionListener(new BoardCellListener(row, col));
+        view.getHintItem().addActionListener(e -> showHint());
+        view.getUndoItem().addActionListener(e -> {
+            if (journal.undo()) {
+                afterHistoryChange();
             }
-        }
-    }
-
-    private class BoardCellListener implements ActionListener {
-        private final int row;
-        private final int col;
-
-        public BoardCellListener(int row, int col) {
-            this.row = row;
-            this.col = col;
-        }
-
-        @Override
-        public void actionPerformed(ActionEvent e) {
-            // Remove highlight from previously selected cell.
-            if (selectedRow != -1 && selectedCol != -1) {
-                view.getBoardCells()[selectedRow][selectedCol].setBorder(UIManager.getBorder("Button.border"));
+        });
+        view.getRedoItem().addActionListener(e -> {
+            if (journal.redo()) {
+                afterHistoryChange();
             }
+        });
+        // The board component survives size changes, so its listener is attached once.
+        view.getBoardComponent().addCellSelectionListener((row, col) -> {
             selectedRow = row;
             selectedCol = col;
-            JButton cell = view.getBoardCells()[row][col];
-            cell.setBorder(BorderFactory.createLineBorder(Color.BLUE, 2));
+            view.setSelectedCell(row, col);
             updateGuides();
+        });
+        attachNumberListeners();
+    }
+
+    /**
+     * Attaches listeners to the number buttons; called again whenever the view rebuilds them
+     * for another board size.
+     */
+    private void attachNumberListeners() {
+        // Attach listeners to number buttons.
+        for (Component comp : view.getNumberPanel().getComponents()) {
+            if (comp instanceof JButton) {
+                JButton numberButton = (JButton) comp;
+                numberButton.addActionListener(new NumberButtonListener());
+            }
         }
     }
 
@@ -78,22 +106,16 @@ public class SudokuController {
             }
             JButton source = (JButton) e.getSource();
             int number = Integer.parseInt(source.getText());
+            view.setStatus("");
             // If Annotation Mode is active, toggle annotation.
             if (view.getAnnotationModeToggle().isSelected()) {
-                board.toggleAnnotation(selectedRow, selectedCol, number);
-            } else {
-                view.getBoardCells()[selectedRow][selectedCol].setForeground(Color.BLACK);
-                if (board.isValidMove(selectedRow, selectedCol, number)) {
-                    board.placeNumber(selectedRow, selectedCol, number);
-                } else {
-                    // Show error: display number in red.
-                    JButton selectedCell = view.getBoardCells()[selectedRow][selectedCol];
-                    selectedCell.setText(String.valueOf(number));
-                    selectedCell.setForeground(Color.RED);
-                }
+                journal.toggleAnnotation(selectedRow, selectedCol, number);
+            } else if (!enterNumber(journal, fixedBoard, selectedRow, selectedCol, number)) {
+                view.setStatus("Given numbers cannot be changed.");
+                return;
             }
-            // Update the board display using the fixed board for color differentiation.
-            view.updateBoard(board.getBoard(), fixedBoard, board.getAnnotations());
+            // Redraw the changed cells, using the fixed board for color differentiation.
+            view.updateBoard(board, fixedBoard);
             updateGuides();
             // Check for puzzle completion if not in annotation mode.
             if (!view.getAnnotationModeToggle().isSelected() && board.isSolved()) {
@@ -102,22 +124,33 @@ public class SudokuController {
         }
     }
 
+    /**
+     * Enters a number in a cell unless the cell holds a given of the puzzle. Conflicting entries
+     * are kept; the board marks them and the view paints them red.
+     *
+     * @param fixedBoard the initial puzzle state, or null if there are no givens.
+     * @return false if the cell is a given and nothing was entered.
+     */
+    static boolean enterNumber(MoveJournal journal, int[][] fixedBoard, int row, int col, int number) {
+        if (fixedBoard != null && fixedBoard[row][col] != 0) {
+            return false;
+        }
+        journal.enterNumber(row, col, number);
+        return true;
+    }
+
     private void updateGuides() {
         if (selectedRow == -1 || selectedCol == -1) {
             resetNumberButtonHighlights();
             return;
         }
         if (view.getShowGuidesToggle().isSelected()) {
-            for (Component comp : view.getNumberPanel().getComponents()) {
-                if (comp instanceof JButton) {
-                    JButton numberButton = (JButton) comp;
-                    int number = Integer.parseInt(numberButton.getText());
-                    if (board.isValidMove(selectedRow, selectedCol, number)) {
-                        numberButton.setBackground(new Color(144, 238, 144));
-                    } else {
-                        numberButton.setBackground(UIManager.getColor("Button.background"));
-                    }
-                }
+            int candidates = board.getCandidates(selectedRow, selectedCol);
+            Color normal = UIManager.getColor("Button.background");
+            Component[] numberButtons = view.getNumberPanel().getComponents();
+            // Button i holds digit i + 1, which is bit i of the candidate mask.
+            for (int i = 0; i < numberButtons.length; i++) {
+                numberButtons[i].setBackground((candidates & (1 << i)) != 0 ? GUIDE_COLOR : normal);
             }
         } else {
             resetNumberButtonHighlights();
@@ -132,6 +165,58 @@ public class SudokuController {
         }
     }
 
+    /**
+     * Applies the next logical step: a forced digit is placed, eliminations are removed from
+     * the cells' candidates and pencil marks. The technique is shown above the board.
+     */
+    private void showHint() {
+        Hint hint = hintFinder.findHint(board);
+        if (hint == null) {
+            view.setStatus(board.isSolved() ? "" : "No logical step found. Check your entries.");
+            return;
+        }
+        int size = board.getSize();
+        if (hint.isPlacement()) {
+            journal.placeNumber(hint.row(), hint.col(), hint.digit());
+            view.setStatus("Hint: " + hint.technique().getDisplayName() + " - " + hint.digit()
+                    + " at row " + (hint.row() + 1) + ", column " + (hint.col() + 1));
+        } else {
+            int[] eliminations = hint.eliminations();
+            int cells = 0;
+            journal.beginMove();
+            for (int cell = 0; cell < eliminations.length; cell++) {
+                int digits = eliminations[cell];
+                if (digits != 0) {
+                    cells++;
+                    journal.eliminateCandidates(cell / size, cell % size, digits);
+                    for (int bits = digits; bits != 0; bits &= bits - 1) {
+                        journal.removeAnnotation(cell / size, cell % size, Integer.numberOfTrailingZeros(bits) + 1);
+                    }
+                }
+            }
+            journal.endMove();
+            view.setStatus("Hint: " + hint.technique().getDisplayName() + " removes candidates from "
+                    + cells + (cells == 1 ? " cell" : " cells"));
+        }
+        selectedRow = hint.row();
+        selectedCol = hint.col();
+        view.updateBoard(board, fixedBoard);
+        view.setSelectedCell(selectedRow, selectedCol);
+        updateGuides();
+        if (hint.isPlacement() && board.isSolved()) {
+            showGameCompletedDialog();
+        }
+    }
+
+    /**
+     * Redraws the cells an undo or redo changed.
+     */
+    private void afterHistoryChange() {
+        view.setStatus("");
+        view.updateBoard(board, fixedBoard);
+        updateGuides();
+    }
+
     public void showNewGameDialog() {
         String[] options = {"Easy", "Medium", "Hard"};
         int choice = JOptionPane.showOptionDialog(
@@ -160,13 +245,108 @@ public class SudokuController {
                     selectedDifficulty = Difficulty.EASY;
                     break;
             }
-            board = PuzzleGenerator.generatePuzzle(selectedDifficulty);
-            // Store a deep copy of the generated puzzle as fixed numbers.
-            fixedBoard = deepCopy(board.getBoard());
-            view.updateBoard(board.getBoard(), fixedBoard, board.getAnnotations());
-            selectedRow = -1;
-            selectedCol = -1;
-            resetNumberButtonHighlights();
+            int boxSize = view.getSelectedBoxSize();
+            cancelPendingGame();
+            // The pool holds 9x9 puzzles; other sizes are generated on demand, off the EDT.
+            if (boxSize == 3) {
+                startNewGame(puzzlePool.take(selectedDifficulty));
+            } else {
+                generateInBackground(boxSize, selectedDifficulty);
+            }
+        }
+    }
+
+    /**
+     * Generates a 4x4, 16x16 or 25x25 puzzle on a worker thread and starts it when it is
+     * ready. The current game stays playable meanwhile.
+     */
+    private void generateInBackground(int boxSize, Difficulty difficulty) {
+        int size = boxSize * boxSize;
+        view.setStatus("Generating a " + size + "x" + size + " puzzle...");
+        SwingWorker<SudokuBoard, Void> worker = new SwingWorker<>() {
+            @Override
+            protected SudokuBoard doInBackground() {
+                return PuzzleGenerator.generateUniquePuzzle(boxSize, difficulty);
+            }
+
+            @Override
+            protected void done() {
+                // A newer game or a resumed one replaced this request.
+                if (pendingGame != this) {
+                    return;
+                }
+                pendingGame = null;
+                try {
+                    startNewGame(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    view.setStatus("Could not generate a puzzle: " + e.getCause().getMessage());
+                }
+            }
+        };
+        pendingGame = worker;
+        worker.execute();
+    }
+
+    private void cancelPendingGame() {
+        if (pendingGame != null) {
+            pendingGame.cancel(true);
+            pendingGame = null;
+        }
+    }
+
+    /**
+     * Replaces the game with a freshly generated puzzle.
+     */
+    private void startNewGame(SudokuBoard newBoard) {
+        board = newBoard;
+        if (view.getBoxSize() != board.getBoxSize()) {
+            view.setBoxSize(board.getBoxSize());
+            attachNumberListeners();
+        }
+        journal = new MoveJournal(board);
+        // Store a deep copy of the generated puzzle as fixed numbers.
+        fixedBoard = deepCopy(board.getBoard());
+        startSaving();
+        view.updateBoard(board, fixedBoard);
+        selectedRow = -1;
+        selectedCol = -1;
+        view.setSelectedCell(-1, -1);
+        view.setStatus("");
+        resetNumberButtonHighlights();
+    }
+
+    /**
+     * Continues a game restored from the store.
+     */
+    public void resumeGame(GameStore.SavedGame saved) {
+        cancelPendingGame();
+        board = saved.board();
+        fixedBoard = saved.fixedBoard();
+        journal = new MoveJournal(board);
+        if (store != null) {
+            journal.setChangeListener(store);
+        }
+        if (view.getBoxSize() != board.getBoxSize()) {
+            view.setBoxSize(board.getBoxSize());
+            attachNumberListeners();
+        }
+        board.markAllDirty();
+        view.updateBoard(board, fixedBoard);
+        selectedRow = -1;
+        selectedCol = -1;
+        view.setSelectedCell(-1, -1);
+        resetNumberButtonHighlights();
+    }
+
+    /**
+     * Saves the freshly started game as a snapshot and journals the moves that follow.
+     */
+    private void startSaving() {
+        if (store != null) {
+            store.saveSnapshot(board, fixedBoard);
+            journal.setChangeListener(store);
         }
     }
 
@@ -184,7 +364,9 @@ public class SudokuController {
         );
         if (choice == JOptionPane.YES_OPTION) {
             board.resetBoard(deepCopy(fixedBoard));
-            view.updateBoard(board.getBoard(), fixedBoard, board.getAnnotations());
+            journal.clear();
+            startSaving();
+            view.updateBoard(board, fixedBoard);
             resetNumberButtonHighlights();
         } else if (choice == JOptionPane.NO_OPTION) {
             showNewGameDialog();
@@ -0,0 +1,501 @@
+package com.sudokumaster.io;
+
+import com.sudokumaster.model.MoveJournal;
+import com.sudokumaster.model.SudokuBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the game in progress so it survives closing the window or a crash.
+ * <p>
+ * The save directory holds two files. {@code game.snapshot} is the whole game: givens, values,
+ * pencil marks and, if the board knows it, the solution. It is written to a temporary file,
+ * forced to disk and renamed over the old one, so it is always complete. {@code game.journal}
+ * holds the {@link MoveJournal} entries made since that snapshot, appended in batches that
+ * each carry a CRC32; a batch torn by a crash fails its check and is dropped on load. Both
+ * files carry the snapshot's generation, so a journal left over from an older snapshot is
+ * ignored.
+ * <p>
+ * Snapshot layout (big-endian, {@code n} = board size):
+ * <pre>
+ * offset    size  field
+ *      0       4  magic "SDKG"
+ *      4       2  format version (2)
+ *      6       1  box size
+ *      7       1  flags (bit 0: the solution follows the pencil marks)
+ *      8       8  generation
+ *     16     n*n  givens, 0 for cells the player fills
+ *  16+n*n    n*n  cell values
+ *  16+2n*n 4*n*n  pencil-mark masks
+ *  16+6n*n   n*n  solution, only if flag bit 0 is set
+ *      -       4  CRC32 of everything before
+ * </pre>
+ * Version 1 snapshots, which have no flags and no solution, are still read.
+ * Journal layout: magic "SDKJ" (4), version (2), reserved (2), generation (8), then batches of
+ * entry count (4), entries (4 each) and the CRC32 of count and entries (4).
+ * <p>
+ * The store listens to a {@link MoveJournal}. Changes are copied into an {@code int} buffer on
+ * the caller's thread; a daemon writer thread appends them, gathering the moves of
+ * {@value #BATCH_DELAY_MS} ms into one write and one fsync, so the event dispatch thread never
+ * waits for the disk. Only finished moves are handed to the writer. Once the journal holds
+ * {@value #COMPACT_ENTRIES} entries a new snapshot replaces it, which keeps resuming fast after
+ * long sessions. Write errors stop saving and are reported by {@link #getError()}.
+ */
+public class GameStore implements MoveJournal.ChangeListener, AutoCloseable {
+
+    /** Delay used to gather moves into one write and fsync. */
+    public static final int BATCH_DELAY_MS = 50;
+    /** Journal entries after which the next finished move triggers a new snapshot. */
+    public static final int COMPACT_ENTRIES = 8192;
+
+    static final String SNAPSHOT_FILE = "game.snapshot";
+    static final String JOURNAL_FILE = "game.journal";
+    static final int SNAPSHOT_MAGIC = 0x53444B47;
+    static final int JOURNAL_MAGIC = 0x53444B4A;
+    // Journal format version, and the snapshot version before solutions were added.
+    static final short VERSION = 1;
+    static final short SNAPSHOT_VERSION = 2;
+    static final int FLAG_SOLUTION = 1;
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * A game restored by {@link #load()}.
+     *
+     * @param board      the board with values and pencil marks as last saved.
+     * @param fixedBoard the givens, 0 for cells the player fills.
+     */
+    public record SavedGame(SudokuBoard board, int[][] fixedBoard) {
+    }
+
+    private final Path directory;
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final Object lock = new Object();
+    private final Thread writer;
+
+    // Shared with the writer, guarded by lock.
+    private int[] pending = new int[1024];
+    private int pendingCount;
+    private int committedCount;
+    private byte[] pendingSnapshot;
+    // Work handed over so far and work on disk so far, counted in entries and snapshots.
+    private long submitted;
+    private long durable;
+    private boolean flushRequested;
+    private boolean closing;
+    private volatile IOException error;
+
+    // Caller-thread state for compaction.
+    private SudokuBoard board;
+    private int[][] fixedBoard;
+    private int journalEntries;
+
+    // Writer-thread state.
+    private int[] writing = new int[1024];
+    private FileChannel journal;
+    private long generation;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer batchBuffer = ByteBuffer.allocate(8192).order(ByteOrder.BIG_ENDIAN);
+
+    /**
+     * Opens a store in {@code directory}, creating it if needed. Call {@link #load()} before
+     * saving anything, so an existing game is not overwritten unread.
+     */
+    public GameStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.journalPath = directory.resolve(JOURNAL_FILE);
+        this.writer = new Thread(this::runWriter, "game-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Reads the saved game: the snapshot, then every intact journal batch replayed on top.
+     * A torn tail is cut off the journal so later batches append after the last good one.
+     *
+     * @return the game, or null if nothing was saved.
+     * @throws IOException if the snapshot cannot be read or is corrupt.
+     */
+    public SavedGame load() throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(snapshotPath);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+        if (bytes.length < HEADER_SIZE || in.getInt(0) != SNAPSHOT_MAGIC
+                || (in.getShort(4) != VERSION && in.getShort(4) != SNAPSHOT_VERSION)) {
+            throw new IOException("Not a saved game: " + snapshotPath);
+        }
+        int boxSize = in.get(6);
+        int size = boxSize * boxSize;
+        int cells = size * size;
+        boolean hasSolution = in.getShort(4) == SNAPSHOT_VERSION && (in.get(7) & FLAG_SOLUTION) != 0;
+        int length = HEADER_SIZE + 6 * cells + (hasSolution ? cells : 0) + 4;
+        if (boxSize < 2 || boxSize > 5 || bytes.length != length) {
+            throw new IOException("Corrupt saved game: " + snapshotPath);
+        }
+        CRC32 check = new CRC32();
+        check.update(bytes, 0, bytes.length - 4);
+        if ((int) check.getValue() != in.getInt(bytes.length - 4)) {
+            throw new IOException("Corrupt saved game: " + snapshotPath);
+        }
+        long snapshotGeneration = in.getLong(8);
+        int[][] givens = new int[size][size];
+        int[][] values = new int[size][size];
+        for (int cell = 0; cell < cells; cell++) {
+            givens[cell / size][cell % size] = bytes[HEADER_SIZE + cell];
+            values[cell / size][cell % size] = bytes[HEADER_SIZE + cells + cell];
+        }
+        SudokuBoard loaded = new SudokuBoard(boxSize);
+        loaded.resetBoard(values);
+        if (hasSolution) {
+            try {
+                loaded.setSolution(Arrays.copyOfRange(bytes, HEADER_SIZE + 6 * cells, HEADER_SIZE + 7 * cells));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt saved game: " + snapshotPath, e);
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            int marks = in.getInt(HEADER_SIZE + 2 * cells + 4 * cell);
+            for (int bits = marks; bits != 0; bits &= bits - 1) {
+                loaded.addAnnotation(cell / size, cell % size, Integer.numberOfTrailingZeros(bits) + 1);
+            }
+        }
+        int replayed = replayJournal(loaded, snapshotGeneration);
+        synchronized (lock) {
+            generation = snapshotGeneration;
+            board = loaded;
+            fixedBoard = givens;
+            journalEntries = replayed;
+        }
+        return new SavedGame(loaded, givens);
+    }
+
+    /**
+     * Replaces the saved game with the current state of {@code board}, e.g. when a game starts.
+     * The state is copied on the caller's thread and written in the background; later changes
+     * reported by a {@link MoveJournal} on this board are journaled after it.
+     *
+     * @param fixedBoard the givens, 0 for cells the player fills.
+     */
+    public void saveSnapshot(SudokuBoard board, int[][] fixedBoard) {
+        this.board = board;
+        this.fixedBoard = fixedBoard;
+        journalEntries = 0;
+        byte[] snapshot = encodeSnapshot(board, fixedBoard);
+        synchronized (lock) {
+            // The snapshot already contains every pending change.
+            pendingSnapshot = snapshot;
+            System.arraycopy(pending, committedCount, pending, 0, pendingCount - committedCount);
+            pendingCount -= committedCount;
+            committedCount = 0;
+            submitted++;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void changed(int entry) {
+        synchronized (lock) {
+            if (pendingCount == pending.length) {
+                int[] grown = new int[pending.length * 2];
+                System.arraycopy(pending, 0, grown, 0, pendingCount);
+                pending = grown;
+            }
+            pending[pendingCount++] = entry;
+        }
+    }
+
+    @Override
+    public void moveFinished() {
+        int added;
+        synchronized (lock) {
+            added = pendingCount - committedCount;
+            submitted += added;
+            committedCount = pendingCount;
+            lock.notifyAll();
+        }
+        journalEntries += added;
+        if (journalEntries >= COMPACT_ENTRIES && board != null) {
+            saveSnapshot(board, fixedBoard);
+        }
+    }
+
+    /**
+     * Waits until everything handed over so far is on disk.
+     *
+     * @throws IOException if saving failed.
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            long target = submitted;
+            flushRequested = true;
+            lock.notifyAll();
+            while (durable < target && error == null && writer.isAlive()) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while saving", e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Returns the error that stopped saving, or null.
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * Writes everything handed over so far and stops the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            synchronized (lock) {
+                closing = true;
+                lock.notifyAll();
+            }
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private byte[] encodeSnapshot(SudokuBoard board, int[][] fixedBoard) {
+        int size = board.getSize();
+        int cells = size * size;
+        int[][] values = board.getBoard();
+        boolean hasSolution = board.hasSolution();
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + 6 * cells + (hasSolution ? cells : 0) + 4)
+                .order(ByteOrder.BIG_ENDIAN);
+        out.putInt(SNAPSHOT_MAGIC).putShort(SNAPSHOT_VERSION).put((byte) board.getBoxSize())
+                .put((byte) (hasSolution ? FLAG_SOLUTION : 0));
+        out.putLong(0); // Generation, filled in by the writer.
+        for (int cell = 0; cell < cells; cell++) {
+            out.put((byte) (fixedBoard == null ? 0 : fixedBoard[cell / size][cell % size]));
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            out.put((byte) values[cell / size][cell % size]);
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            out.putInt(board.getAnnotationMask(cell / size, cell % size));
+        }
+        if (hasSolution) {
+            for (int cell = 0; cell < cells; cell++) {
+                out.put((byte) board.getSolutionDigit(cell / size, cell % size));
+            }
+        }
+        return out.array();
+    }
+
+    /**
+     * Replays the journal's intact batches and truncates anything after them. A missing journal,
+     * or one written for another snapshot, is replaced by an empty one.
+     *
+     * @return the number of entries replayed.
+     */
+    private int replayJournal(SudokuBoard board, long snapshotGeneration) throws IOException {
+        int replayed = 0;
+        int position = 0;
+        CRC32 check = new CRC32();
+        if (Files.exists(journalPath)) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(journalPath)).order(ByteOrder.BIG_ENDIAN);
+            if (in.limit() >= HEADER_SIZE && in.getInt(0) == JOURNAL_MAGIC && in.getShort(4) == VERSION
+                    && in.getLong(8) == snapshotGeneration) {
+                position = HEADER_SIZE;
+            }
+            while (position > 0 && position + 8 <= in.limit()) {
+                int count = in.getInt(position);
+                long end = position + 4L + 4L * count + 4;
+                if (count <= 0 || end > in.limit()) {
+                    break;
+                }
+                check.reset();
+                check.update(in.array(), position, 4 + 4 * count);
+                if ((int) check.getValue() != in.getInt((int) end - 4)) {
+                    break;
+                }
+                for (int i = 0; i < count; i++) {
+                    MoveJournal.replay(board, in.getInt(position + 4 + 4 * i));
+                }
+                replayed += count;
+                position = (int) end;
+            }
+        }
+        FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (position == 0) {
+            startJournal(channel, snapshotGeneration);
+        } else {
+            channel.truncate(position);
+            channel.position(position);
+        }
+        synchronized (lock) {
+            journal = channel;
+        }
+        return replayed;
+    }
+
+    private void runWriter() {
+        while (true) {
+            byte[] snapshot;
+            int count;
+            long taken;
+            synchronized (lock) {
+                while (!closing && committedCount == 0 && pendingSnapshot == null) {
+                    waitLock(0);
+                }
+                if (closing && committedCount == 0 && pendingSnapshot == null) {
+                    break;
+                }
+                // Give the next moves a moment to join this batch, unless someone is waiting.
+                long deadline = System.nanoTime() + BATCH_DELAY_MS * 1_000_000L;
+                long remaining;
+                while (!closing && !flushRequested && (remaining = deadline - System.nanoTime()) > 0) {
+                    waitLock(Math.max(1, remaining / 1_000_000L));
+                }
+                flushRequested = false;
+                snapshot = pendingSnapshot;
+                pendingSnapshot = null;
+                count = committedCount;
+                if (writing.length < count) {
+                    writing = new int[pending.length];
+                }
+                System.arraycopy(pending, 0, writing, 0, count);
+                System.arraycopy(pending, count, pending, 0, pendingCount - count);
+                pendingCount -= count;
+                committedCount = 0;
+                taken = submitted;
+            }
+            try {
+                if (error == null) {
+                    if (snapshot != null) {
+                        writeSnapshot(snapshot);
+                    }
+                    if (count > 0 && journal != null) {
+                        appendBatch(count);
+                    }
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            synchronized (lock) {
+                durable = taken;
+                lock.notifyAll();
+            }
+        }
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot under the next generation, renames it into place and starts an empty
+     * journal for it. A crash in between leaves the old journal, whose generation no longer matches.
+     */
+    private void writeSnapshot(byte[] snapshot) throws IOException {
+        generation++;
+        ByteBuffer out = ByteBuffer.wrap(snapshot).order(ByteOrder.BIG_ENDIAN);
+        out.putLong(8, generation);
+        crc.reset();
+        crc.update(snapshot, 0, snapshot.length - 4);
+        out.putInt(snapshot.length - 4, (int) crc.getValue());
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, out.rewind());
+            channel.force(true);
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+
+        if (journal == null) {
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        startJournal(journal, generation);
+    }
+
+    /**
+     * Empties a journal and writes its header.
+     */
+    private static void startJournal(FileChannel channel, long generation) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(JOURNAL_MAGIC).putShort(VERSION).putShort((short) 0).putLong(generation).flip();
+        channel.position(0);
+        writeFully(channel, header);
+        channel.force(false);
+    }
+
+    private void appendBatch(int count) throws IOException {
+        int bytes = 4 * count + 8;
+        if (batchBuffer.capacity() < bytes) {
+            batchBuffer = ByteBuffer.allocate(Integer.highestOneBit(bytes) * 2).order(ByteOrder.BIG_ENDIAN);
+        }
+        batchBuffer.clear();
+        batchBuffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            batchBuffer.putInt(writing[i]);
+        }
+        crc.reset();
+        crc.update(batchBuffer.array(), 0, batchBuffer.position());
+        batchBuffer.putInt((int) crc.getValue()).flip();
+        writeFully(journal, batchBuffer);
+        journal.force(false);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Makes the rename durable. Not every platform can open a directory; there the rename is
+     * left to the file system.
+     */
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported here.
+        }
+    }
+
+    private void waitLock(long millis) {
+        try {
+            lock.wait(millis);
+        } catch (InterruptedException e) {
+            closing = true;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.sudokumaster.io;
+
+import com.sudokumaster.model.Difficulty;
+import com.sudokumaster.model.SudokuBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped bank of packed puzzles.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * offset  size  field
+ *      0     4  magic "SDKB"
+ *      4     2  format version (1)
+ *      6     2  flags (bit 0: every record also holds the solution)
+ *      8     4  record size in bytes (41, or 82 with solutions)
+ *     12     4  number of index sections
+ *     16  24*n  index: per section difficulty ordinal (4), reserved (4), data offset (8), record count (8)
+ *    128     -  record data, one contiguous section per difficulty
+ * </pre>
+ * Each record is a {@link PuzzleCodec packed} puzzle, optionally followed by its packed solution.
+ * Sections are mapped directly, so random access needs no parse step and creates no objects
+ * beyond the caller's destination array. Large sections are mapped in chunks below 2 GB.
+ * A bank can be read from any number of threads at once.
+ */
+public class PuzzleBank implements AutoCloseable {
+
+    static final int MAGIC = 0x53444B42;
+    static final short VERSION = 1;
+    static final short FLAG_SOLUTIONS = 1;
+    static final int HEADER_SIZE = 128;
+    static final int INDEX_OFFSET = 16;
+    static final int INDEX_ENTRY_SIZE = 24;
+
+    private final FileChannel channel;
+    private final boolean hasSolutions;
+    private final int recordSize;
+    private final long[] counts = new long[Difficulty.values().length];
+    // Mapped chunks per difficulty; chunk k holds records [k * recordsPerChunk, (k + 1) * recordsPerChunk).
+    private final MappedByteBuffer[][] chunks = new MappedByteBuffer[Difficulty.values().length][];
+    private final int recordsPerChunk;
+
+    private PuzzleBank(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Keep reading until the header is complete or the file ends.
+        }
+        if (header.position() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a puzzle bank file");
+        }
+        if (header.getShort(4) != VERSION) {
+            throw new IOException("Unsupported puzzle bank version " + header.getShort(4));
+        }
+        hasSolutions = (header.getShort(6) & FLAG_SOLUTIONS) != 0;
+        recordSize = header.getInt(8);
+        if (recordSize != PuzzleCodec.PACKED_SIZE * (hasSolutions ? 2 : 1)) {
+            throw new IOException("Unexpected record size " + recordSize);
+        }
+        recordsPerChunk = Integer.MAX_VALUE / recordSize;
+        int sections = header.getInt(12);
+        if (sections < 0 || INDEX_OFFSET + sections * INDEX_ENTRY_SIZE > HEADER_SIZE) {
+            throw new IOException("Corrupt puzzle bank index");
+        }
+        long fileSize = channel.size();
+        for (int s = 0; s < sections; s++) {
+            int entry = INDEX_OFFSET + s * INDEX_ENTRY_SIZE;
+            int ordinal = header.getInt(entry);
+            long offset = header.getLong(entry + 8);
+            long count = header.getLong(entry + 16);
+            if (ordinal < 0 || ordinal >= counts.length || count < 0 || offset + count * recordSize > fileSize) {
+                throw new IOException("Corrupt puzzle bank section " + s);
+            }
+            counts[ordinal] = count;
+            chunks[ordinal] = mapSection(offset, count);
+        }
+        for (int d = 0; d < chunks.length; d++) {
+            if (chunks[d] == null) {
+                chunks[d] = new MappedByteBuffer[0];
+            }
+        }
+    }
+
+    /**
+     * Opens and maps an existing bank file.
+     */
+    public static PuzzleBank open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PuzzleBank(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates (or truncates) a bank file for writing.
+     *
+     * @param path          destination file.
+     * @param withSolutions whether every record also stores its solution.
+     */
+    public static PuzzleBankWriter create(Path path, boolean withSolutions) throws IOException {
+        return new PuzzleBankWriter(path, withSolutions);
+    }
+
+    public boolean hasSolutions() {
+        return hasSolutions;
+    }
+
+    /**
+     * Returns the number of puzzles stored for a difficulty.
+     */
+    public long count(Difficulty difficulty) {
+        return counts[difficulty.ordinal()];
+    }
+
+    /**
+     * Reads a puzzle into a flat cell array.
+     *
+     * @param difficulty section to read from.
+     * @param index      record index within the section.
+     * @param cells      destination array of 81 cells.
+     */
+    public void readPuzzle(Difficulty difficulty, long index, byte[] cells) {
+        read(difficulty, index, 0, cells);
+    }
+
+    /**
+     * Reads the solution of a puzzle into a flat cell array.
+     *
+     * @throws IllegalStateException if the bank was written without solutions.
+     */
+    public void readSolution(Difficulty difficulty, long index, byte[] cells) {
+        if (!hasSolutions) {
+            throw new IllegalStateException("This puzzle bank does not store solutions");
+        }
+        read(difficulty, index, PuzzleCodec.PACKED_SIZE, cells);
+    }
+
+    /**
+     * Loads a puzzle as a new {@link SudokuBoard}, with its solution attached if the bank stores
+     * solutions.
+     */
+    public SudokuBoard load(Difficulty difficulty, long index) {
+        byte[] cells = new byte[PuzzleCodec.CELLS];
+        readPuzzle(difficulty, index, cells);
+        int[][] grid = new int[9][9];
+        PuzzleCodec.toBoard(cells, grid);
+        SudokuBoard board = new SudokuBoard();
+        board.resetBoard(grid);
+        if (hasSolutions) {
+            readSolution(difficulty, index, cells);
+            board.setSolution(cells);
+        }
+        return board;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void read(Difficulty difficulty, long index, int fieldOffset, byte[] cells) {
+        int d = difficulty.ordinal();
+        if (index < 0 || index >= counts[d]) {
+            throw new IndexOutOfBoundsException("No puzzle " + index + " for " + difficulty);
+        }
+        MappedByteBuffer chunk = chunks[d][(int) (index / recordsPerChunk)];
+        int position = (int) (index % recordsPerChunk) * recordSize + fieldOffset;
+        PuzzleCodec.unpack(chunk, position, cells);
+    }
+
+    private MappedByteBuffer[] mapSection(long offset, long count) throws IOException {
+        int chunkCount = (int) ((count + recordsPerChunk - 1) / recordsPerChunk);
+        MappedByteBuffer[] mapped = new MappedByteBuffer[chunkCount];
+        for (int k = 0; k < chunkCount; k++) {
+            long first = (long) k * recordsPerChunk;
+            long records = Math.min(recordsPerChunk, count - first);
+            mapped[k] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * recordSize, records * recordSize);
+        }
+        return mapped;
+    }
+}
@@ -0,0 +1,134 @@
+package com.sudokumaster.io;
+
+import com.sudokumaster.model.Difficulty;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams puzzles into a {@link PuzzleBank} file.
+ * <p>
+ * Records are written through a reusable buffer as they are added, so banks of any size can be
+ * written with constant memory. Puzzles of one difficulty must be added contiguously: switching
+ * to another difficulty closes the previous section. The header and index are written on
+ * {@link #close()}. Instances are not thread-safe.
+ */
+public class PuzzleBankWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final boolean withSolutions;
+    private final int recordSize;
+    private final ByteBuffer buffer;
+    private final long[] offsets = new long[Difficulty.values().length];
+    private final long[] counts = new long[Difficulty.values().length];
+    private final boolean[] sectionClosed = new boolean[Difficulty.values().length];
+    private Difficulty current;
+    // File offset of the next record, and of the first record still held in the buffer.
+    private long position = PuzzleBank.HEADER_SIZE;
+    private long flushedPosition = PuzzleBank.HEADER_SIZE;
+    private boolean closed;
+
+    PuzzleBankWriter(Path path, boolean withSolutions) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.withSolutions = withSolutions;
+        this.recordSize = PuzzleCodec.PACKED_SIZE * (withSolutions ? 2 : 1);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE - BUFFER_SIZE % recordSize);
+    }
+
+    /**
+     * Adds a puzzle to a bank written without solutions.
+     *
+     * @param difficulty section to add to.
+     * @param puzzle     flat array of 81 cells.
+     */
+    public void add(Difficulty difficulty, byte[] puzzle) throws IOException {
+        if (withSolutions) {
+            throw new IllegalStateException("This bank stores solutions; use add(difficulty, puzzle, solution)");
+        }
+        append(difficulty, puzzle, null);
+    }
+
+    /**
+     * Adds a puzzle and its solution to a bank written with solutions.
+     */
+    public void add(Difficulty difficulty, byte[] puzzle, byte[] solution) throws IOException {
+        if (!withSolutions) {
+            throw new IllegalStateException("This bank does not store solutions; use add(difficulty, puzzle)");
+        }
+        append(difficulty, puzzle, solution);
+    }
+
+    private void append(Difficulty difficulty, byte[] puzzle, byte[] solution) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        int d = difficulty.ordinal();
+        if (difficulty != current) {
+            if (sectionClosed[d]) {
+                throw new IllegalStateException("Puzzles for " + difficulty + " must be added contiguously");
+            }
+            if (current != null) {
+                sectionClosed[current.ordinal()] = true;
+            }
+            current = difficulty;
+            offsets[d] = position;
+        }
+        if (buffer.remaining() < recordSize) {
+            flush();
+        }
+        PuzzleCodec.pack(puzzle, buffer);
+        if (solution != null) {
+            PuzzleCodec.pack(solution, buffer);
+        }
+        counts[d]++;
+        position += recordSize;
+    }
+
+    /**
+     * Flushes the remaining records and writes the header and index.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(PuzzleBank.HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            header.putInt(PuzzleBank.MAGIC);
+            header.putShort(PuzzleBank.VERSION);
+            header.putShort(withSolutions ? PuzzleBank.FLAG_SOLUTIONS : 0);
+            header.putInt(recordSize);
+            header.putInt(offsets.length);
+            for (int d = 0; d < offsets.length; d++) {
+                header.putInt(d);
+                header.putInt(0);
+                header.putLong(counts[d] == 0 ? PuzzleBank.HEADER_SIZE : offsets[d]);
+                header.putLong(counts[d]);
+            }
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushedPosition += channel.write(buffer, flushedPosition);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,139 @@
+package com.sudokumaster.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packed encoding of 9x9 grids: 4 bits per cell, two cells per byte, 41 bytes per grid.
+ * Cells are stored in row-major order with the even cell in the high nibble; 0 means empty.
+ * All packing methods work on caller-supplied arrays and never allocate.
+ * <p>
+ * The codec also reads and writes the common 81-character line format: one character per cell
+ * in row-major order, digits 1-9 for givens and {@code 0}, {@code .}, {@code -} or {@code _}
+ * for empty cells.
+ */
+public final class PuzzleCodec {
+
+    /** Number of cells in a 9x9 grid. */
+    public static final int CELLS = 81;
+    /** Size in bytes of one packed grid. */
+    public static final int PACKED_SIZE = (CELLS + 1) / 2;
+
+    private PuzzleCodec() {
+    }
+
+    /**
+     * Packs a flat grid into {@code out} starting at {@code offset}.
+     *
+     * @param cells  flat array of 81 cells with values 0-9.
+     * @param out    destination array.
+     * @param offset position of the first packed byte.
+     */
+    public static void pack(byte[] cells, byte[] out, int offset) {
+        for (int i = 0; i < CELLS - 1; i += 2) {
+            out[offset + (i >> 1)] = (byte) ((cells[i] << 4) | cells[i + 1]);
+        }
+        out[offset + PACKED_SIZE - 1] = (byte) (cells[CELLS - 1] << 4);
+    }
+
+    /**
+     * Packs a flat grid into a buffer at its current position, advancing the position.
+     */
+    public static void pack(byte[] cells, ByteBuffer out) {
+        for (int i = 0; i < CELLS - 1; i += 2) {
+            out.put((byte) ((cells[i] << 4) | cells[i + 1]));
+        }
+        out.put((byte) (cells[CELLS - 1] << 4));
+    }
+
+    /**
+     * Unpacks a grid stored at {@code offset} of {@code in}.
+     *
+     * @param in     packed bytes.
+     * @param offset position of the first packed byte.
+     * @param cells  destination array of 81 cells.
+     */
+    public static void unpack(byte[] in, int offset, byte[] cells) {
+        for (int i = 0; i < CELLS - 1; i += 2) {
+            int b = in[offset + (i >> 1)];
+            cells[i] = (byte) ((b >> 4) & 0xF);
+            cells[i + 1] = (byte) (b & 0xF);
+        }
+        cells[CELLS - 1] = (byte) ((in[offset + PACKED_SIZE - 1] >> 4) & 0xF);
+    }
+
+    /**
+     * Unpacks a grid stored at absolute position {@code offset} of a buffer.
+     * The buffer's position is not changed, so this is safe on a shared read-only mapping.
+     */
+    public static void unpack(ByteBuffer in, int offset, byte[] cells) {
+        for (int i = 0; i < CELLS - 1; i += 2) {
+            int b = in.get(offset + (i >> 1));
+            cells[i] = (byte) ((b >> 4) & 0xF);
+            cells[i + 1] = (byte) (b & 0xF);
+        }
+        cells[CELLS - 1] = (byte) ((in.get(offset + PACKED_SIZE - 1) >> 4) & 0xF);
+    }
+
+    /**
+     * Parses an 81-character line into a flat cell array.
+     * Surrounding whitespace and anything after the first space or tab is ignored.
+     *
+     * @param line  the line to parse.
+     * @param cells destination array of 81 cells.
+     * @return false if the line is not a well-formed puzzle.
+     */
+    public static boolean parseLine(CharSequence line, byte[] cells) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        int stop = start;
+        while (stop < end && line.charAt(stop) != ' ' && line.charAt(stop) != '\t' && line.charAt(stop) != '\r') {
+            stop++;
+        }
+        if (stop - start != CELLS) {
+            return false;
+        }
+        for (int i = 0; i < CELLS; i++) {
+            char c = line.charAt(start + i);
+            if (c >= '1' && c <= '9') {
+                cells[i] = (byte) (c - '0');
+            } else if (c == '0' || c == '.' || c == '-' || c == '_') {
+                cells[i] = 0;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Formats a flat cell array as an 81-character line, using {@code .} for empty cells.
+     */
+    public static String formatLine(byte[] cells) {
+        char[] chars = new char[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            chars[i] = cells[i] == 0 ? '.' : (char) ('0' + cells[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Copies a 9x9 board into a flat cell array.
+     */
+    public static void toCells(int[][] board, byte[] cells) {
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] = (byte) board[i / 9][i % 9];
+        }
+    }
+
+    /**
+     * Copies a flat cell array into a 9x9 board.
+     */
+    public static void toBoard(byte[] cells, int[][] board) {
+        for (int i = 0; i < CELLS; i++) {
+            board[i / 9][i % 9] = cells[i];
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.sudokumaster.model;
+
+/**
+ * Checks every board of a {@link BoardBatch} at once: {@link #checkSolved} for finished grids
+ * and {@link #checkValid} for partial boards, with the same rules as
+ * {@link SudokuBoard#isSolved()} and {@link PuzzleGenerator#validateBoard}.
+ * <p>
+ * Both walk the 27 units once per block of boards. Each cell contributes a digit bit to its
+ * unit's mask for every board of the block, side by side; a unit is complete when its mask
+ * holds all nine bits and has a conflict when a bit arrives twice. {@link #create()} returns
+ * a validator that processes one board per SIMD lane with the incubating Vector API when the
+ * JVM runs with {@code --add-modules jdk.incubator.vector}; otherwise it falls back to this
+ * scalar implementation, which the JIT can still partly vectorize. Instances are stateless
+ * and thread-safe.
+ */
+public class BatchValidator {
+
+    private static final int DIGITS = 9;
+    private static final int ALL_DIGITS = (1 << DIGITS) - 1;
+    // Boards checked together by the scalar implementation.
+    private static final int BLOCK = 64;
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_IMPLEMENTATION = "com.sudokumaster.model.VectorBatchValidator";
+
+    /** The rows, columns and boxes of a 9x9 board, as lists of cells. */
+    static final int[][] UNITS = BoardGeometry.of(3).units;
+
+    private static final BatchValidator SCALAR = new BatchValidator();
+
+    BatchValidator() {
+    }
+
+    /**
+     * Returns the Vector API validator if the {@code jdk.incubator.vector} module is available,
+     * and the scalar one otherwise.
+     */
+    public static BatchValidator create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (BatchValidator) Class.forName(VECTOR_IMPLEMENTATION).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not usable on this JVM; use the scalar implementation.
+            }
+        }
+        return SCALAR;
+    }
+
+    /**
+     * Returns the scalar validator.
+     */
+    public static BatchValidator scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Returns true if this validator uses SIMD lanes.
+     */
+    public boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Checks which boards are completely and correctly solved: every cell holds a digit 1-9
+     * and every row, column and box holds each digit once.
+     *
+     * @param batch   the boards to check.
+     * @param results receives, for each board, whether it is solved.
+     * @return the number of solved boards.
+     */
+    public int checkSolved(BoardBatch batch, boolean[] results) {
+        return check(batch, true, results);
+    }
+
+    /**
+     * Checks which boards are valid partial boards: every cell is empty (0) or holds a digit
+     * 1-9, and no row, column or box holds a digit twice.
+     *
+     * @param batch   the boards to check.
+     * @param results receives, for each board, whether it is valid.
+     * @return the number of valid boards.
+     */
+    public int checkValid(BoardBatch batch, boolean[] results) {
+        return check(batch, false, results);
+    }
+
+    private int check(BoardBatch batch, boolean complete, boolean[] results) {
+        if (results.length < batch.size()) {
+            throw new IllegalArgumentException("results is smaller than the batch");
+        }
+        return check(batch.cells(), batch.getStride(), 0, batch.size(), complete, results);
+    }
+
+    /**
+     * Checks boards {@code from} to {@code to - 1} of a cell-major array.
+     *
+     * @return the number of boards that passed.
+     */
+    int check(byte[] cells, int stride, int from, int to, boolean complete, boolean[] results) {
+        int min = complete ? 1 : 0;
+        int[] seen = new int[BLOCK];
+        int[] bad = new int[BLOCK];
+        int passed = 0;
+        for (int start = from; start < to; start += BLOCK) {
+            int count = Math.min(BLOCK, to - start);
+            for (int i = 0; i < count; i++) {
+                bad[i] = 0;
+            }
+            for (int cell = 0; cell < BoardBatch.CELLS; cell++) {
+                int offset = cell * stride + start;
+                for (int i = 0; i < count; i++) {
+                    int digit = cells[offset + i];
+                    bad[i] |= (digit < min || digit > DIGITS) ? 1 : 0;
+                }
+            }
+            for (int[] unit : UNITS) {
+                for (int i = 0; i < count; i++) {
+                    seen[i] = 0;
+                }
+                for (int cell : unit) {
+                    int offset = cell * stride + start;
+                    for (int i = 0; i < count; i++) {
+                        // An empty cell shifts to bit 31, outside the digit mask.
+                        int bit = (1 << (cells[offset + i] - 1)) & ALL_DIGITS;
+                        bad[i] |= seen[i] & bit;
+                        seen[i] |= bit;
+                    }
+                }
+                if (complete) {
+                    for (int i = 0; i < count; i++) {
+                        bad[i] |= seen[i] ^ ALL_DIGITS;
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                boolean ok = bad[i] == 0;
+                results[start + i] = ok;
+                passed += ok ? 1 : 0;
+            }
+        }
+        return passed;
+    }
+}
@@ -0,0 +1,142 @@
+package com.sudokumaster.model;
+
+/**
+ * A batch of 9x9 boards packed into one flat byte array, for checking and solving thousands of
+ * boards at a time without an object per board.
+ * <p>
+ * Boards are stored cell-major (struct of arrays): the value of {@code cell} on board
+ * {@code board} is at {@code cell * stride + board}. A run of consecutive boards then has its
+ * values for one cell side by side, so {@link BatchValidator} checks a unit for a whole run of
+ * boards with one sequential pass per cell, one board per SIMD lane. The stride is the
+ * capacity rounded up to a multiple of 64. Instances are not thread-safe.
+ */
+public final class BoardBatch {
+
+    /** Number of cells in a board. */
+    public static final int CELLS = 81;
+
+    private final int capacity;
+    private final int stride;
+    private final byte[] cells;
+    private int size;
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param capacity maximum number of boards.
+     */
+    public BoardBatch(int capacity) {
+        if (capacity < 1 || capacity > (Integer.MAX_VALUE - 63) / CELLS) {
+            throw new IllegalArgumentException("capacity must be between 1 and " + (Integer.MAX_VALUE - 63) / CELLS);
+        }
+        this.capacity = capacity;
+        this.stride = (capacity + 63) & ~63;
+        this.cells = new byte[CELLS * stride];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of boards in the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every board. The storage is kept; stale values are overwritten by later adds.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Appends a board.
+     *
+     * @param board flat array of 81 cells in row-major order, 0 for empty cells.
+     * @return the board's index in the batch.
+     * @throws IllegalStateException if the batch is full.
+     */
+    public int add(byte[] board) {
+        if (size == capacity) {
+            throw new IllegalStateException("Batch is full");
+        }
+        int index = size;
+        set(index, board);
+        return index;
+    }
+
+    /**
+     * Replaces a board, or appends one if {@code index} equals {@link #size()}.
+     */
+    public void set(int index, byte[] board) {
+        if (index < 0 || index > size || index == capacity) {
+            throw new IndexOutOfBoundsException("Board index " + index + " out of range");
+        }
+        if (board.length != CELLS) {
+            throw new IllegalArgumentException("Boards must have " + CELLS + " cells");
+        }
+        for (int cell = 0, offset = index; cell < CELLS; cell++, offset += stride) {
+            cells[offset] = board[cell];
+        }
+        if (index == size) {
+            size++;
+        }
+    }
+
+    /**
+     * Copies a board out of the batch.
+     *
+     * @param index the board's index.
+     * @param out   receives the 81 cells in row-major order.
+     */
+    public void get(int index, byte[] out) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Board index " + index + " out of range");
+        }
+        for (int cell = 0, offset = index; cell < CELLS; cell++, offset += stride) {
+            out[cell] = cells[offset];
+        }
+    }
+
+    /**
+     * Solves every board in the batch, writing the solutions into {@code solutions} at the same
+     * indices. Boards without a solution are copied unchanged.
+     *
+     * @param solutions batch that receives the solutions; it is cleared first.
+     * @param solved    receives, for each board, whether it was solved.
+     * @return the number of boards solved.
+     */
+    public int solve(BoardBatch solutions, boolean[] solved) {
+        if (solutions.capacity < size || solved.length < size) {
+            throw new IllegalArgumentException("Output is smaller than the batch");
+        }
+        SolutionCounter counter = new SolutionCounter();
+        byte[] puzzle = new byte[CELLS];
+        byte[] solution = new byte[CELLS];
+        solutions.clear();
+        int count = 0;
+        for (int board = 0; board < size; board++) {
+            get(board, puzzle);
+            solved[board] = counter.solve(puzzle, solution);
+            solutions.add(solved[board] ? solution : puzzle);
+            if (solved[board]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int getStride() {
+        return stride;
+    }
+
+    /**
+     * The backing array, cell-major; see the class comment.
+     */
+    byte[] cells() {
+        return cells;
+    }
+}
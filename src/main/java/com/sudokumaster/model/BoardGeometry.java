@@ -0,0 +1,133 @@
+package com.sudokumaster.model;
+
+/**
+ * Shape of a Sudoku board with square boxes of {@code boxSize x boxSize} cells.
+ * <p>
+ * A board has {@code size = boxSize * boxSize} rows, columns, boxes and digits, so a 9x9 board
+ * has box size 3, 4x4 has 2, 16x16 has 4 and 25x25 has 5. Digits are kept in {@code int}
+ * bitmasks (bit {@code n - 1} set means digit {@code n}), which covers every supported size.
+ * Cells are numbered {@code row * size + col}. The lookup tables are built once per box size
+ * and shared; instances are immutable.
+ */
+public final class BoardGeometry {
+
+    public static final int MIN_BOX_SIZE = 2;
+    public static final int MAX_BOX_SIZE = 5;
+
+    private static final BoardGeometry[] CACHE = new BoardGeometry[MAX_BOX_SIZE + 1];
+
+    static {
+        for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            CACHE[boxSize] = new BoardGeometry(boxSize);
+        }
+    }
+
+    /** The classic 9x9 board. */
+    public static final BoardGeometry STANDARD = CACHE[3];
+
+    private final int boxSize;
+    private final int size;
+    private final int cellCount;
+    private final int allDigits;
+    private final int peerCount;
+    // Row, column and box index of every cell.
+    final int[] cellRow;
+    final int[] cellCol;
+    final int[] cellBox;
+    // Cells of every unit: rows 0..size-1, then columns, then boxes.
+    final int[][] units;
+    // Peers of every cell, peerCount entries per cell.
+    final int[] peers;
+
+    private BoardGeometry(int boxSize) {
+        this.boxSize = boxSize;
+        this.size = boxSize * boxSize;
+        this.cellCount = size * size;
+        this.allDigits = (1 << size) - 1;
+        this.peerCount = 3 * size - 2 * boxSize - 1;
+        cellRow = new int[cellCount];
+        cellCol = new int[cellCount];
+        cellBox = new int[cellCount];
+        units = new int[3 * size][size];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            int box = boxIndex(row, col);
+            cellRow[cell] = row;
+            cellCol[cell] = col;
+            cellBox[cell] = box;
+            units[row][col] = cell;
+            units[size + col][row] = cell;
+            units[2 * size + box][(row % boxSize) * boxSize + col % boxSize] = cell;
+        }
+        peers = new int[cellCount * peerCount];
+        int next = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            for (int other = 0; other < cellCount; other++) {
+                if (other != cell && (cellRow[other] == cellRow[cell] || cellCol[other] == cellCol[cell]
+                        || cellBox[other] == cellBox[cell])) {
+                    peers[next++] = other;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the geometry for boxes of {@code boxSize x boxSize} cells.
+     *
+     * @throws IllegalArgumentException if the box size is outside 2..5.
+     */
+    public static BoardGeometry of(int boxSize) {
+        if (boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Box size must be between " + MIN_BOX_SIZE + " and " + MAX_BOX_SIZE);
+        }
+        return CACHE[boxSize];
+    }
+
+    /**
+     * Returns the geometry for a board with {@code size} rows and columns.
+     *
+     * @throws IllegalArgumentException if {@code size} is not 4, 9, 16 or 25.
+     */
+    public static BoardGeometry forSize(int size) {
+        for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            if (boxSize * boxSize == size) {
+                return CACHE[boxSize];
+            }
+        }
+        throw new IllegalArgumentException("Unsupported board size " + size);
+    }
+
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    /**
+     * Returns the number of rows, columns, boxes and digits.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Returns the bitmask with one bit set for each digit.
+     */
+    public int getAllDigits() {
+        return allDigits;
+    }
+
+    /**
+     * Returns the number of peers (cells sharing a row, column or box) of every cell.
+     */
+    public int getPeerCount() {
+        return peerCount;
+    }
+
+    public int boxIndex(int row, int col) {
+        return (row / boxSize) * boxSize + col / boxSize;
+    }
+}
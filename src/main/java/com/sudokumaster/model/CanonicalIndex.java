@@ -0,0 +1,191 @@
+package com.sudokumaster.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Set of puzzle canonical forms (see {@link Canonicalizer}), for rejecting duplicates while
+ * puzzles are generated.
+ * <p>
+ * Each form is stored as a 128-bit fingerprint, two longs in an open-addressing table with
+ * linear probing. The table lives in one {@link ByteBuffer}, on the heap or, for packs of
+ * millions of puzzles, in direct memory outside the Java heap, where it costs the garbage
+ * collector nothing. It doubles when it is half full, and holds up to 2^25 (about 33 million)
+ * forms. With 128 bits, the chance that two different forms share a fingerprint is negligible
+ * (below 10^-20 for 33 million forms).
+ * <p>
+ * Methods are synchronized; callers canonicalize outside the lock, so workers only hold it
+ * for a few probes.
+ */
+public class CanonicalIndex {
+
+    private static final int CELLS = 81;
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_SLOTS = 1 << 10;
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final long SEED_HIGH = 0x243F6A8885A308D3L;
+    private static final long SEED_LOW = 0x13198A2E03707344L;
+
+    private final boolean offHeap;
+    private ByteBuffer table;
+    private int mask;
+    private long size;
+
+    /**
+     * Creates a small index on the heap.
+     */
+    public CanonicalIndex() {
+        this(0, false);
+    }
+
+    /**
+     * Creates an index sized for {@code expected} forms.
+     *
+     * @param expected number of forms the index should hold without growing.
+     * @param offHeap  true to keep the table in direct memory.
+     */
+    public CanonicalIndex(long expected, boolean offHeap) {
+        if (expected < 0 || expected > MAX_SLOTS / 2) {
+            throw new IllegalArgumentException("expected must be between 0 and " + MAX_SLOTS / 2);
+        }
+        this.offHeap = offHeap;
+        int slots = MIN_SLOTS;
+        while (slots < 2 * expected) {
+            slots <<= 1;
+        }
+        table = allocate(slots);
+        mask = slots - 1;
+    }
+
+    /**
+     * Adds a canonical form.
+     *
+     * @param form the 81 cells of a canonical form, as written by {@link Canonicalizer}.
+     * @return true if the form was new, false if it was already in the index.
+     */
+    public boolean add(byte[] form) {
+        return add(fingerprint(form, SEED_HIGH), fingerprint(form, SEED_LOW));
+    }
+
+    /**
+     * Returns true if the index holds a canonical form.
+     */
+    public boolean contains(byte[] form) {
+        return contains(fingerprint(form, SEED_HIGH), fingerprint(form, SEED_LOW));
+    }
+
+    /**
+     * Adds a 128-bit fingerprint.
+     *
+     * @return true if the fingerprint was new.
+     */
+    public synchronized boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            // All zeros marks an empty slot.
+            low = 1;
+        }
+        int slot = find(high, low);
+        if (table.getLong(slot * SLOT_BYTES) != 0 || table.getLong(slot * SLOT_BYTES + 8) != 0) {
+            return false;
+        }
+        if (size + 1 > (mask + 1L) / 2) {
+            grow();
+            slot = find(high, low);
+        }
+        table.putLong(slot * SLOT_BYTES, high);
+        table.putLong(slot * SLOT_BYTES + 8, low);
+        size++;
+        return true;
+    }
+
+    /**
+     * Returns true if the index holds a 128-bit fingerprint.
+     */
+    public synchronized boolean contains(long high, long low) {
+        if (high == 0 && low == 0) {
+            low = 1;
+        }
+        int slot = find(high, low);
+        return table.getLong(slot * SLOT_BYTES) != 0 || table.getLong(slot * SLOT_BYTES + 8) != 0;
+    }
+
+    /**
+     * Returns the number of forms in the index.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the slot holding a fingerprint, or the empty slot where it would go.
+     */
+    private int find(long high, long low) {
+        int slot = (int) high & mask;
+        while (true) {
+            long h = table.getLong(slot * SLOT_BYTES);
+            long l = table.getLong(slot * SLOT_BYTES + 8);
+            if (h == high && l == low || h == 0 && l == 0) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        int slots = mask + 1;
+        if (slots >= MAX_SLOTS) {
+            throw new IllegalStateException("Canonical index is full");
+        }
+        ByteBuffer old = table;
+        table = allocate(slots * 2);
+        mask = slots * 2 - 1;
+        for (int slot = 0; slot < slots; slot++) {
+            long high = old.getLong(slot * SLOT_BYTES);
+            long low = old.getLong(slot * SLOT_BYTES + 8);
+            if (high != 0 || low != 0) {
+                int target = find(high, low);
+                table.putLong(target * SLOT_BYTES, high);
+                table.putLong(target * SLOT_BYTES + 8, low);
+            }
+        }
+    }
+
+    private ByteBuffer allocate(int slots) {
+        ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect(slots * SLOT_BYTES) : ByteBuffer.allocate(slots * SLOT_BYTES);
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Hashes the 81 cells, packed 16 to a long, into 64 bits.
+     */
+    static long fingerprint(byte[] form, long seed) {
+        if (form.length != CELLS) {
+            throw new IllegalArgumentException("Forms must have " + CELLS + " cells");
+        }
+        long hash = seed;
+        for (int start = 0; start < CELLS; start += 16) {
+            long word = 0;
+            for (int cell = start; cell < Math.min(start + 16, CELLS); cell++) {
+                word = (word << 4) | (form[cell] & 0xF);
+            }
+            hash = mix(hash ^ word);
+        }
+        return mix(hash ^ CELLS);
+    }
+
+    /**
+     * The 64-bit finalizer of MurmurHash3.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,391 @@
+package com.sudokumaster.model;
+
+/**
+ * Computes the canonical form of a 9x9 puzzle: the lexicographically smallest grid that can be
+ * reached with the validity-preserving symmetries of Sudoku. These are transposition, band and
+ * stack permutations, row permutations within a band, column permutations within a stack and
+ * digit relabeling. Two puzzles have the same canonical form exactly when one is a transformed
+ * copy of the other.
+ * <p>
+ * Cells are compared in row-major order with empty cells (0) smallest. For a fixed arrangement
+ * of rows and columns, the smallest relabeling numbers digits in order of first appearance, so
+ * only the row and column arrangements are searched:
+ * <ol>
+ * <li>The first row must have the smallest possible pattern of empty cells. That pattern depends
+ * only on how many givens each stack holds, so rows that cannot reach it are skipped.</li>
+ * <li>For each remaining first row, only the column orders that produce that pattern are tried:
+ * stacks by ascending given count and, within a stack, empty columns first. The order of the
+ * filled columns fixes the labels of the first row's digits and is enumerated up front.</li>
+ * <li>The empty columns of the first row are placed cell by cell while the second row is
+ * built, following only the columns that give the smallest next cell.</li>
+ * <li>The remaining rows are placed one at a time. Only candidate rows that give the smallest
+ * relabeled row are followed.</li>
+ * </ol>
+ * Every branch is dropped as soon as it falls behind the best grid found so far. A relabeled
+ * row is packed into a long, 4 bits per cell with the first cell highest, so rows compare as
+ * numbers; the digit labels are packed the same way. Full grids, whose first row leaves every
+ * column order open, take far longer than puzzles.
+ * <p>
+ * All working state is preallocated, so an instance can canonicalize any number of puzzles
+ * without allocating. Instances are not thread-safe.
+ */
+public class Canonicalizer {
+
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    // Candidate rows at one position: all 6 rows of the two free bands at most.
+    private static final int MAX_CANDIDATES = 6;
+
+    // All permutations of 0..n-1, for n = 0..3.
+    private static final byte[][][] PERMUTATIONS = {
+            {{}},
+            {{0}},
+            {{0, 1}, {1, 0}},
+            {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}}
+    };
+
+    // The puzzle as given (0) and transposed (1).
+    private final byte[][] grids = new byte[2][CELLS];
+    private byte[] grid;
+    // Packed rows of the grid being built and of the best grid so far.
+    private final long[] current = new long[SIZE];
+    private final long[] best = new long[SIZE];
+    private boolean found;
+
+    // Output column -> input column.
+    private final int[] colMap = new int[SIZE];
+    private final int[] stackOrder = new int[3];
+    // Empty and filled columns of every stack in the first row.
+    private final int[][] stackEmpty = new int[3][3];
+    private final int[][] stackFilled = new int[3][3];
+    private final int[] emptyCount = new int[3];
+    // Empty columns of every stack already placed, one bit per entry of stackEmpty.
+    private final int[] emptyUsed = new int[3];
+
+    private int topRow;
+    private int secondRow;
+    private final boolean[] usedRow = new boolean[SIZE];
+    private final boolean[] usedBand = new boolean[3];
+    // Input band placed at each output band.
+    private final int[] bandAt = new int[3];
+
+    // Candidate rows at each output row, with their packed relabeled cells and resulting labels.
+    private final int[][] candidates = new int[SIZE][MAX_CANDIDATES];
+    private final long[][] candidateRows = new long[SIZE][MAX_CANDIDATES];
+    private final long[][] candidateLabels = new long[SIZE][MAX_CANDIDATES];
+    private final int[][] candidateNext = new int[SIZE][MAX_CANDIDATES];
+
+    /**
+     * Writes the canonical form of a puzzle.
+     *
+     * @param puzzle flat array of 81 cells in row-major order, 0 for empty cells. Not modified.
+     * @param out    receives the 81 cells of the canonical form; may be {@code puzzle} itself.
+     */
+    public void canonicalize(byte[] puzzle, byte[] out) {
+        if (puzzle.length != CELLS || out.length != CELLS) {
+            throw new IllegalArgumentException("Puzzles must have " + CELLS + " cells");
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            int value = puzzle[cell];
+            if (value < 0 || value > SIZE) {
+                throw new IllegalArgumentException("Invalid cell value " + value);
+            }
+            grids[0][cell] = (byte) value;
+            grids[1][(cell % SIZE) * SIZE + cell / SIZE] = (byte) value;
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (byte[] g : grids) {
+            for (int row = 0; row < SIZE; row++) {
+                smallest = Math.min(smallest, firstRowPattern(g, row));
+            }
+        }
+        found = false;
+        for (byte[] g : grids) {
+            grid = g;
+            for (int row = 0; row < SIZE; row++) {
+                if (firstRowPattern(g, row) == smallest) {
+                    searchColumns(row);
+                }
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            out[cell] = (byte) ((best[cell / SIZE] >>> (4 * (SIZE - 1 - cell % SIZE))) & 0xF);
+        }
+    }
+
+    /**
+     * Returns the smallest pattern of filled cells (one bit per cell, first cell highest) that
+     * a row can show after column permutations. Stacks with fewer givens go first, with their
+     * givens at the end of the stack.
+     */
+    private static int firstRowPattern(byte[] g, int row) {
+        int a = stackFilledCount(g, row, 0);
+        int b = stackFilledCount(g, row, 1);
+        int c = stackFilledCount(g, row, 2);
+        int low = Math.min(a, Math.min(b, c));
+        int high = Math.max(a, Math.max(b, c));
+        int middle = a + b + c - low - high;
+        return (((1 << low) - 1) << 6) | (((1 << middle) - 1) << 3) | ((1 << high) - 1);
+    }
+
+    private static int stackFilledCount(byte[] g, int row, int stack) {
+        int base = row * SIZE + stack * 3;
+        return (g[base] != 0 ? 1 : 0) + (g[base + 1] != 0 ? 1 : 0) + (g[base + 2] != 0 ? 1 : 0);
+    }
+
+    /**
+     * Tries every column order that gives {@code row} the smallest pattern when it is placed first.
+     */
+    private void searchColumns(int row) {
+        for (int stack = 0; stack < 3; stack++) {
+            int empty = 0;
+            int filled = 0;
+            for (int col = stack * 3; col < stack * 3 + 3; col++) {
+                if (grid[row * SIZE + col] == 0) {
+                    stackEmpty[stack][empty++] = col;
+                } else {
+                    stackFilled[stack][filled++] = col;
+                }
+            }
+            emptyCount[stack] = empty;
+        }
+        topRow = row;
+        usedRow[row] = true;
+        usedBand[row / 3] = true;
+        bandAt[0] = row / 3;
+        for (byte[] order : PERMUTATIONS[3]) {
+            // Stacks with more empty cells in the first row go first.
+            if (emptyCount[order[0]] >= emptyCount[order[1]] && emptyCount[order[1]] >= emptyCount[order[2]]) {
+                for (int i = 0; i < 3; i++) {
+                    stackOrder[i] = order[i];
+                }
+                searchStackColumns(0);
+            }
+        }
+        usedRow[row] = false;
+        usedBand[row / 3] = false;
+    }
+
+    /**
+     * Orders the filled columns inside output stack {@code position} and the stacks after it,
+     * then labels the first row and searches the second row for each order.
+     */
+    private void searchStackColumns(int position) {
+        if (position == 3) {
+            searchFirstRows();
+            return;
+        }
+        int stack = stackOrder[position];
+        int empty = emptyCount[stack];
+        int base = position * 3;
+        for (byte[] filledOrder : PERMUTATIONS[3 - empty]) {
+            for (int i = 0; i < 3 - empty; i++) {
+                colMap[base + empty + i] = stackFilled[stack][filledOrder[i]];
+            }
+            searchStackColumns(position + 1);
+        }
+    }
+
+    /**
+     * Writes the first row, whose empty cells come first in every stack, and tries each
+     * remaining row of its band as the second row.
+     */
+    private void searchFirstRows() {
+        long map = 0;
+        int next = 1;
+        long row = 0;
+        for (int position = 0; position < SIZE; position++) {
+            int value = 0;
+            if (position % 3 >= emptyCount[stackOrder[position / 3]]) {
+                int digit = grid[topRow * SIZE + colMap[position]];
+                value = label(digit, map, next);
+                if (value == next) {
+                    map |= (long) next++ << (4 * digit);
+                }
+            }
+            row = (row << 4) | value;
+        }
+        current[0] = row;
+        for (int second = bandAt[0] * 3; second < bandAt[0] * 3 + 3; second++) {
+            if (!usedRow[second]) {
+                secondRow = second;
+                usedRow[second] = true;
+                searchSecondRow(0, 0, map, next);
+                usedRow[second] = false;
+            }
+        }
+    }
+
+    /**
+     * Fills cell {@code position} of the second row, whose earlier cells are packed in
+     * {@code row}. Filled columns of the first row are already placed; for an empty one, every
+     * unused empty column of the stack that gives the smallest cell is tried.
+     */
+    private void searchSecondRow(int position, long row, long map, int next) {
+        if (position == SIZE) {
+            current[1] = row;
+            searchRows(2, map, next);
+            return;
+        }
+        int bound = SIZE;
+        // The first rows of all branches are equal, so only the second row is compared.
+        if (found) {
+            long bestPrefix = best[1] >>> (4 * (SIZE - position));
+            if (row > bestPrefix) {
+                return;
+            }
+            if (row == bestPrefix) {
+                bound = (int) (best[1] >>> (4 * (SIZE - 1 - position))) & 0xF;
+            }
+        }
+        int base = secondRow * SIZE;
+        int stack = stackOrder[position / 3];
+        if (position % 3 >= emptyCount[stack]) {
+            int digit = grid[base + colMap[position]];
+            int value = label(digit, map, next);
+            if (value <= bound) {
+                placeSecond(position, row, map, next, digit, value);
+            }
+            return;
+        }
+        int smallest = SIZE + 1;
+        for (int i = 0; i < emptyCount[stack]; i++) {
+            if ((emptyUsed[stack] & (1 << i)) == 0) {
+                smallest = Math.min(smallest, label(grid[base + stackEmpty[stack][i]], map, next));
+            }
+        }
+        if (smallest > bound) {
+            return;
+        }
+        for (int i = 0; i < emptyCount[stack]; i++) {
+            int col = stackEmpty[stack][i];
+            int digit = grid[base + col];
+            if ((emptyUsed[stack] & (1 << i)) == 0 && label(digit, map, next) == smallest) {
+                emptyUsed[stack] |= 1 << i;
+                colMap[position] = col;
+                placeSecond(position, row, map, next, digit, smallest);
+                emptyUsed[stack] &= ~(1 << i);
+            }
+        }
+    }
+
+    private void placeSecond(int position, long row, long map, int next, int digit, int value) {
+        if (value == next) {
+            map |= (long) next++ << (4 * digit);
+        }
+        searchSecondRow(position + 1, (row << 4) | value, map, next);
+    }
+
+    /**
+     * Returns the label a digit gets from {@code map}: its current label, or {@code next} if it is new.
+     */
+    private static int label(int digit, long map, int next) {
+        if (digit == 0) {
+            return 0;
+        }
+        int label = (int) (map >>> (4 * digit)) & 0xF;
+        return label != 0 ? label : next;
+    }
+
+    /**
+     * Chooses the input row placed at output row {@code level} (2 or later), following only the
+     * candidates that give the smallest relabeled row.
+     */
+    private void searchRows(int level, long map, int next) {
+        if (level == SIZE) {
+            if (!found || compareRows(SIZE) < 0) {
+                System.arraycopy(current, 0, best, 0, SIZE);
+                found = true;
+            }
+            return;
+        }
+        int count = collectCandidates(level);
+        long smallest = Long.MAX_VALUE;
+        for (int k = 0; k < count; k++) {
+            smallest = Math.min(smallest, relabel(level, k, map, next));
+        }
+        if (found) {
+            int prefix = compareRows(level);
+            if (prefix > 0 || prefix == 0 && smallest > best[level]) {
+                return;
+            }
+        }
+        for (int k = 0; k < count; k++) {
+            if (candidateRows[level][k] != smallest) {
+                continue;
+            }
+            int input = candidates[level][k];
+            boolean bandStart = level % 3 == 0;
+            current[level] = smallest;
+            usedRow[input] = true;
+            if (bandStart) {
+                usedBand[input / 3] = true;
+                bandAt[level / 3] = input / 3;
+            }
+            searchRows(level + 1, candidateLabels[level][k], candidateNext[level][k]);
+            usedRow[input] = false;
+            if (bandStart) {
+                usedBand[input / 3] = false;
+            }
+        }
+    }
+
+    /**
+     * Compares the first {@code rows} rows of the current grid with the best grid.
+     */
+    private int compareRows(int rows) {
+        for (int row = 0; row < rows; row++) {
+            if (current[row] != best[row]) {
+                return current[row] < best[row] ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Lists the input rows that may be placed at output row {@code level}: any row of an unused
+     * band at the start of a band, or an unused row of the current band.
+     */
+    private int collectCandidates(int level) {
+        int[] list = candidates[level];
+        int count = 0;
+        if (level % 3 == 0) {
+            for (int band = 0; band < 3; band++) {
+                if (!usedBand[band]) {
+                    for (int row = band * 3; row < band * 3 + 3; row++) {
+                        list[count++] = row;
+                    }
+                }
+            }
+        } else {
+            int band = bandAt[level / 3];
+            for (int row = band * 3; row < band * 3 + 3; row++) {
+                if (!usedRow[row]) {
+                    list[count++] = row;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Relabels candidate {@code k} at output row {@code level} under the current column order,
+     * numbering digits that have not appeared yet in order of appearance, and returns the packed row.
+     */
+    private long relabel(int level, int k, long map, int next) {
+        int base = candidates[level][k] * SIZE;
+        long row = 0;
+        for (int col = 0; col < SIZE; col++) {
+            int digit = grid[base + colMap[col]];
+            int value = label(digit, map, next);
+            if (value == next) {
+                map |= (long) next++ << (4 * digit);
+            }
+            row = (row << 4) | value;
+        }
+        candidateRows[level][k] = row;
+        candidateLabels[level][k] = map;
+        candidateNext[level][k] = next;
+        return row;
+    }
+}
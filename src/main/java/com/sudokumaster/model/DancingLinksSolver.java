@@ -0,0 +1,280 @@
+package com.sudokumaster.model;
+
+/**
+ * Exact-cover Sudoku solver based on Knuth's Dancing Links (Algorithm X).
+ * <p>
+ * A 9x9 Sudoku is the exact-cover problem with 324 constraint columns (cell, row-digit,
+ * column-digit and box-digit) and 729 candidate rows (one per cell and digit). The full
+ * linked matrix is built once when the solver is created. Each solve selects the rows of the
+ * givens, runs the search and then undoes every cover in reverse order, so the matrix is back
+ * in its pristine state afterwards and solving never allocates. Column choice always takes the
+ * constraint with the fewest remaining rows, which keeps the search small on sparse puzzles.
+ * Instances are not thread-safe.
+ */
+public class DancingLinksSolver {
+
+    /**
+     * Receives solutions during enumeration.
+     */
+    @FunctionalInterface
+    public interface SolutionVisitor {
+        /**
+         * Called for each solution found.
+         *
+         * @param solution flat array of 81 cells. The array is reused; copy it to keep it.
+         * @return true to continue the enumeration, false to stop.
+         */
+        boolean visit(byte[] solution);
+    }
+
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int COLUMNS = 4 * CELLS;
+    private static final int ROWS = CELLS * SIZE;
+    private static final int ROOT = 0;
+    // Node 0 is the root, nodes 1..COLUMNS are column headers, then four nodes per candidate row.
+    private static final int NODES = 1 + COLUMNS + ROWS * 4;
+
+    private final int[] left = new int[NODES];
+    private final int[] right = new int[NODES];
+    private final int[] up = new int[NODES];
+    private final int[] down = new int[NODES];
+    private final int[] column = new int[NODES];
+    private final int[] rowOf = new int[NODES];
+    private final int[] columnSize = new int[COLUMNS + 1];
+    // First node of every candidate row.
+    private final int[] rowStart = new int[ROWS];
+
+    // Search state.
+    private final int[] chosen = new int[CELLS];
+    private final int[] givenRows = new int[CELLS];
+    private final byte[] solution = new byte[CELLS];
+    private long limit;
+    private long solutions;
+    private SolutionVisitor visitor;
+    private byte[] solutionOut;
+
+    public DancingLinksSolver() {
+        buildMatrix();
+    }
+
+    /**
+     * Counts the solutions of a puzzle, stopping once {@code limit} solutions have been found.
+     *
+     * @param puzzle flat array of 81 cells in row-major order, 0 for empty cells. Not modified.
+     * @param limit  maximum number of solutions to look for.
+     * @return the number of solutions found, at most {@code limit}; 0 if the givens conflict.
+     */
+    public int countSolutions(byte[] puzzle, int limit) {
+        return (int) run(puzzle, limit, null, null);
+    }
+
+    /**
+     * Solves a puzzle, writing the first solution found into {@code solution}.
+     *
+     * @param puzzle   flat array of 81 cells, 0 for empty cells. Not modified.
+     * @param solution destination array of 81 cells.
+     * @return true if a solution was found.
+     */
+    public boolean solve(byte[] puzzle, byte[] solution) {
+        return run(puzzle, 1, null, solution) == 1;
+    }
+
+    /**
+     * Enumerates the solutions of a puzzle.
+     *
+     * @param puzzle  flat array of 81 cells, 0 for empty cells. Not modified.
+     * @param limit   maximum number of solutions to visit.
+     * @param visitor receives each solution; may stop the enumeration early.
+     * @return the number of solutions visited.
+     */
+    public long enumerate(byte[] puzzle, long limit, SolutionVisitor visitor) {
+        return run(puzzle, limit, visitor, null);
+    }
+
+    private long run(byte[] puzzle, long limit, SolutionVisitor visitor, byte[] solutionOut) {
+        this.limit = limit;
+        this.solutions = 0;
+        this.visitor = visitor;
+        this.solutionOut = solutionOut;
+
+        // Select the rows of the givens; a given whose constraints are already covered conflicts.
+        int givens = 0;
+        boolean consistent = true;
+        for (int cell = 0; cell < CELLS && consistent; cell++) {
+            int value = puzzle[cell];
+            solution[cell] = (byte) value;
+            if (value == 0) {
+                continue;
+            }
+            int node = rowStart[cell * SIZE + value - 1];
+            if (!selectRow(node)) {
+                consistent = false;
+                break;
+            }
+            givenRows[givens++] = node;
+        }
+        if (consistent && limit > 0) {
+            search(0);
+        }
+        // Restore the pristine matrix.
+        for (int i = givens - 1; i >= 0; i--) {
+            deselectRow(givenRows[i]);
+        }
+        this.visitor = null;
+        this.solutionOut = null;
+        return solutions;
+    }
+
+    /**
+     * Algorithm X on the remaining columns.
+     *
+     * @return true when the search should stop.
+     */
+    private boolean search(int depth) {
+        if (right[ROOT] == ROOT) {
+            return record(depth);
+        }
+        // Choose the column with the fewest remaining rows.
+        int best = right[ROOT];
+        int bestSize = columnSize[best];
+        for (int c = right[best]; c != ROOT && bestSize > 1; c = right[c]) {
+            if (columnSize[c] < bestSize) {
+                best = c;
+                bestSize = columnSize[c];
+            }
+        }
+        if (bestSize == 0) {
+            return false;
+        }
+
+        cover(best);
+        boolean stop = false;
+        for (int r = down[best]; r != best && !stop; r = down[r]) {
+            chosen[depth] = r;
+            for (int j = right[r]; j != r; j = right[j]) {
+                cover(column[j]);
+            }
+            stop = search(depth + 1);
+            for (int j = left[r]; j != r; j = left[j]) {
+                uncover(column[j]);
+            }
+        }
+        uncover(best);
+        return stop;
+    }
+
+    private boolean record(int depth) {
+        for (int i = 0; i < depth; i++) {
+            int row = rowOf[chosen[i]];
+            solution[row / SIZE] = (byte) (row % SIZE + 1);
+        }
+        if (solutions == 0 && solutionOut != null) {
+            System.arraycopy(solution, 0, solutionOut, 0, CELLS);
+        }
+        solutions++;
+        boolean keepGoing = visitor == null || visitor.visit(solution);
+        return !keepGoing || solutions >= limit;
+    }
+
+    /**
+     * Covers all columns of a row, as if the row were chosen.
+     *
+     * @return false (with nothing covered) if one of its columns is already covered.
+     */
+    private boolean selectRow(int node) {
+        int j = node;
+        do {
+            int c = column[j];
+            // A covered column is unlinked from the header list.
+            if (right[left[c]] != c) {
+                return false;
+            }
+            j = right[j];
+        } while (j != node);
+        j = node;
+        do {
+            cover(column[j]);
+            j = right[j];
+        } while (j != node);
+        return true;
+    }
+
+    private void deselectRow(int node) {
+        int j = left[node];
+        while (true) {
+            uncover(column[j]);
+            if (j == node) {
+                break;
+            }
+            j = left[j];
+        }
+    }
+
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                columnSize[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                columnSize[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+
+    private void buildMatrix() {
+        // Header list: root plus one header per column.
+        for (int c = 0; c <= COLUMNS; c++) {
+            left[c] = c == 0 ? COLUMNS : c - 1;
+            right[c] = c == COLUMNS ? 0 : c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+        }
+        int next = COLUMNS + 1;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            int box = (row / 3) * 3 + col / 3;
+            for (int d = 0; d < SIZE; d++) {
+                int candidateRow = cell * SIZE + d;
+                int first = next;
+                rowStart[candidateRow] = first;
+                int[] columns = {
+                        1 + cell,
+                        1 + CELLS + row * SIZE + d,
+                        1 + 2 * CELLS + col * SIZE + d,
+                        1 + 3 * CELLS + box * SIZE + d
+                };
+                for (int k = 0; k < 4; k++) {
+                    int node = next++;
+                    int c = columns[k];
+                    column[node] = c;
+                    rowOf[node] = candidateRow;
+                    // Append to the bottom of the column.
+                    up[node] = up[c];
+                    down[node] = c;
+                    down[up[c]] = node;
+                    up[c] = node;
+                    columnSize[c]++;
+                    // Link into the circular row list.
+                    left[node] = k == 0 ? first + 3 : node - 1;
+                    right[node] = k == 3 ? first : node + 1;
+                }
+            }
+        }
+    }
+}
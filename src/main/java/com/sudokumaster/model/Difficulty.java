@@ -2,9 +2,47 @@ package com.sudokumaster.model;
 
 /**
  * Enum representing the difficulty levels for the Sudoku puzzle.
+ * Each level covers a range of {@link DifficultyRater} ratings:
+ * EASY needs only singles, MEDIUM needs locked candidates or subsets,
+ * and HARD needs fish, chains or guessing.
  */
 public enum Difficulty {
-    EASY,
-    MEDIUM,
-    HARD
+    EASY(0, Technique.NAKED_SINGLE.getScore()),
+    MEDIUM(Technique.NAKED_SINGLE.getScore() + 1, Technique.HIDDEN_TRIPLE.getScore()),
+    HARD(Technique.HIDDEN_TRIPLE.getScore() + 1, Integer.MAX_VALUE);
+
+    private final int minRating;
+    private final int maxRating;
+
+    Difficulty(int minRating, int maxRating) {
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+    }
+
+    public int getMinRating() {
+        return minRating;
+    }
+
+    public int getMaxRating() {
+        return maxRating;
+    }
+
+    /**
+     * Returns true if a rating falls into this level's range.
+     */
+    public boolean contains(int rating) {
+        return rating >= minRating && rating <= maxRating;
+    }
+
+    /**
+     * Returns the level whose rating range contains {@code rating}.
+     */
+    public static Difficulty forRating(int rating) {
+        for (Difficulty difficulty : values()) {
+            if (difficulty.contains(rating)) {
+                return difficulty;
+            }
+        }
+        return EASY;
+    }
 }
@@ -0,0 +1,684 @@
+package com.sudokumaster.model;
+
+/**
+ * Rates 9x9 puzzles by solving them the way a person would.
+ * <p>
+ * The rater keeps a candidate bitmask for every cell and repeatedly applies the cheapest
+ * {@link Technique} that makes progress, restarting from the cheapest one after every step.
+ * The rating is the score of the hardest technique that was needed; when nothing applies
+ * the puzzle is rated {@link Technique#TRIAL_AND_ERROR}. All state lives in preallocated
+ * arrays, so rating does not allocate beyond the returned {@link Rating}. Instances are not
+ * thread-safe; use one per thread.
+ */
+public class DifficultyRater {
+
+    static final int SIZE = 9;
+    static final int CELLS = SIZE * SIZE;
+    static final int ALL_DIGITS = 0x1FF;
+    static final int UNIT_COUNT = 27;
+
+    // Units 0-8 are rows, 9-17 columns, 18-26 boxes.
+    static final int[][] UNITS = new int[UNIT_COUNT][SIZE];
+    static final int[] CELL_ROW = new int[CELLS];
+    static final int[] CELL_COL = new int[CELLS];
+    static final int[] CELL_BOX = new int[CELLS];
+    static final int[][] PEERS = new int[CELLS][20];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            int box = (row / 3) * 3 + col / 3;
+            CELL_ROW[cell] = row;
+            CELL_COL[cell] = col;
+            CELL_BOX[cell] = box;
+            UNITS[row][col] = cell;
+            UNITS[SIZE + col][row] = cell;
+            UNITS[2 * SIZE + box][(row % 3) * 3 + col % 3] = cell;
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            int next = 0;
+            for (int other = 0; other < CELLS; other++) {
+                if (other != cell && sees(cell, other)) {
+                    PEERS[cell][next++] = other;
+                }
+            }
+        }
+    }
+
+    final byte[] values = new byte[CELLS];
+    final int[] candidates = new int[CELLS];
+    private int remaining;
+    private boolean contradiction;
+    // When set, a step stops after the first application of its technique (used for hints).
+    boolean singleStep;
+    // Scratch space for subset, fish and colouring searches.
+    private final int[] scratchCells = new int[SIZE];
+    private final int[] scratchMasks = new int[SIZE];
+    private final int[] colors = new int[CELLS];
+    private final int[] queue = new int[CELLS];
+
+    /**
+     * Rates a puzzle.
+     *
+     * @param puzzle flat array of 81 cells in row-major order, 0 for empty cells. Not modified.
+     * @return the rating; {@link Rating#valid()} is false if the givens conflict.
+     */
+    public Rating rate(byte[] puzzle) {
+        if (!load(puzzle)) {
+            return new Rating(0, null, 0, false);
+        }
+        Technique hardest = Technique.HIDDEN_SINGLE;
+        int steps = 0;
+        while (remaining > 0 && !contradiction) {
+            Technique applied = step();
+            if (applied == null) {
+                hardest = Technique.TRIAL_AND_ERROR;
+                break;
+            }
+            steps++;
+            if (applied.ordinal() > hardest.ordinal()) {
+                hardest = applied;
+            }
+        }
+        if (contradiction) {
+            return new Rating(0, null, steps, false);
+        }
+        return new Rating(hardest.getScore(), hardest, steps, true);
+    }
+
+    /**
+     * Rates a puzzle stored as a 9x9 board.
+     */
+    public Rating rate(int[][] board) {
+        byte[] puzzle = new byte[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            puzzle[cell] = (byte) board[cell / SIZE][cell % SIZE];
+        }
+        return rate(puzzle);
+    }
+
+    /**
+     * Applies the cheapest technique that makes progress.
+     *
+     * @return the technique applied, or null if none applies.
+     */
+    Technique step() {
+        if (hiddenSingles()) {
+            return Technique.HIDDEN_SINGLE;
+        }
+        if (nakedSingles()) {
+            return Technique.NAKED_SINGLE;
+        }
+        if (lockedCandidates()) {
+            return Technique.LOCKED_CANDIDATES;
+        }
+        if (nakedSubsets(2)) {
+            return Technique.NAKED_PAIR;
+        }
+        if (hiddenSubsets(2)) {
+            return Technique.HIDDEN_PAIR;
+        }
+        if (nakedSubsets(3)) {
+            return Technique.NAKED_TRIPLE;
+        }
+        if (hiddenSubsets(3)) {
+            return Technique.HIDDEN_TRIPLE;
+        }
+        if (fish(2)) {
+            return Technique.X_WING;
+        }
+        if (fish(3)) {
+            return Technique.SWORDFISH;
+        }
+        if (xyWing()) {
+            return Technique.XY_WING;
+        }
+        if (simpleColoring()) {
+            return Technique.SIMPLE_COLORING;
+        }
+        return null;
+    }
+
+    /**
+     * Loads the givens and computes the initial candidates.
+     *
+     * @return false if two givens conflict.
+     */
+    boolean load(byte[] puzzle) {
+        contradiction = false;
+        remaining = CELLS;
+        for (int cell = 0; cell < CELLS; cell++) {
+            values[cell] = 0;
+            candidates[cell] = ALL_DIGITS;
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            int value = puzzle[cell];
+            if (value != 0) {
+                if ((candidates[cell] & (1 << (value - 1))) == 0) {
+                    return false;
+                }
+                assign(cell, value);
+            }
+        }
+        return !contradiction;
+    }
+
+    /**
+     * Narrows the loaded candidates to {@code masks} (indexed like the puzzle), e.g. to account
+     * for eliminations already made on a board.
+     */
+    void restrict(int[] masks) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (values[cell] == 0) {
+                candidates[cell] &= masks[cell];
+            }
+        }
+    }
+
+    boolean isSolved() {
+        return remaining == 0 && !contradiction;
+    }
+
+    boolean hasContradiction() {
+        return contradiction;
+    }
+
+    /**
+     * Places a digit and removes it from the candidates of every peer.
+     */
+    private void assign(int cell, int digit) {
+        int bit = 1 << (digit - 1);
+        values[cell] = (byte) digit;
+        candidates[cell] = 0;
+        remaining--;
+        for (int peer : PEERS[cell]) {
+            if (values[peer] == 0 && (candidates[peer] & bit) != 0) {
+                candidates[peer] &= ~bit;
+                if (candidates[peer] == 0) {
+                    contradiction = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes digits from a cell's candidates.
+     *
+     * @return true if anything was removed.
+     */
+    private boolean eliminate(int cell, int digits) {
+        if (values[cell] != 0 || (candidates[cell] & digits) == 0) {
+            return false;
+        }
+        candidates[cell] &= ~digits;
+        if (candidates[cell] == 0) {
+            contradiction = true;
+        }
+        return true;
+    }
+
+    private boolean hiddenSingles() {
+        boolean progress = false;
+        for (int[] unit : UNITS) {
+            int once = 0;
+            int twice = 0;
+            int placed = 0;
+            for (int cell : unit) {
+                int c = candidates[cell];
+                twice |= once & c;
+                once |= c;
+                if (values[cell] != 0) {
+                    placed |= 1 << (values[cell] - 1);
+                }
+            }
+            if ((once | placed) != ALL_DIGITS) {
+                contradiction = true; // Some digit has nowhere to go.
+                return true;
+            }
+            int singles = once & ~twice;
+            while (singles != 0) {
+                int bit = singles & -singles;
+                singles ^= bit;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        assign(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                        if (singleStep) {
+                            return true;
+                        }
+                        progress = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean nakedSingles() {
+        boolean progress = false;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int c = candidates[cell];
+            if (values[cell] == 0 && c != 0 && (c & (c - 1)) == 0) {
+                assign(cell, Integer.numberOfTrailingZeros(c) + 1);
+                if (singleStep) {
+                    return true;
+                }
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Pointing (a box's candidates for a digit lie on one line) and claiming
+     * (a line's candidates for a digit lie in one box).
+     */
+    private boolean lockedCandidates() {
+        boolean progress = false;
+        for (int box = 0; box < SIZE; box++) {
+            int[] unit = UNITS[2 * SIZE + box];
+            for (int bit = 1; bit < ALL_DIGITS; bit <<= 1) {
+                int rows = 0;
+                int cols = 0;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        rows |= 1 << CELL_ROW[cell];
+                        cols |= 1 << CELL_COL[cell];
+                    }
+                }
+                if (rows != 0 && (rows & (rows - 1)) == 0) {
+                    progress |= eliminateOutside(UNITS[Integer.numberOfTrailingZeros(rows)], 2 * SIZE + box, bit);
+                }
+                if (cols != 0 && (cols & (cols - 1)) == 0) {
+                    progress |= eliminateOutside(UNITS[SIZE + Integer.numberOfTrailingZeros(cols)], 2 * SIZE + box, bit);
+                }
+                if (progress && singleStep) {
+                    return true;
+                }
+            }
+            if (progress) {
+                return true;
+            }
+        }
+        for (int line = 0; line < 2 * SIZE; line++) {
+            for (int bit = 1; bit < ALL_DIGITS; bit <<= 1) {
+                int boxes = 0;
+                for (int cell : UNITS[line]) {
+                    if ((candidates[cell] & bit) != 0) {
+                        boxes |= 1 << CELL_BOX[cell];
+                    }
+                }
+                if (boxes != 0 && (boxes & (boxes - 1)) == 0) {
+                    progress |= eliminateOutside(UNITS[2 * SIZE + Integer.numberOfTrailingZeros(boxes)], line, bit);
+                }
+                if (progress && singleStep) {
+                    return true;
+                }
+            }
+            if (progress) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Eliminates digits from the cells of {@code unit} that are not in unit {@code keep}.
+     */
+    private boolean eliminateOutside(int[] unit, int keep, int digits) {
+        boolean progress = false;
+        for (int cell : unit) {
+            if (!inUnit(cell, keep)) {
+                progress |= eliminate(cell, digits);
+            }
+        }
+        return progress;
+    }
+
+    private static boolean inUnit(int cell, int unit) {
+        if (unit < SIZE) {
+            return CELL_ROW[cell] == unit;
+        }
+        if (unit < 2 * SIZE) {
+            return CELL_COL[cell] == unit - SIZE;
+        }
+        return CELL_BOX[cell] == unit - 2 * SIZE;
+    }
+
+    /**
+     * Naked pairs/triples: {@code size} cells of a unit whose candidates together
+     * contain only {@code size} digits.
+     */
+    private boolean nakedSubsets(int size) {
+        for (int[] unit : UNITS) {
+            int n = 0;
+            for (int i = 0; i < SIZE; i++) {
+                int count = Integer.bitCount(candidates[unit[i]]);
+                if (count >= 2 && count <= size) {
+                    scratchCells[n] = i;
+                    scratchMasks[n++] = candidates[unit[i]];
+                }
+            }
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    int ab = scratchMasks[a] | scratchMasks[b];
+                    if (size == 2) {
+                        if (Integer.bitCount(ab) == 2
+                                && eliminateFromOthers(unit, (1 << scratchCells[a]) | (1 << scratchCells[b]), ab)) {
+                            return true;
+                        }
+                        continue;
+                    }
+                    for (int c = b + 1; c < n; c++) {
+                        int abc = ab | scratchMasks[c];
+                        int positions = (1 << scratchCells[a]) | (1 << scratchCells[b]) | (1 << scratchCells[c]);
+                        if (Integer.bitCount(abc) == 3 && eliminateFromOthers(unit, positions, abc)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Eliminates digits from the cells of a unit outside the given positions (bit i = unit[i]).
+     */
+    private boolean eliminateFromOthers(int[] unit, int positions, int digits) {
+        boolean progress = false;
+        for (int i = 0; i < SIZE; i++) {
+            if ((positions & (1 << i)) == 0) {
+                progress |= eliminate(unit[i], digits);
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Hidden pairs/triples: {@code size} digits of a unit that fit only in the same {@code size} cells.
+     */
+    private boolean hiddenSubsets(int size) {
+        for (int[] unit : UNITS) {
+            // scratchMasks[n] = positions of digit scratchCells[n] within the unit.
+            int n = 0;
+            for (int d = 0; d < SIZE; d++) {
+                int bit = 1 << d;
+                int positions = 0;
+                for (int i = 0; i < SIZE; i++) {
+                    if ((candidates[unit[i]] & bit) != 0) {
+                        positions |= 1 << i;
+                    }
+                }
+                int count = Integer.bitCount(positions);
+                if (count >= 2 && count <= size) {
+                    scratchCells[n] = bit;
+                    scratchMasks[n++] = positions;
+                }
+            }
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    int ab = scratchMasks[a] | scratchMasks[b];
+                    if (size == 2) {
+                        if (Integer.bitCount(ab) == 2 && keepOnly(unit, ab, scratchCells[a] | scratchCells[b])) {
+                            return true;
+                        }
+                        continue;
+                    }
+                    for (int c = b + 1; c < n; c++) {
+                        int abc = ab | scratchMasks[c];
+                        if (Integer.bitCount(abc) == 3
+                                && keepOnly(unit, abc, scratchCells[a] | scratchCells[b] | scratchCells[c])) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Restricts the cells at the given positions of a unit to {@code digits}.
+     */
+    private boolean keepOnly(int[] unit, int positions, int digits) {
+        boolean progress = false;
+        for (int i = 0; i < SIZE; i++) {
+            if ((positions & (1 << i)) != 0) {
+                progress |= eliminate(unit[i], ~digits & ALL_DIGITS);
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * X-Wing ({@code size} 2) and Swordfish ({@code size} 3) on rows and on columns.
+     */
+    private boolean fish(int size) {
+        for (int bit = 1; bit < ALL_DIGITS; bit <<= 1) {
+            if (fish(size, bit, 0) || fish(size, bit, SIZE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks for a fish whose base lines are rows ({@code base} 0) or columns ({@code base} 9).
+     */
+    private boolean fish(int size, int bit, int base) {
+        int cover = SIZE - base; // Columns for row-based fish, rows for column-based fish.
+        int n = 0;
+        for (int line = 0; line < SIZE; line++) {
+            int positions = 0;
+            int[] unit = UNITS[base + line];
+            for (int i = 0; i < SIZE; i++) {
+                if ((candidates[unit[i]] & bit) != 0) {
+                    positions |= 1 << i;
+                }
+            }
+            int count = Integer.bitCount(positions);
+            if (count >= 2 && count <= size) {
+                scratchCells[n] = line;
+                scratchMasks[n++] = positions;
+            }
+        }
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                int ab = scratchMasks[a] | scratchMasks[b];
+                if (size == 2) {
+                    if (Integer.bitCount(ab) == 2
+                            && eliminateFish(cover, ab, (1 << scratchCells[a]) | (1 << scratchCells[b]), bit)) {
+                        return true;
+                    }
+                    continue;
+                }
+                for (int c = b + 1; c < n; c++) {
+                    int abc = ab | scratchMasks[c];
+                    int lines = (1 << scratchCells[a]) | (1 << scratchCells[b]) | (1 << scratchCells[c]);
+                    if (Integer.bitCount(abc) == 3 && eliminateFish(cover, abc, lines, bit)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Eliminates a digit from the cover lines, except where they cross the base lines.
+     */
+    private boolean eliminateFish(int cover, int coverLines, int baseLines, int bit) {
+        boolean progress = false;
+        for (int line = 0; line < SIZE; line++) {
+            if ((coverLines & (1 << line)) == 0) {
+                continue;
+            }
+            int[] unit = UNITS[cover + line];
+            for (int i = 0; i < SIZE; i++) {
+                if ((baseLines & (1 << i)) == 0) {
+                    progress |= eliminate(unit[i], bit);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * XY-Wing: a bivalue pivot {a,b} seeing pincers {a,c} and {b,c};
+     * any cell seeing both pincers cannot be c.
+     */
+    private boolean xyWing() {
+        for (int pivot = 0; pivot < CELLS; pivot++) {
+            int p = candidates[pivot];
+            if (Integer.bitCount(p) != 2) {
+                continue;
+            }
+            for (int first : PEERS[pivot]) {
+                int f = candidates[first];
+                if (Integer.bitCount(f) != 2 || Integer.bitCount(f & p) != 1) {
+                    continue;
+                }
+                int c = f & ~p;
+                int needed = (p & ~f) | c;
+                for (int second : PEERS[pivot]) {
+                    if (second == first || candidates[second] != needed) {
+                        continue;
+                    }
+                    boolean progress = false;
+                    for (int target : PEERS[first]) {
+                        if (target != second && target != pivot && sees(target, second)) {
+                            progress |= eliminate(target, c);
+                        }
+                    }
+                    if (progress) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Simple colouring: chains of conjugate pairs (units where a digit has exactly two places)
+     * are coloured alternately. If two cells of one colour see each other, that colour is false
+     * (colour wrap); a cell seeing both colours cannot hold the digit (colour trap).
+     */
+    private boolean simpleColoring() {
+        for (int bit = 1; bit < ALL_DIGITS; bit <<= 1) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                colors[cell] = 0;
+            }
+            int component = 0;
+            for (int start = 0; start < CELLS; start++) {
+                if ((candidates[start] & bit) == 0 || colors[start] != 0 || !hasConjugate(start, bit)) {
+                    continue;
+                }
+                component++;
+                int size = colorComponent(start, bit, component);
+                if (colorWrap(size, bit) || colorTrap(size, bit)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Colours the conjugate chain containing {@code start}. Colours are {@code 2 * component}
+     * and {@code 2 * component + 1}. The chain's cells are left in {@code queue[0..size)}.
+     */
+    private int colorComponent(int start, int bit, int component) {
+        int head = 0;
+        int tail = 0;
+        colors[start] = 2 * component;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int u = 0; u < 3; u++) {
+                int unit = u == 0 ? CELL_ROW[cell] : u == 1 ? SIZE + CELL_COL[cell] : 2 * SIZE + CELL_BOX[cell];
+                int partner = conjugate(unit, cell, bit);
+                if (partner >= 0 && colors[partner] == 0) {
+                    colors[partner] = colors[cell] ^ 1;
+                    queue[tail++] = partner;
+                }
+            }
+        }
+        return tail;
+    }
+
+    private boolean colorWrap(int size, int bit) {
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                int a = queue[i];
+                int b = queue[j];
+                if (colors[a] == colors[b] && sees(a, b)) {
+                    boolean progress = false;
+                    int falseColor = colors[a];
+                    for (int k = 0; k < size; k++) {
+                        if (colors[queue[k]] == falseColor) {
+                            progress |= eliminate(queue[k], bit);
+                        }
+                    }
+                    return progress;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean colorTrap(int size, int bit) {
+        int base = colors[queue[0]] & ~1;
+        boolean progress = false;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if ((candidates[cell] & bit) == 0 || (colors[cell] & ~1) == base) {
+                continue;
+            }
+            boolean seesEven = false;
+            boolean seesOdd = false;
+            for (int i = 0; i < size && !(seesEven && seesOdd); i++) {
+                int other = queue[i];
+                if (sees(cell, other)) {
+                    if (colors[other] == base) {
+                        seesEven = true;
+                    } else {
+                        seesOdd = true;
+                    }
+                }
+            }
+            if (seesEven && seesOdd) {
+                progress |= eliminate(cell, bit);
+            }
+        }
+        return progress;
+    }
+
+    private boolean hasConjugate(int cell, int bit) {
+        return conjugate(CELL_ROW[cell], cell, bit) >= 0
+                || conjugate(SIZE + CELL_COL[cell], cell, bit) >= 0
+                || conjugate(2 * SIZE + CELL_BOX[cell], cell, bit) >= 0;
+    }
+
+    /**
+     * Returns the other cell of a unit holding the digit if it has exactly two places there, else -1.
+     */
+    private int conjugate(int unit, int cell, int bit) {
+        int other = -1;
+        int count = 0;
+        for (int member : UNITS[unit]) {
+            if ((candidates[member] & bit) != 0) {
+                count++;
+                if (member != cell) {
+                    other = member;
+                }
+            }
+        }
+        return count == 2 ? other : -1;
+    }
+
+    static boolean sees(int a, int b) {
+        return a != b && (CELL_ROW[a] == CELL_ROW[b] || CELL_COL[a] == CELL_COL[b] || CELL_BOX[a] == CELL_BOX[b]);
+    }
+}
@@ -0,0 +1,262 @@
+package com.sudokumaster.model;
+
+/**
+ * Iterative, allocation-free and seedable puzzle generator.
+ * <p>
+ * The core fills a flat {@code byte[81]} grid with an explicit stack instead of recursion:
+ * each stack level holds the candidate digits still untried for one cell, and a random
+ * candidate is picked with bit tricks on that mask rather than by shuffling a list.
+ * Randomness comes from an inline SplitMix64 generator, so the same seed always produces the
+ * same puzzle. After construction all work happens in preallocated arrays and the caller's
+ * output arrays; cutting to a clue count never allocates, and rated generation allocates only
+ * the {@link Rating} of each attempt. Instances are not thread-safe; use one per thread.
+ */
+public final class GeneratorCore {
+
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int ALL_DIGITS = 0x1FF;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // Row, column and box index of every cell.
+    private static final byte[] CELL_ROW = new byte[CELLS];
+    private static final byte[] CELL_COL = new byte[CELLS];
+    private static final byte[] CELL_BOX = new byte[CELLS];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            CELL_ROW[cell] = (byte) row;
+            CELL_COL[cell] = (byte) col;
+            CELL_BOX[cell] = (byte) ((row / 3) * 3 + col / 3);
+        }
+    }
+
+    private final byte[] grid = new byte[CELLS];
+    private final int[] rowMasks = new int[SIZE];
+    private final int[] colMasks = new int[SIZE];
+    private final int[] boxMasks = new int[SIZE];
+    // Explicit search stack: untried candidates of the cell at each depth.
+    private final int[] untried = new int[CELLS];
+    // Visiting order for cell removal.
+    private final int[] order = new int[CELLS];
+    private final SolutionCounter counter = new SolutionCounter();
+    private final DifficultyRater rater = new DifficultyRater();
+    private long state;
+
+    /**
+     * Creates a generator whose output is fully determined by {@code seed}.
+     */
+    public GeneratorCore(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * Resets the random sequence; generating after {@code setSeed(s)} repeats the puzzles of a
+     * fresh {@code new GeneratorCore(s)}.
+     */
+    public void setSeed(long seed) {
+        state = seed;
+    }
+
+    /**
+     * Cells removed from the full grid when cutting EASY puzzles. Cuts this shallow leave
+     * enough givens that singles always finish them.
+     */
+    public static final int EASY_REMOVALS = 30;
+
+    /**
+     * Generates a puzzle rated at {@code difficulty} by the {@link DifficultyRater}.
+     * EASY puzzles are cut to {@value #EASY_REMOVALS} removals; MEDIUM and HARD puzzles are
+     * {@linkplain #generateMinimal minimal}, since a fixed clue count almost never needs the
+     * techniques those levels stand for. Puzzles whose rating misses the level are discarded
+     * and generated again; about one minimal puzzle in six rates MEDIUM and one in three HARD.
+     *
+     * @param difficulty the level the puzzle's rating must fall into.
+     * @param puzzle     destination for the puzzle (81 cells, 0 for empty).
+     * @param solution   destination for the full grid the puzzle was cut from, or null.
+     * @return the rating of the puzzle.
+     */
+    public Rating generate(Difficulty difficulty, byte[] puzzle, byte[] solution) {
+        while (true) {
+            if (difficulty == Difficulty.EASY) {
+                generate(EASY_REMOVALS, true, puzzle, solution);
+            } else {
+                generateMinimal(puzzle, solution);
+            }
+            Rating rating = rater.rate(puzzle);
+            if (rating.difficulty() == difficulty) {
+                return rating;
+            }
+        }
+    }
+
+    /**
+     * Generates a puzzle cut to a fixed number of empty cells into caller-supplied arrays.
+     * The clue count says little about how hard a puzzle is; use
+     * {@link #generate(Difficulty, byte[], byte[])} for a puzzle of a given difficulty.
+     *
+     * @param removals number of cells to empty, from 0 to 81. With {@code unique} set, targets
+     *                 much beyond 50 are rarely reached and take many attempts.
+     * @param unique   if true, only removals that keep a unique solution are made.
+     * @param puzzle   destination for the puzzle (81 cells, 0 for empty).
+     * @param solution destination for the full grid the puzzle was cut from, or null.
+     */
+    public void generate(int removals, boolean unique, byte[] puzzle, byte[] solution) {
+        if (removals < 0 || removals > CELLS) {
+            throw new IllegalArgumentException("removals must be between 0 and " + CELLS);
+        }
+        while (true) {
+            fill();
+            if (solution != null) {
+                System.arraycopy(grid, 0, solution, 0, CELLS);
+            }
+            System.arraycopy(grid, 0, puzzle, 0, CELLS);
+            if (unique ? removeUnique(puzzle, removals) == removals : removeRandom(puzzle, removals)) {
+                return;
+            }
+            // The random removal order got stuck before reaching the target; start over.
+        }
+    }
+
+    /**
+     * Generates a minimal puzzle: every cell is tried for removal once, in random order, and
+     * removed if the puzzle keeps a unique solution. Removing further cells can only add
+     * solutions, so every remaining given is necessary. Minimal puzzles are much more likely
+     * to need advanced techniques than puzzles cut to a fixed clue count.
+     *
+     * @param puzzle   destination for the puzzle (81 cells, 0 for empty).
+     * @param solution destination for the full grid the puzzle was cut from, or null.
+     * @return the number of givens left.
+     */
+    public int generateMinimal(byte[] puzzle, byte[] solution) {
+        fill();
+        if (solution != null) {
+            System.arraycopy(grid, 0, solution, 0, CELLS);
+        }
+        System.arraycopy(grid, 0, puzzle, 0, CELLS);
+        return CELLS - removeUnique(puzzle, CELLS);
+    }
+
+    /**
+     * Fills the working grid with a random complete solution using an explicit stack.
+     * Cells are filled in row-major order, so stack depth equals cell index.
+     */
+    private void fill() {
+        for (int i = 0; i < SIZE; i++) {
+            rowMasks[i] = 0;
+            colMasks[i] = 0;
+            boxMasks[i] = 0;
+        }
+        int depth = 0;
+        untried[0] = ALL_DIGITS;
+        while (depth < CELLS) {
+            int options = untried[depth];
+            if (options == 0) {
+                // Every digit failed here: step back and undo the previous cell.
+                depth--;
+                unplace(depth);
+                continue;
+            }
+            int bit = randomBit(options);
+            untried[depth] = options ^ bit;
+            place(depth, bit);
+            depth++;
+            if (depth < CELLS) {
+                untried[depth] = candidates(depth);
+            }
+        }
+    }
+
+    /**
+     * Removes {@code removals} random cells.
+     */
+    private boolean removeRandom(byte[] puzzle, int removals) {
+        shuffleOrder();
+        for (int i = 0; i < removals; i++) {
+            puzzle[order[i]] = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Removes cells in random order, keeping only removals that leave a unique solution.
+     *
+     * @return the number of cells removed, at most {@code removals}.
+     */
+    private int removeUnique(byte[] puzzle, int removals) {
+        shuffleOrder();
+        int removed = 0;
+        for (int i = 0; i < CELLS && removed < removals; i++) {
+            int cell = order[i];
+            byte value = puzzle[cell];
+            puzzle[cell] = 0;
+            if (counter.hasUniqueSolution(puzzle)) {
+                removed++;
+            } else {
+                puzzle[cell] = value;
+            }
+        }
+        return removed;
+    }
+
+    private void shuffleOrder() {
+        for (int i = 0; i < CELLS; i++) {
+            order[i] = i;
+        }
+        // Fisher-Yates shuffle.
+        for (int i = CELLS - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    private int candidates(int cell) {
+        return ~(rowMasks[CELL_ROW[cell]] | colMasks[CELL_COL[cell]] | boxMasks[CELL_BOX[cell]]) & ALL_DIGITS;
+    }
+
+    private void place(int cell, int bit) {
+        grid[cell] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+        rowMasks[CELL_ROW[cell]] |= bit;
+        colMasks[CELL_COL[cell]] |= bit;
+        boxMasks[CELL_BOX[cell]] |= bit;
+    }
+
+    private void unplace(int cell) {
+        int keep = ~(1 << (grid[cell] - 1));
+        grid[cell] = 0;
+        rowMasks[CELL_ROW[cell]] &= keep;
+        colMasks[CELL_COL[cell]] &= keep;
+        boxMasks[CELL_BOX[cell]] &= keep;
+    }
+
+    /**
+     * Picks one set bit of {@code mask} uniformly at random.
+     */
+    private int randomBit(int mask) {
+        for (int skip = nextInt(Integer.bitCount(mask)); skip > 0; skip--) {
+            mask &= mask - 1; // Drop the lowest set bit.
+        }
+        return mask & -mask;
+    }
+
+    /**
+     * SplitMix64 step.
+     */
+    private long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns a value in {@code [0, bound)} by multiply-shift on the high 32 random bits.
+     */
+    private int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+}
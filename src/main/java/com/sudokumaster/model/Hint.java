@@ -0,0 +1,19 @@
+package com.sudokumaster.model;
+
+/**
+ * One logical step found by {@link HintFinder}: either a forced placement or a set of
+ * candidate eliminations.
+ *
+ * @param technique    the technique that proves the step.
+ * @param row          row of the cell to fill, or of the first cell losing candidates.
+ * @param col          column of that cell.
+ * @param digit        the digit to place, or 0 for an elimination.
+ * @param eliminations for eliminations, the digits removed from each cell, indexed
+ *                     {@code row * size + col}; null for placements.
+ */
+public record Hint(Technique technique, int row, int col, int digit, int[] eliminations) {
+
+    public boolean isPlacement() {
+        return digit != 0;
+    }
+}
@@ -0,0 +1,418 @@
+package com.sudokumaster.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates minimal 9x9 puzzles, in which removing any further given breaks uniqueness, with
+ * the uniqueness tests spread over a pool of workers.
+ * <p>
+ * The result is exactly what the sequential greedy pass of
+ * {@link GeneratorCore#generateMinimal} produces for the same grid and removal order: each
+ * cell, in order, is removed if the puzzle stays unique. The work is done in rounds that test
+ * the next clues speculatively, one test per worker:
+ * <ul>
+ * <li>While most removals succeed, a round tests cumulative removals: the first clue, the
+ * first two, and so on. A puzzle with fewer givens has at least the solutions of one with
+ * more, so the longest unique prefix can be removed at once and the clue after it is
+ * necessary.</li>
+ * <li>Once most removals fail, a round tests each clue on its own. A clue that is necessary
+ * now stays necessary after later removals, so every failed test is final; only the first
+ * successful removal is applied, and the clues after it are tested again.</li>
+ * </ul>
+ * Tests share their work through unavoidable sets: every failed test finds a second solution,
+ * and the cells where it differs from the grid must keep at least one given. Before solving,
+ * a test checks the sets found so far, and a removal that would empty one of them fails
+ * without a search. Within a prefix round, tests longer than a known failure are skipped.
+ * Workers are daemon threads; {@link #minimize} is safe to call from any thread.
+ */
+public class MinimalGenerator implements AutoCloseable {
+
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    // Unavoidable sets kept per puzzle; each test scans them before solving.
+    private static final int MAX_SETS = 1024;
+
+    private static final int UNIQUE = 1;
+    private static final int NOT_UNIQUE = 2;
+    private static final int SKIPPED = 3;
+
+    // Solver and scratch grids owned by each thread.
+    private static final ThreadLocal<Worker> WORKERS = ThreadLocal.withInitial(Worker::new);
+
+    private final int parallelism;
+    private final ExecutorService workers;
+
+    /**
+     * Creates a generator with one worker per available processor.
+     */
+    public MinimalGenerator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a generator with a fixed number of workers.
+     *
+     * @param parallelism number of uniqueness tests run at the same time.
+     */
+    public MinimalGenerator(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
+        this.parallelism = parallelism;
+        this.workers = Executors.newFixedThreadPool(parallelism, new WorkerThreadFactory());
+    }
+
+    /**
+     * Generates a minimal puzzle from a random grid and removal order.
+     *
+     * @param puzzle   destination for the puzzle (81 cells, 0 for empty).
+     * @param solution destination for the full grid the puzzle was cut from.
+     * @return the number of givens left.
+     */
+    public int generate(byte[] puzzle, byte[] solution) {
+        return generate(ThreadLocalRandom.current().nextLong(), puzzle, solution);
+    }
+
+    /**
+     * Generates a minimal puzzle whose grid and removal order are determined by {@code seed}.
+     *
+     * @param seed     random seed.
+     * @param puzzle   destination for the puzzle (81 cells, 0 for empty).
+     * @param solution destination for the full grid the puzzle was cut from.
+     * @return the number of givens left.
+     */
+    public int generate(long seed, byte[] puzzle, byte[] solution) {
+        SplittableRandom random = new SplittableRandom(seed);
+        WORKERS.get().solver.fill(random, solution);
+        int[] order = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            order[i] = i;
+        }
+        // Fisher-Yates shuffle.
+        for (int i = CELLS - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return minimize(solution, order, puzzle);
+    }
+
+    /**
+     * Cuts a minimal puzzle from a full grid, trying the cells for removal in the given order.
+     *
+     * @param solution a complete valid grid of 81 cells. Not modified.
+     * @param order    the 81 cells in the order they are tried.
+     * @param puzzle   destination for the puzzle.
+     * @return the number of givens left.
+     */
+    public int minimize(byte[] solution, int[] order, byte[] puzzle) {
+        if (solution.length != CELLS || order.length != CELLS || puzzle.length != CELLS) {
+            throw new IllegalArgumentException("Puzzles must have " + CELLS + " cells");
+        }
+        Round round = new Round(solution, puzzle, parallelism);
+        List<Test> tests = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            tests.add(new Test(round, i));
+        }
+        System.arraycopy(solution, 0, puzzle, 0, CELLS);
+        round.cluesLow = -1L;
+        round.cluesHigh = (1L << (CELLS - 64)) - 1;
+        // Cells proven necessary ahead of the removal order.
+        long necessaryLow = 0;
+        long necessaryHigh = 0;
+        boolean prefix = true;
+        int next = 0;
+        while (next < CELLS) {
+            int count = 0;
+            int end = next;
+            while (end < CELLS && count < parallelism) {
+                int cell = order[end++];
+                if (!contains(necessaryLow, necessaryHigh, cell)) {
+                    round.batch[count++] = cell;
+                }
+            }
+            if (count == 0) {
+                break;
+            }
+            round.start(prefix, count);
+            run(tests.subList(0, count));
+            int removable;
+            if (prefix) {
+                // The first failure is never skipped: skipped tests are longer than a failure.
+                removable = 0;
+                while (removable < count && round.status[removable] == UNIQUE) {
+                    removable++;
+                }
+                for (int i = 0; i < removable; i++) {
+                    round.remove(round.batch[i]);
+                }
+                next = removable == count ? end : positionAfter(order, next, round.batch[removable]);
+            } else {
+                int first = -1;
+                removable = 0;
+                for (int i = 0; i < count; i++) {
+                    int cell = round.batch[i];
+                    if (round.status[i] == UNIQUE) {
+                        removable++;
+                        if (first < 0) {
+                            first = i;
+                        }
+                    } else if (cell < 64) {
+                        necessaryLow |= 1L << cell;
+                    } else {
+                        necessaryHigh |= 1L << (cell - 64);
+                    }
+                }
+                if (first >= 0) {
+                    round.remove(round.batch[first]);
+                    next = positionAfter(order, next, round.batch[first]);
+                } else {
+                    next = end;
+                }
+            }
+            round.collectSets(count);
+            prefix = 2 * removable >= count;
+        }
+        return Long.bitCount(round.cluesLow) + Long.bitCount(round.cluesHigh);
+    }
+
+    /**
+     * Stops the workers. Calls still running finish their tests on the calling thread.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Runs the first test on the calling thread and the others on the workers.
+     */
+    private void run(List<Test> tests) {
+        List<Future<Void>> futures = new ArrayList<>(tests.size());
+        try {
+            for (int i = 1; i < tests.size(); i++) {
+                futures.add(workers.submit(tests.get(i)));
+            }
+        } catch (RejectedExecutionException e) {
+            // Closed: run the rest inline.
+            for (int i = futures.size() + 1; i < tests.size(); i++) {
+                tests.get(i).call();
+            }
+        }
+        tests.get(0).call();
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Uniqueness test failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while minimizing a puzzle", e);
+            }
+        }
+    }
+
+    private static int positionAfter(int[] order, int from, int cell) {
+        while (order[from] != cell) {
+            from++;
+        }
+        return from + 1;
+    }
+
+    private static boolean contains(long low, long high, int cell) {
+        return cell < 64 ? (low >>> cell & 1) != 0 : (high >>> (cell - 64) & 1) != 0;
+    }
+
+    /**
+     * State of one minimization, shared by its tests. The coordinating thread changes it only
+     * between rounds, so tests read it without locking.
+     */
+    private static final class Round {
+        final byte[] solution;
+        final byte[] puzzle;
+        final int[] batch;
+        final int[] status;
+        final long[] foundLow;
+        final long[] foundHigh;
+        final AtomicInteger firstFailure = new AtomicInteger();
+        boolean prefix;
+        // The current givens as a bit set over the 81 cells.
+        long cluesLow;
+        long cluesHigh;
+        // Unavoidable sets of the grid, as bit sets.
+        long[] setsLow = new long[64];
+        long[] setsHigh = new long[64];
+        int setCount;
+
+        Round(byte[] solution, byte[] puzzle, int parallelism) {
+            this.solution = solution;
+            this.puzzle = puzzle;
+            this.batch = new int[parallelism];
+            this.status = new int[parallelism];
+            this.foundLow = new long[parallelism];
+            this.foundHigh = new long[parallelism];
+        }
+
+        void start(boolean prefix, int count) {
+            this.prefix = prefix;
+            firstFailure.set(Integer.MAX_VALUE);
+            for (int i = 0; i < count; i++) {
+                foundLow[i] = 0;
+                foundHigh[i] = 0;
+            }
+        }
+
+        void remove(int cell) {
+            puzzle[cell] = 0;
+            if (cell < 64) {
+                cluesLow &= ~(1L << cell);
+            } else {
+                cluesHigh &= ~(1L << (cell - 64));
+            }
+        }
+
+        /**
+         * Adds the sets found by the last round's tests.
+         */
+        void collectSets(int count) {
+            for (int i = 0; i < count && setCount < MAX_SETS; i++) {
+                if (foundLow[i] == 0 && foundHigh[i] == 0) {
+                    continue;
+                }
+                if (setCount == setsLow.length) {
+                    setsLow = Arrays.copyOf(setsLow, setCount * 2);
+                    setsHigh = Arrays.copyOf(setsHigh, setCount * 2);
+                }
+                setsLow[setCount] = foundLow[i];
+                setsHigh[setCount] = foundHigh[i];
+                setCount++;
+            }
+        }
+
+        /**
+         * Returns true if some known unavoidable set has no given left among {@code low, high}.
+         */
+        boolean missesSet(long low, long high) {
+            for (int i = 0; i < setCount; i++) {
+                if ((setsLow[i] & low) == 0 && (setsHigh[i] & high) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One uniqueness test of a round: the first {@code index + 1} clues of the batch removed
+     * together in prefix rounds, or clue {@code index} alone otherwise.
+     */
+    private static final class Test implements Callable<Void> {
+        private final Round round;
+        private final int index;
+
+        Test(Round round, int index) {
+            this.round = round;
+            this.index = index;
+        }
+
+        @Override
+        public Void call() {
+            round.status[index] = test();
+            return null;
+        }
+
+        private int test() {
+            Round r = round;
+            long low = r.cluesLow;
+            long high = r.cluesHigh;
+            for (int i = r.prefix ? 0 : index; i <= index; i++) {
+                int cell = r.batch[i];
+                if (cell < 64) {
+                    low &= ~(1L << cell);
+                } else {
+                    high &= ~(1L << (cell - 64));
+                }
+            }
+            if (r.prefix && index > r.firstFailure.get()) {
+                return SKIPPED;
+            }
+            if (r.missesSet(low, high)) {
+                return fail();
+            }
+            Worker worker = WORKERS.get();
+            byte[] puzzle = worker.puzzle;
+            System.arraycopy(r.puzzle, 0, puzzle, 0, CELLS);
+            boolean other;
+            if (r.prefix) {
+                for (int i = 0; i <= index; i++) {
+                    puzzle[r.batch[i]] = 0;
+                }
+                other = worker.solver.findOtherSolution(puzzle, r.solution, worker.witness);
+            } else {
+                int cell = r.batch[index];
+                puzzle[cell] = 0;
+                other = worker.solver.findSolutionWithout(puzzle, cell, r.solution[cell], worker.witness);
+            }
+            if (!other) {
+                return UNIQUE;
+            }
+            long setLow = 0;
+            long setHigh = 0;
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (worker.witness[cell] != r.solution[cell]) {
+                    if (cell < 64) {
+                        setLow |= 1L << cell;
+                    } else {
+                        setHigh |= 1L << (cell - 64);
+                    }
+                }
+            }
+            r.foundLow[index] = setLow;
+            r.foundHigh[index] = setHigh;
+            return fail();
+        }
+
+        private int fail() {
+            if (round.prefix) {
+                round.firstFailure.accumulateAndGet(index, Math::min);
+            }
+            return NOT_UNIQUE;
+        }
+    }
+
+    /**
+     * Reusable per-thread working state.
+     */
+    private static final class Worker {
+        final ScalableSolver solver = new ScalableSolver(3);
+        final byte[] puzzle = new byte[CELLS];
+        final byte[] witness = new byte[CELLS];
+    }
+
+    /**
+     * Creates daemon threads so idle workers never keep the JVM alive.
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "minimal-generator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
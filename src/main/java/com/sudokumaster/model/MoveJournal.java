@@ -0,0 +1,540 @@
+package com.sudokumaster.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo/redo history for one {@link SudokuBoard}.
+ * <p>
+ * Moves are made through the journal ({@link #placeNumber}, {@link #enterNumber},
+ * {@link #clearCell}, {@link #toggleAnnotation}, ...), which applies them to the board and
+ * records exactly what changed. Each change is one packed {@code int}: a value change holds the
+ * cell, the old and the new digit; a pencil-mark change holds the cell and the flipped digit;
+ * an elimination holds the cell, the digit and whether it is removed from or returned to the
+ * cell's candidates. A placement therefore also records the marks it erased from the cell and
+ * its peers, so undoing it restores them. The entries of a move are consecutive, and the first
+ * one carries a start flag.
+ * <p>
+ * Entries live in a power-of-two ring array that doubles when full, up to a fixed capacity;
+ * beyond that the oldest moves are dropped. Undo and redo replay one move's entries, at most
+ * one value change plus one mark per peer and digit, independent of the history length.
+ * Every {@value #SNAPSHOT_INTERVAL} moves the journal keeps a snapshot of the whole board
+ * (one {@code int} per cell), so {@link #jumpTo} restores the nearest snapshot and replays at
+ * most that many moves instead of walking the whole history.
+ * <p>
+ * A {@link ChangeListener} sees every change applied to the board as the same packed entry,
+ * undo included, so the stream can be persisted and later re-applied with {@link #replay}.
+ * <p>
+ * Eliminations made through {@link #eliminateCandidates} are undone with their move; those made
+ * directly on the board are not recorded. Clearing a cell still makes the board forget every
+ * elimination, and undoing or redoing across a clear does not bring them back, since they may
+ * have depended on the removed digit. Instances are not thread-safe.
+ */
+public class MoveJournal {
+
+    /**
+     * Receives the changes made to the board, e.g. to persist them.
+     */
+    public interface ChangeListener {
+        /**
+         * Called for every change in the order it is applied; undo reports the inverse change.
+         * Pass the entry to {@link #replay} to repeat it on another board.
+         */
+        void changed(int entry);
+
+        /**
+         * Called after a move, undo, redo or jump, when the board is consistent again.
+         */
+        void moveFinished();
+    }
+
+    /** Moves between two snapshots. */
+    public static final int SNAPSHOT_INTERVAL = 256;
+    /** Default maximum number of entries kept, about 4 MB. */
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Entry layout: cell in bits 0-9, digit A in 10-14, digit B in 15-19, kind in bits 20-21, start flag in bit 31.
+    // VALUE entries change the cell from digit A to digit B; MARK entries flip pencil mark A;
+    // ELIMINATION entries remove candidate A if B is 1 and return it if B is 0.
+    private static final int CELL_MASK = 0x3FF;
+    private static final int DIGIT_MASK = 0x1F;
+    private static final int A_SHIFT = 10;
+    private static final int B_SHIFT = 15;
+    private static final int MARK = 1 << 20;
+    private static final int ELIMINATION = 1 << 21;
+    private static final int START = 1 << 31;
+
+    // Snapshot layout: one int per cell, the value in bits 0-4 and the pencil marks above, and
+    // the eliminated candidates of every cell.
+    private static final int SNAPSHOT_VALUE_BITS = 5;
+
+    private final SudokuBoard board;
+    private final int size;
+    private final int maxEntries;
+    private int[] entries = new int[INITIAL_CAPACITY];
+    // Entries are numbered from the start of the journal; entry n lives at entries[n & (length - 1)].
+    private long firstEntry;
+    private long currentEntry;
+    private long lastEntry;
+    // Moves are numbered the same way; move 0 is the state the journal started from.
+    private long firstMove;
+    private long currentMove;
+    private long lastMove;
+    // Nesting depth of beginMove, and whether the open move has recorded an entry yet.
+    private int groupDepth;
+    private boolean moveStarted;
+    private final List<Snapshot> snapshots = new ArrayList<>();
+    private ChangeListener listener;
+
+    /**
+     * A copy of the board taken after {@code move}, whose entries end before {@code entry}.
+     */
+    private record Snapshot(long move, long entry, int[] cells, int[] eliminations) {
+    }
+
+    /**
+     * Creates a journal starting from the board's current state.
+     */
+    public MoveJournal(SudokuBoard board) {
+        this(board, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a journal that keeps at most {@code maxEntries} entries.
+     *
+     * @param maxEntries a power of two, at least 1024.
+     */
+    public MoveJournal(SudokuBoard board, int maxEntries) {
+        if (maxEntries < INITIAL_CAPACITY || Integer.bitCount(maxEntries) != 1) {
+            throw new IllegalArgumentException("maxEntries must be a power of two >= " + INITIAL_CAPACITY);
+        }
+        this.board = board;
+        this.size = board.getSize();
+        this.maxEntries = maxEntries;
+        snapshots.add(snapshot(0, 0));
+    }
+
+    public SudokuBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Sets the listener notified of every change, or null for none.
+     */
+    public void setChangeListener(ChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Applies a change reported to a {@link ChangeListener} to a board of the same size.
+     */
+    public static void replay(SudokuBoard board, int entry) {
+        int size = board.getSize();
+        int cell = entry & CELL_MASK;
+        int a = (entry >>> A_SHIFT) & DIGIT_MASK;
+        if ((entry & MARK) != 0) {
+            board.flipAnnotations(cell / size, cell % size, 1 << (a - 1));
+        } else if ((entry & ELIMINATION) != 0) {
+            if (((entry >>> B_SHIFT) & DIGIT_MASK) != 0) {
+                board.eliminateCandidates(cell / size, cell % size, 1 << (a - 1));
+            } else {
+                board.restoreCandidates(cell / size, cell % size, 1 << (a - 1));
+            }
+        } else {
+            board.restoreNumber(cell / size, cell % size, (entry >>> B_SHIFT) & DIGIT_MASK);
+        }
+    }
+
+    /**
+     * Places a number like {@link SudokuBoard#placeNumber} and records the move.
+     *
+     * @return false if the move is invalid; nothing is recorded then.
+     */
+    public boolean placeNumber(int row, int col, int number) {
+        if (!board.isValidMove(row, col, number)) {
+            return false;
+        }
+        enterNumber(row, col, number);
+        return true;
+    }
+
+    /**
+     * Enters a number like {@link SudokuBoard#enterNumber}, conflicts included, and records the move.
+     *
+     * @return true if the number conflicts with no peer.
+     * @throws IllegalArgumentException if the number is not a digit of the board.
+     */
+    public boolean enterNumber(int row, int col, int number) {
+        if (number < 1 || number > size) {
+            throw new IllegalArgumentException("Number must be between 1 and " + size);
+        }
+        int cell = row * size + col;
+        int bit = 1 << (number - 1);
+        beginMove();
+        record(cell, board.getBoard()[row][col], number, 0);
+        recordMarks(cell, board.getAnnotationMask(row, col));
+        int[] peers = board.getGeometry().peers;
+        int peerCount = board.getGeometry().getPeerCount();
+        for (int i = cell * peerCount; i < (cell + 1) * peerCount; i++) {
+            int peer = peers[i];
+            if ((board.getAnnotationMask(peer / size, peer % size) & bit) != 0) {
+                recordMarks(peer, bit);
+            }
+        }
+        boolean clean = board.enterNumber(row, col, number);
+        endMove();
+        return clean;
+    }
+
+    /**
+     * Empties a cell like {@link SudokuBoard#clearCell} and records the move.
+     */
+    public void clearCell(int row, int col) {
+        int value = board.getBoard()[row][col];
+        if (value == 0) {
+            return;
+        }
+        beginMove();
+        record(row * size + col, value, 0, 0);
+        board.clearCell(row, col);
+        endMove();
+    }
+
+    /**
+     * Toggles a pencil mark like {@link SudokuBoard#toggleAnnotation} and records the move.
+     */
+    public void toggleAnnotation(int row, int col, int number) {
+        if (board.getBoard()[row][col] != 0 || number < 1 || number > size) {
+            return;
+        }
+        beginMove();
+        recordMarks(row * size + col, 1 << (number - 1));
+        board.toggleAnnotation(row, col, number);
+        endMove();
+    }
+
+    /**
+     * Removes a pencil mark like {@link SudokuBoard#removeAnnotation} and records the move.
+     */
+    public void removeAnnotation(int row, int col, int number) {
+        if (number >= 1 && number <= size && (board.getAnnotationMask(row, col) & (1 << (number - 1))) != 0) {
+            toggleAnnotation(row, col, number);
+        }
+    }
+
+    /**
+     * Removes candidates like {@link SudokuBoard#eliminateCandidates} and records the move, so
+     * undoing it returns the digits to the cell. Digits already eliminated are not recorded again.
+     *
+     * @param digits digit bitmask to remove (bit {@code n - 1} for digit {@code n}).
+     */
+    public void eliminateCandidates(int row, int col, int digits) {
+        int added = digits & ~board.getEliminations(row, col) & ((1 << size) - 1);
+        if (added == 0) {
+            return;
+        }
+        int cell = row * size + col;
+        beginMove();
+        for (int bits = added; bits != 0; bits &= bits - 1) {
+            record(cell, Integer.numberOfTrailingZeros(bits) + 1, 1, ELIMINATION);
+        }
+        board.eliminateCandidates(row, col, added);
+        endMove();
+    }
+
+    /**
+     * Groups the moves made until the matching {@link #endMove()} into one, e.g. the marks
+     * removed by a hint. Calls may nest.
+     */
+    public void beginMove() {
+        if (groupDepth++ == 0) {
+            moveStarted = false;
+        }
+    }
+
+    /**
+     * Ends a group started with {@link #beginMove()}.
+     */
+    public void endMove() {
+        if (groupDepth == 0) {
+            throw new IllegalStateException("endMove without beginMove");
+        }
+        if (--groupDepth > 0) {
+            return;
+        }
+        if (moveStarted) {
+            currentMove++;
+            lastMove = currentMove;
+            if (currentMove % SNAPSHOT_INTERVAL == 0) {
+                snapshots.add(snapshot(currentMove, currentEntry));
+            }
+            if (listener != null) {
+                listener.moveFinished();
+            }
+        }
+    }
+
+    public boolean canUndo() {
+        return currentMove > firstMove;
+    }
+
+    public boolean canRedo() {
+        return currentMove < lastMove;
+    }
+
+    /**
+     * Reverts the last move.
+     *
+     * @return false if there is nothing to undo.
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        int entry;
+        do {
+            entry = entries[index(--currentEntry)];
+            apply(inverse(entry));
+        } while ((entry & START) == 0);
+        currentMove--;
+        if (listener != null) {
+            listener.moveFinished();
+        }
+        return true;
+    }
+
+    /**
+     * Re-applies the last undone move.
+     *
+     * @return false if there is nothing to redo.
+     */
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        do {
+            apply(entries[index(currentEntry++)]);
+        } while (currentEntry < lastEntry && (entries[index(currentEntry)] & START) == 0);
+        currentMove++;
+        if (listener != null) {
+            listener.moveFinished();
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the state after {@code move} moves, undoing or redoing as needed. Far jumps
+     * start from the nearest snapshot at or before the target.
+     *
+     * @param move between {@link #getFirstMove()} and {@link #getLastMove()}.
+     */
+    public void jumpTo(long move) {
+        if (move < firstMove || move > lastMove) {
+            throw new IllegalArgumentException("Move " + move + " is outside " + firstMove + ".." + lastMove);
+        }
+        Snapshot snapshot = snapshotAtOrBefore(move);
+        if (snapshot != null && Math.abs(move - currentMove) > move - snapshot.move) {
+            restore(snapshot);
+            if (listener != null) {
+                listener.moveFinished();
+            }
+        }
+        while (currentMove > move) {
+            undo();
+        }
+        while (currentMove < move) {
+            redo();
+        }
+    }
+
+    /**
+     * Forgets the whole history and starts again from the board's current state.
+     */
+    public void clear() {
+        firstEntry = currentEntry = lastEntry = 0;
+        firstMove = currentMove = lastMove = 0;
+        snapshots.clear();
+        snapshots.add(snapshot(0, 0));
+    }
+
+    /**
+     * Returns the oldest move still in the history (0 unless old moves were dropped).
+     */
+    public long getFirstMove() {
+        return firstMove;
+    }
+
+    /**
+     * Returns the number of moves applied to reach the current state.
+     */
+    public long getCurrentMove() {
+        return currentMove;
+    }
+
+    /**
+     * Returns the last move that can be redone.
+     */
+    public long getLastMove() {
+        return lastMove;
+    }
+
+    /**
+     * Returns the number of entries kept for the retained history.
+     */
+    public long getEntryCount() {
+        return lastEntry - firstEntry;
+    }
+
+    private void recordMarks(int cell, int digits) {
+        for (int bits = digits; bits != 0; bits &= bits - 1) {
+            record(cell, Integer.numberOfTrailingZeros(bits) + 1, 0, MARK);
+        }
+    }
+
+    private void record(int cell, int a, int b, int kind) {
+        if (groupDepth == 0) {
+            throw new IllegalStateException("not inside a move");
+        }
+        int entry = cell | (a << A_SHIFT) | (b << B_SHIFT) | kind;
+        if (!moveStarted) {
+            entry |= START;
+            moveStarted = true;
+            truncateRedo();
+        }
+        if (lastEntry - firstEntry == entries.length) {
+            if (entries.length < maxEntries) {
+                grow();
+            } else {
+                dropOldestMove();
+            }
+        }
+        entries[index(lastEntry++)] = entry;
+        currentEntry = lastEntry;
+        if (listener != null) {
+            listener.changed(entry);
+        }
+    }
+
+    /**
+     * A new move discards the moves that were undone.
+     */
+    private void truncateRedo() {
+        lastEntry = currentEntry;
+        lastMove = currentMove;
+        while (!snapshots.isEmpty() && snapshots.get(snapshots.size() - 1).move > currentMove) {
+            snapshots.remove(snapshots.size() - 1);
+        }
+    }
+
+    private void grow() {
+        int[] grown = new int[entries.length * 2];
+        for (long n = firstEntry; n < lastEntry; n++) {
+            grown[(int) (n & (grown.length - 1))] = entries[index(n)];
+        }
+        entries = grown;
+    }
+
+    /**
+     * Frees the ring slots of the oldest move, along with the snapshots it no longer reaches.
+     */
+    private void dropOldestMove() {
+        do {
+            firstEntry++;
+        } while (firstEntry < currentEntry && (entries[index(firstEntry)] & START) == 0);
+        firstMove++;
+        // Older snapshots would need entries that are gone.
+        while (!snapshots.isEmpty() && snapshots.get(0).move < firstMove) {
+            snapshots.remove(0);
+        }
+    }
+
+    private Snapshot snapshotAtOrBefore(long move) {
+        Snapshot found = null;
+        for (Snapshot snapshot : snapshots) {
+            if (snapshot.move > move) {
+                break;
+            }
+            found = snapshot;
+        }
+        return found;
+    }
+
+    /**
+     * Applies an entry to the board and reports it.
+     */
+    private void apply(int entry) {
+        replay(board, entry);
+        if (listener != null) {
+            listener.changed(entry);
+        }
+    }
+
+    /**
+     * Returns the entry that undoes {@code entry}: a value change back, the same mark flip, or
+     * the opposite elimination.
+     */
+    private static int inverse(int entry) {
+        if ((entry & MARK) != 0) {
+            return entry;
+        }
+        if ((entry & ELIMINATION) != 0) {
+            return entry ^ (1 << B_SHIFT);
+        }
+        int a = (entry >>> A_SHIFT) & DIGIT_MASK;
+        int b = (entry >>> B_SHIFT) & DIGIT_MASK;
+        return (entry & ~((DIGIT_MASK << A_SHIFT) | (DIGIT_MASK << B_SHIFT))) | (b << A_SHIFT) | (a << B_SHIFT);
+    }
+
+    private Snapshot snapshot(long move, long entry) {
+        int[] eliminations = new int[size * size];
+        for (int cell = 0; cell < eliminations.length; cell++) {
+            eliminations[cell] = board.getEliminations(cell / size, cell % size);
+        }
+        return new Snapshot(move, entry, capture(), eliminations);
+    }
+
+    private int[] capture() {
+        int[][] grid = board.getBoard();
+        int[] cells = new int[size * size];
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = grid[cell / size][cell % size]
+                    | board.getAnnotationMask(cell / size, cell % size) << SNAPSHOT_VALUE_BITS;
+        }
+        return cells;
+    }
+
+    /**
+     * Brings the board to a snapshot's state by applying the differences cell by cell.
+     */
+    private void restore(Snapshot snapshot) {
+        int[][] grid = board.getBoard();
+        for (int cell = 0; cell < snapshot.cells.length; cell++) {
+            int value = grid[cell / size][cell % size];
+            int target = snapshot.cells[cell] & DIGIT_MASK;
+            if (value != target) {
+                apply(cell | (value << A_SHIFT) | (target << B_SHIFT));
+            }
+            int flips = board.getAnnotationMask(cell / size, cell % size) ^ (snapshot.cells[cell] >>> SNAPSHOT_VALUE_BITS);
+            for (int bits = flips; bits != 0; bits &= bits - 1) {
+                apply(cell | ((Integer.numberOfTrailingZeros(bits) + 1) << A_SHIFT) | MARK);
+            }
+        }
+        // After the values, since clearing a cell forgets every elimination.
+        for (int cell = 0; cell < snapshot.eliminations.length; cell++) {
+            int current = board.getEliminations(cell / size, cell % size);
+            for (int bits = current ^ snapshot.eliminations[cell]; bits != 0; bits &= bits - 1) {
+                int bit = bits & -bits;
+                int eliminate = (snapshot.eliminations[cell] & bit) != 0 ? 1 : 0;
+                apply(cell | ((Integer.numberOfTrailingZeros(bit) + 1) << A_SHIFT) | (eliminate << B_SHIFT) | ELIMINATION);
+            }
+        }
+        currentMove = snapshot.move;
+        currentEntry = snapshot.entry;
+    }
+
+    private int index(long entry) {
+        return (int) (entry & (entries.length - 1));
+    }
+}
@@ -0,0 +1,221 @@
+package com.sudokumaster.model;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves and counts solutions of one puzzle on several cores, for inputs where a single
+ * search takes too long: adversarial 17-clue puzzles, near-empty grids and large boards.
+ * <p>
+ * The search tree is split as it is explored instead of at a fixed depth, because the hard
+ * part of such trees is rarely where a static split would put it. Each task runs a
+ * {@link ScalableSolver}; whenever its worker's queue is empty, it hands the untried digits of
+ * its shallowest open branch, the largest piece of work it has, to a new task that idle
+ * workers can steal. The first solution, or the second when counting for uniqueness, cancels
+ * every other task, so the answer arrives as soon as any worker finds it.
+ * <p>
+ * {@link #solve}, {@link #countSolutions} and {@link #hasUniqueSolution} are safe to call from
+ * any thread. After {@link #close} they run on the calling thread, and searches that were
+ * running when it was called are finished there too.
+ */
+public class ParallelSolver implements AutoCloseable {
+
+    private final BoardGeometry geometry;
+    private final ForkJoinPool pool;
+    // Solver owned by each worker thread, and by callers after close.
+    private final ThreadLocal<ScalableSolver> solvers;
+    // Searches in the pool, aborted by close.
+    private final Set<Search> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * Creates a solver for boards with boxes of {@code boxSize x boxSize} cells, with one worker
+     * per available processor.
+     */
+    public ParallelSolver(int boxSize) {
+        this(boxSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a solver with a fixed number of workers.
+     *
+     * @param boxSize     box size of the boards, 2 to 5.
+     * @param parallelism number of worker threads.
+     */
+    public ParallelSolver(int boxSize, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
+        this.geometry = BoardGeometry.of(boxSize);
+        this.pool = new ForkJoinPool(parallelism);
+        this.solvers = ThreadLocal.withInitial(() -> new ScalableSolver(geometry));
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Solves a puzzle, writing the first solution found into {@code solution}.
+     *
+     * @param puzzle flat array of {@code size * size} cells in row-major order, 0 for empty. Not modified.
+     * @return true if a solution was found.
+     */
+    public boolean solve(byte[] puzzle, byte[] solution) {
+        return search(puzzle, 1, solution) == 1;
+    }
+
+    /**
+     * Counts the solutions of a puzzle, stopping once {@code limit} solutions have been found.
+     *
+     * @param puzzle flat array of {@code size * size} cells in row-major order, 0 for empty. Not modified.
+     * @param limit  maximum number of solutions to look for (2 is enough to test uniqueness).
+     * @return the number of solutions found, at most {@code limit}; 0 if the givens conflict.
+     */
+    public int countSolutions(byte[] puzzle, int limit) {
+        return search(puzzle, limit, null);
+    }
+
+    /**
+     * Returns true if the puzzle has exactly one solution.
+     */
+    public boolean hasUniqueSolution(byte[] puzzle) {
+        return countSolutions(puzzle, 2) == 1;
+    }
+
+    /**
+     * Stops the workers. Searches still running are abandoned by the workers and finished on
+     * their callers' threads; later calls run on the calling thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Search search : running) {
+            search.abort();
+        }
+        // Not shutdownNow: a cancelled task never completes its parent, so the root would hang.
+        // Queued tasks of aborted searches return at once.
+        pool.shutdown();
+    }
+
+    private int search(byte[] puzzle, int limit, byte[] solution) {
+        if (puzzle.length != geometry.getCellCount()) {
+            throw new IllegalArgumentException("Puzzles must have " + geometry.getCellCount() + " cells");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be >= 1");
+        }
+        Search search = new Search(limit, solution);
+        running.add(search);
+        try {
+            // Checked after registering, so a concurrent close either sees this search or is seen here.
+            if (!closed) {
+                pool.invoke(new SubtreeTask(null, search, puzzle, -1, 0));
+            } else {
+                search.abort();
+            }
+        } catch (RejectedExecutionException | CancellationException e) {
+            search.abort();
+        } finally {
+            running.remove(search);
+        }
+        if (search.aborted) {
+            // Closed before or during the search: search on the calling thread.
+            ScalableSolver solver = solvers.get();
+            return solution != null ? (solver.solve(puzzle, solution) ? 1 : 0) : solver.countSolutions(puzzle, limit);
+        }
+        return Math.min(search.found.get(), limit);
+    }
+
+    /**
+     * Shared state of one search.
+     */
+    private static final class Search {
+        final int limit;
+        final byte[] solution;
+        final AtomicInteger found = new AtomicInteger();
+        volatile boolean cancelled;
+        // Stopped by close before it finished; the result is incomplete.
+        volatile boolean aborted;
+
+        Search(int limit, byte[] solution) {
+            this.limit = limit;
+            this.solution = solution;
+        }
+
+        boolean found(byte[] grid) {
+            int count = found.incrementAndGet();
+            if (count == 1 && solution != null) {
+                // Once aborted, the caller owns the solution array again.
+                synchronized (this) {
+                    if (!aborted) {
+                        System.arraycopy(grid, 0, solution, 0, solution.length);
+                    }
+                }
+            }
+            if (count >= limit) {
+                cancelled = true;
+            }
+            return cancelled;
+        }
+
+        synchronized void abort() {
+            aborted = true;
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Searches one subtree and hands parts of it to new tasks while workers are idle. The root
+     * completes once every task it spawned, directly or not, has completed.
+     */
+    private final class SubtreeTask extends CountedCompleter<Void> implements ScalableSolver.Splitter {
+        private final Search search;
+        private final byte[] puzzle;
+        private final int cell;
+        private final int options;
+
+        SubtreeTask(CountedCompleter<?> parent, Search search, byte[] puzzle, int cell, int options) {
+            super(parent);
+            this.search = search;
+            this.puzzle = puzzle;
+            this.cell = cell;
+            this.options = options;
+        }
+
+        @Override
+        public void compute() {
+            if (!search.cancelled) {
+                solvers.get().searchSubtree(puzzle, cell, options, this);
+            }
+            tryComplete();
+        }
+
+        @Override
+        public boolean isStopped() {
+            return search.cancelled;
+        }
+
+        @Override
+        public boolean wantsWork() {
+            return ForkJoinTask.getSurplusQueuedTaskCount() <= 0;
+        }
+
+        @Override
+        public void split(byte[] subtree, int branchCell, int branchOptions) {
+            addToPendingCount(1);
+            new SubtreeTask(this, search, subtree, branchCell, branchOptions).fork();
+        }
+
+        @Override
+        public boolean foundSolution(byte[] grid) {
+            return search.found(grid);
+        }
+    }
+}
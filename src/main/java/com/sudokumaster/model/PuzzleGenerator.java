@@ -1,190 +1,432 @@
 package com.sudokumaster.model;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.time.Duration;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Utility class for generating Sudoku puzzles with a unique solution.
- * This implementation uses backtracking to generate a complete board,
- * then removes cells based on the selected difficulty.
+ * Utility class for generating Sudoku puzzles.
+ * Generation is delegated to {@link GeneratorCore}, which fills a complete board with an
+ * iterative backtracking search and then removes cells.
+ * {@link #generateUniquePuzzle} and the batch methods return 9x9 puzzles with a unique solution
+ * whose {@link DifficultyRater} rating falls into the requested difficulty;
+ * {@link #generatePuzzle} removes a fixed number of cells at random and may leave several
+ * solutions. Both have seeded variants that always return the same puzzle for the same seed.
+ * <p>
+ * Every generated board carries the full grid its cells were removed from as its
+ * {@linkplain SudokuBoard#setSolution solution}, so answers can be checked and cells revealed
+ * without solving again. For {@link #generatePuzzle}, whose puzzles may have other solutions,
+ * this is the one the generator started from.
+ * <p>
+ * The generator has no shared mutable state: unseeded calls use a generator core owned by
+ * the calling thread and seeded from its {@link ThreadLocalRandom}, and batch generation gives
+ * every worker its own {@link SplittableRandom}, so concurrent callers never contend.
  */
 public class PuzzleGenerator {
 
-    private static final Random random = new Random();
+    // Share of cells removed per box size (index) and difficulty (EASY, MEDIUM, HARD), in percent.
+    private static final int[][] REMOVAL_PERCENT = {
+            null,
+            null,
+            {37, 50, 62},
+            null,
+            {37, 46, 55},
+            {35, 42, 49}
+    };
+    // Uniqueness checks that need more search nodes than this keep their clue.
+    private static final long CHECK_NODE_LIMIT = 1000;
+    // Full grids tried by generateScaled before it settles for the deepest cut found.
+    private static final int SCALED_ATTEMPTS = 8;
+
+    // One reusable core per thread for the unseeded entry points.
+    private static final ThreadLocal<GeneratorCore> CORES =
+            ThreadLocal.withInitial(() -> new GeneratorCore(ThreadLocalRandom.current().nextLong()));
+    private static final ThreadLocal<Canonicalizer> CANONICALIZERS = ThreadLocal.withInitial(Canonicalizer::new);
 
     /**
-     * Generates a new Sudoku puzzle based on the provided difficulty.
+     * Generates a new Sudoku puzzle by emptying random cells of a full grid. The puzzle may
+     * have several solutions, and its clue count says little about its difficulty.
      *
-     * @param difficulty the selected difficulty level.
+     * @param removals number of cells to empty, from 0 to 81.
      * @return a SudokuBoard representing the puzzle with some cells removed.
      */
-    public static SudokuBoard generatePuzzle(Difficulty difficulty) {
-        SudokuBoard board = new SudokuBoard();
-        // Fill board completely with a valid solution using backtracking.
-        fillBoard(board.getBoard());
+    public static SudokuBoard generatePuzzle(int removals) {
+        return cut(CORES.get(), removals);
+    }
 
-        // Determine the number of cells to remove based on difficulty.
-        int removals = 0;
-        switch (difficulty) {
-            case EASY:
-                removals = 30;
-                break;
-            case MEDIUM:
-                removals = 40;
-                break;
-            case HARD:
-                removals = 50;
-                break;
-        }
+    /**
+     * Generates a puzzle with {@code removals} random empty cells, determined entirely by
+     * {@code seed}.
+     *
+     * @param removals number of cells to empty, from 0 to 81.
+     * @param seed     random seed; equal seeds give equal puzzles.
+     * @return a SudokuBoard representing the puzzle with some cells removed.
+     */
+    public static SudokuBoard generatePuzzle(int removals, long seed) {
+        return cut(new GeneratorCore(seed), removals);
+    }
 
-        // Remove cells randomly.
-        removeNumbers(board.getBoard(), removals);
+    /**
+     * Generates a new Sudoku puzzle that is guaranteed to have exactly one solution and whose
+     * {@link DifficultyRater} rating falls into {@code difficulty}. Puzzles that rate at another
+     * level are discarded; see {@link GeneratorCore#generate(Difficulty, byte[], byte[])}.
+     *
+     * @param difficulty the selected difficulty level.
+     * @return a SudokuBoard representing a puzzle with a unique solution.
+     */
+    public static SudokuBoard generateUniquePuzzle(Difficulty difficulty) {
+        return generate(CORES.get(), difficulty);
+    }
+
+    /**
+     * Generates a rated puzzle with a unique solution, determined entirely by {@code seed}.
+     *
+     * @param difficulty the selected difficulty level.
+     * @param seed       random seed; equal seeds give equal puzzles.
+     * @return a SudokuBoard representing a puzzle with a unique solution.
+     */
+    public static SudokuBoard generateUniquePuzzle(Difficulty difficulty, long seed) {
+        return generate(new GeneratorCore(seed), difficulty);
+    }
+
+    /**
+     * Generates a rated puzzle with a unique solution that is not a transformed copy of any
+     * puzzle in {@code seen}. Puzzles whose canonical form is already in the index are discarded
+     * and generated again; the accepted puzzle's form is added, so concurrent callers sharing an
+     * index never return two copies of the same puzzle.
+     *
+     * @param difficulty the selected difficulty level.
+     * @param seen       canonical forms of the puzzles produced so far.
+     * @return a SudokuBoard representing a puzzle with a unique solution.
+     */
+    public static SudokuBoard generateDistinctPuzzle(Difficulty difficulty, CanonicalIndex seen) {
+        GeneratorCore core = CORES.get();
+        Canonicalizer canonicalizer = CANONICALIZERS.get();
+        byte[] cells = new byte[81];
+        byte[] solution = new byte[81];
+        byte[] form = new byte[81];
+        do {
+            core.generate(difficulty, cells, solution);
+            canonicalizer.canonicalize(cells, form);
+        } while (!seen.add(form));
+        return toBoard(cells, solution);
+    }
 
-        // Validate the board to ensure it adheres to Sudoku rules.
-        // If validation fails, regenerate the puzzle.
-        if (!validateBoard(board.getBoard())) {
-            return generatePuzzle(difficulty);
+    /**
+     * Generates a puzzle with a unique solution on a board with boxes of
+     * {@code boxSize x boxSize} cells (2 for 4x4 up to 5 for 25x25).
+     * 9x9 boards are rated as in {@link #generateUniquePuzzle(Difficulty)}. The rater only
+     * handles 9x9 boards, so other sizes fill a random grid with the {@link ScalableSolver} and
+     * remove the share of cells given by {@link #removalsFor} while the solution stays unique.
+     *
+     * @param boxSize    box size of the board.
+     * @param difficulty the selected difficulty level.
+     * @return a SudokuBoard of the requested size with a unique solution.
+     */
+    public static SudokuBoard generateUniquePuzzle(int boxSize, Difficulty difficulty) {
+        if (boxSize == 3) {
+            return generateUniquePuzzle(difficulty);
         }
+        BoardGeometry geometry = BoardGeometry.of(boxSize);
+        return generateScaled(geometry, removalsFor(geometry, difficulty), new SplittableRandom());
+    }
 
-        return board;
+    /**
+     * Generates a puzzle with a unique solution on a board of any supported size,
+     * determined entirely by {@code seed}.
+     *
+     * @param boxSize    box size of the board.
+     * @param difficulty the selected difficulty level.
+     * @param seed       random seed; equal seeds give equal puzzles.
+     * @return a SudokuBoard of the requested size with a unique solution.
+     */
+    public static SudokuBoard generateUniquePuzzle(int boxSize, Difficulty difficulty, long seed) {
+        if (boxSize == 3) {
+            return generateUniquePuzzle(difficulty, seed);
+        }
+        BoardGeometry geometry = BoardGeometry.of(boxSize);
+        return generateScaled(geometry, removalsFor(geometry, difficulty), new SplittableRandom(seed));
     }
 
     /**
-     * Uses backtracking to fill the board with a complete valid solution.
+     * Returns the number of cells removed from a full 4x4, 16x16 or 25x25 grid for a difficulty.
+     * Larger boards remove a smaller share of their cells, because proving uniqueness gets much
+     * more expensive near the minimum. 9x9 puzzles are rated instead of cut to a clue count.
      *
-     * @param board 2D int array representing the Sudoku board.
-     * @return true if the board is successfully filled.
-     */
-    private static boolean fillBoard(int[][] board) {
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                if (board[row][col] == 0) {
-                    List<Integer> numbers = getShuffledNumbers();
-                    for (int number : numbers) {
-                        if (isValidMove(board, row, col, number)) {
-                            board[row][col] = number;
-                            if (fillBoard(board)) {
-                                return true;
-                            }
-                            board[row][col] = 0;
-                        }
-                    }
-                    return false; // Trigger backtracking.
-                }
-            }
+     * @throws IllegalArgumentException if {@code geometry} is the 9x9 board.
+     */
+    public static int removalsFor(BoardGeometry geometry, Difficulty difficulty) {
+        if (geometry.getBoxSize() == 3) {
+            throw new IllegalArgumentException("9x9 puzzles are rated, not cut to a clue count");
         }
-        return true; // All cells filled.
+        int percent = REMOVAL_PERCENT[geometry.getBoxSize()][difficulty.ordinal()];
+        return geometry.getCellCount() * percent / 100;
     }
 
     /**
-     * Checks if placing a number at the given row and column is valid.
+     * Generates a puzzle whose {@link DifficultyRater} rating falls into the range of the
+     * difficulty, searching on all cores with a shared {@link TargetedGenerator}. If no
+     * matching puzzle is found within the budget, the closest one is returned.
      *
-     * @param board  2D int array representing the board.
-     * @param row    Row index.
-     * @param col    Column index.
-     * @param number Number to place.
-     * @return true if valid, false otherwise.
-     */
-    private static boolean isValidMove(int[][] board, int row, int col, int number) {
-        // Check row and column.
-        for (int i = 0; i < 9; i++) {
-            if (board[row][i] == number || board[i][col] == number) {
-                return false;
-            }
+     * @param difficulty the selected difficulty level.
+     * @param budget     maximum time to search.
+     * @return a SudokuBoard representing a puzzle with a unique solution.
+     */
+    public static SudokuBoard generateRatedPuzzle(Difficulty difficulty, Duration budget) {
+        return TargetedHolder.GENERATOR.generate(difficulty, budget).board();
+    }
+
+    /**
+     * Generates {@code count} unique puzzles rated at {@code difficulty} in parallel.
+     * The work is spread over a dedicated {@link ForkJoinPool}; every worker draws from its
+     * own {@link SplittableRandom} split off a common root, so no state is shared.
+     *
+     * @param difficulty  the selected difficulty level.
+     * @param count       number of puzzles to generate.
+     * @param parallelism number of worker threads.
+     * @return the generated puzzles.
+     */
+    public static List<SudokuBoard> generateBatch(Difficulty difficulty, int count, int parallelism) {
+        if (count < 0 || parallelism < 1) {
+            throw new IllegalArgumentException("count must be >= 0 and parallelism >= 1");
         }
-        // Check the 3x3 subgrid.
-        int blockRowStart = (row / 3) * 3;
-        int blockColStart = (col / 3) * 3;
-        for (int i = blockRowStart; i < blockRowStart + 3; i++) {
-            for (int j = blockColStart; j < blockColStart + 3; j++) {
-                if (board[i][j] == number) {
-                    return false;
-                }
-            }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // A parallel stream started from inside a pool runs its tasks in that pool.
+            return pool.submit(() -> generateStream(difficulty, count).toList()).join();
+        } finally {
+            pool.shutdown();
         }
-        return true;
     }
 
     /**
-     * Returns a list of numbers 1 through 9 in random order.
+     * Generates {@code count} unique rated puzzles in parallel, none of which is a transformed
+     * copy of another or of a puzzle already in {@code seen}.
      *
-     * @return List of integers 1-9 shuffled.
+     * @param difficulty  the selected difficulty level.
+     * @param count       number of puzzles to generate.
+     * @param parallelism number of worker threads.
+     * @param seen        canonical forms to avoid; the forms of the new puzzles are added.
+     * @return the generated puzzles.
+     * @see #generateDistinctPuzzle(Difficulty, CanonicalIndex)
      */
-    private static List<Integer> getShuffledNumbers() {
-        List<Integer> numbers = new ArrayList<>();
-        for (int i = 1; i <= 9; i++) {
-            numbers.add(i);
+    public static List<SudokuBoard> generateBatch(Difficulty difficulty, int count, int parallelism, CanonicalIndex seen) {
+        if (count < 0 || parallelism < 1) {
+            throw new IllegalArgumentException("count must be >= 0 and parallelism >= 1");
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> IntStream.range(0, count).parallel()
+                    .mapToObj(i -> generateDistinctPuzzle(difficulty, seen)).toList()).join();
+        } finally {
+            pool.shutdown();
         }
-        Collections.shuffle(numbers, random);
-        return numbers;
     }
 
     /**
-     * Removes a specified number of cells randomly from the board.
+     * Returns a parallel stream of {@code count} unique puzzles rated at {@code difficulty}.
+     * When the stream splits, each half gets its own {@link SplittableRandom} and
+     * {@link GeneratorCore}, so the stream scales across the common pool's workers.
      *
-     * @param board    2D int array representing the board.
-     * @param removals Number of cells to remove.
-     */
-    private static void removeNumbers(int[][] board, int removals) {
-        int count = 0;
-        while (count < removals) {
-            int row = random.nextInt(9);
-            int col = random.nextInt(9);
-            if (board[row][col] != 0) {
-                board[row][col] = 0;
-                count++;
+     * @param difficulty the selected difficulty level.
+     * @param count      number of puzzles in the stream.
+     * @return a parallel stream of generated puzzles.
+     */
+    public static Stream<SudokuBoard> generateStream(Difficulty difficulty, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must be >= 0");
+        }
+        return StreamSupport.stream(new PuzzleSpliterator(difficulty, 0, count, new SplittableRandom()), true);
+    }
+
+    /**
+     * Fills a random grid and removes cells in random order, keeping a removal only when the
+     * solver proves that the emptied cell cannot hold any other digit. Grids whose node-limited
+     * checks stop short of the target are retried up to {@value #SCALED_ATTEMPTS} times; after
+     * that the cut with the most removals is returned, so the call always terminates.
+     */
+    static SudokuBoard generateScaled(BoardGeometry geometry, int removals, SplittableRandom random) {
+        int cells = geometry.getCellCount();
+        ScalableSolver solver = new ScalableSolver(geometry);
+        byte[] puzzle = new byte[cells];
+        byte[] solution = new byte[cells];
+        byte[] bestPuzzle = new byte[cells];
+        byte[] bestSolution = new byte[cells];
+        int[] order = new int[cells];
+        int bestRemoved = -1;
+        for (int attempt = 0; attempt < SCALED_ATTEMPTS && bestRemoved < removals; attempt++) {
+            solver.fill(random, puzzle);
+            System.arraycopy(puzzle, 0, solution, 0, cells);
+            for (int i = 0; i < cells; i++) {
+                order[i] = i;
             }
+            for (int i = cells - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+            int removed = 0;
+            for (int i = 0; i < cells && removed < removals; i++) {
+                int cell = order[i];
+                byte value = puzzle[cell];
+                puzzle[cell] = 0;
+                // The puzzle was unique before, so it stays unique unless the cell can take another digit.
+                if (solver.hasSolutionWithout(puzzle, cell, value, CHECK_NODE_LIMIT)) {
+                    puzzle[cell] = value;
+                } else {
+                    removed++;
+                }
+            }
+            if (removed > bestRemoved) {
+                bestRemoved = removed;
+                System.arraycopy(puzzle, 0, bestPuzzle, 0, cells);
+                System.arraycopy(solution, 0, bestSolution, 0, cells);
+            }
+        }
+        int size = geometry.getSize();
+        int[][] grid = new int[size][size];
+        for (int cell = 0; cell < cells; cell++) {
+            grid[cell / size][cell % size] = bestPuzzle[cell];
         }
+        SudokuBoard board = new SudokuBoard(geometry.getBoxSize());
+        board.resetBoard(grid);
+        board.setSolution(bestSolution);
+        return board;
     }
 
     /**
-     * Validates the board to ensure that each row, column, and 3x3 block contains unique numbers.
-     * This method checks only non-zero entries.
+     * Runs a generator core until it rates a puzzle at {@code difficulty} and wraps the puzzle
+     * in a new board.
+     */
+    private static SudokuBoard generate(GeneratorCore core, Difficulty difficulty) {
+        byte[] cells = new byte[81];
+        byte[] solution = new byte[81];
+        core.generate(difficulty, cells, solution);
+        return toBoard(cells, solution);
+    }
+
+    /**
+     * Empties {@code removals} random cells of a full grid and wraps the result in a new board.
+     */
+    private static SudokuBoard cut(GeneratorCore core, int removals) {
+        byte[] cells = new byte[81];
+        byte[] solution = new byte[81];
+        core.generate(removals, false, cells, solution);
+        return toBoard(cells, solution);
+    }
+
+    private static SudokuBoard toBoard(byte[] cells, byte[] solution) {
+        int[][] grid = new int[9][9];
+        for (int cell = 0; cell < 81; cell++) {
+            grid[cell / 9][cell % 9] = cells[cell];
+        }
+        // Load the grid through resetBoard so the board builds its digit masks.
+        SudokuBoard board = new SudokuBoard();
+        board.resetBoard(grid);
+        board.setSolution(solution);
+        return board;
+    }
+
+    /**
+     * Validates the board to ensure that each row, column, and box contains unique numbers.
+     * This method checks only non-zero entries. The box size is derived from the board size,
+     * so 4x4, 9x9, 16x16 and 25x25 boards are supported.
      *
      * @param board the board to validate.
      * @return true if the board is valid, false otherwise.
      */
     public static boolean validateBoard(int[][] board) {
-        // Validate rows and columns.
-        for (int i = 0; i < 9; i++) {
-            boolean[] rowCheck = new boolean[10]; // indices 1-9.
-            boolean[] colCheck = new boolean[10];
-            for (int j = 0; j < 9; j++) {
-                int rowVal = board[i][j];
-                int colVal = board[j][i];
-                if (rowVal != 0) {
-                    if (rowCheck[rowVal]) {
-                        return false;
-                    }
-                    rowCheck[rowVal] = true;
+        BoardGeometry geometry = BoardGeometry.forSize(board.length);
+        int size = geometry.getSize();
+        // One digit bitmask per row, column and box, filled in a single pass.
+        int[] rowMasks = new int[size];
+        int[] colMasks = new int[size];
+        int[] boxMasks = new int[size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int val = board[row][col];
+                if (val == 0) {
+                    continue;
                 }
-                if (colVal != 0) {
-                    if (colCheck[colVal]) {
-                        return false;
-                    }
-                    colCheck[colVal] = true;
+                if (val < 0 || val > size) {
+                    return false;
                 }
-            }
-        }
-        // Validate 3x3 blocks.
-        for (int blockRow = 0; blockRow < 3; blockRow++) {
-            for (int blockCol = 0; blockCol < 3; blockCol++) {
-                boolean[] blockCheck = new boolean[10];
-                for (int i = 0; i < 3; i++) {
-                    for (int j = 0; j < 3; j++) {
-                        int val = board[blockRow * 3 + i][blockCol * 3 + j];
-                        if (val != 0) {
-                            if (blockCheck[val]) {
-                                return false;
-                            }
-                            blockCheck[val] = true;
-                        }
-                    }
+                int bit = 1 << (val - 1);
+                int box = geometry.boxIndex(row, col);
+                if (((rowMasks[row] | colMasks[col] | boxMasks[box]) & bit) != 0) {
+                    return false;
                 }
+                rowMasks[row] |= bit;
+                colMasks[col] |= bit;
+                boxMasks[box] |= bit;
             }
         }
         return true;
     }
+
+    /**
+     * Lazily created shared generator; its workers are daemon threads.
+     */
+    private static final class TargetedHolder {
+        static final TargetedGenerator GENERATOR = new TargetedGenerator();
+    }
+
+    /**
+     * Spliterator that generates puzzles on demand. Splitting hands half of the remaining
+     * range to a new spliterator with its own split random source and generator core.
+     */
+    private static final class PuzzleSpliterator implements Spliterator<SudokuBoard> {
+        private final Difficulty difficulty;
+        private final SplittableRandom random;
+        private final GeneratorCore core;
+        private long index;
+        private final long fence;
+
+        PuzzleSpliterator(Difficulty difficulty, long index, long fence, SplittableRandom random) {
+            this.difficulty = difficulty;
+            this.index = index;
+            this.fence = fence;
+            this.random = random;
+            this.core = new GeneratorCore(random.nextLong());
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super SudokuBoard> action) {
+            if (index >= fence) {
+                return false;
+            }
+            index++;
+            action.accept(generate(core, difficulty));
+            return true;
+        }
+
+        @Override
+        public Spliterator<SudokuBoard> trySplit() {
+            long mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            PuzzleSpliterator prefix = new PuzzleSpliterator(difficulty, index, mid, random.split());
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
 }
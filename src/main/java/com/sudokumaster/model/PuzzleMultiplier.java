@@ -0,0 +1,258 @@
+package com.sudokumaster.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Produces new 9x9 puzzles from a set of vetted seed puzzles by applying random symmetry
+ * transforms: digit relabeling, row permutations within bands, column permutations within
+ * stacks, band and stack permutations, and transposition.
+ * <p>
+ * A transform maps every solution of the seed to a solution of the copy and keeps the shape of
+ * every row, column and box, so the copy has a unique solution and needs exactly the techniques
+ * the seed needs. Its difficulty is therefore known without solving or rating it. Seeds are
+ * rated once when they are added, or come from an already rated source such as a puzzle bank.
+ * <p>
+ * Seeds are stored per difficulty in flat arrays of 81 cells each, next to their solutions,
+ * which are found once when the seed is added. An output draws a single random long, decodes
+ * it into the permutations (9! x 6^8 x 2 combinations, about 1.2 * 10^12 per seed) and remaps
+ * the seed's cells, and optionally its solution, in one pass, so nothing is allocated per
+ * puzzle. All copies of a seed share its canonical form ({@link Canonicalizer}), so a
+ * {@link CanonicalIndex} treats them as one puzzle. Instances are not thread-safe.
+ */
+public class PuzzleMultiplier {
+
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+
+    // The 6 permutations of 0..2.
+    private static final byte[][] PERMUTATIONS = {
+            {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+
+    private final SplittableRandom random;
+    // Seeds per difficulty ordinal, 81 cells each, and how many are stored.
+    private final byte[][] seeds = new byte[Difficulty.values().length][];
+    // The seeds' solutions, laid out like the seeds.
+    private final byte[][] solutions = new byte[Difficulty.values().length][];
+    private final int[] seedCounts = new int[Difficulty.values().length];
+    private SolutionCounter counter;
+    private DifficultyRater rater;
+
+    // The current transform: digit -> digit, output row -> seed row, output column -> seed column.
+    private final byte[] digitMap = new byte[SIZE + 1];
+    private final int[] rowMap = new int[SIZE];
+    private final int[] colMap = new int[SIZE];
+    private boolean transpose;
+
+    /**
+     * Creates a multiplier with a randomly seeded random source.
+     */
+    public PuzzleMultiplier() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Creates a multiplier whose outputs are determined by {@code seed} and the seeds added.
+     */
+    public PuzzleMultiplier(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private PuzzleMultiplier(SplittableRandom random) {
+        this.random = random;
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = new byte[16 * CELLS];
+            solutions[i] = new byte[16 * CELLS];
+        }
+    }
+
+    /**
+     * Checks that a puzzle has a unique solution, rates it and adds it as a seed of the rated
+     * difficulty.
+     *
+     * @param puzzle flat array of 81 cells in row-major order, 0 for empty cells. Copied.
+     * @return the puzzle's rating.
+     * @throws IllegalArgumentException if the puzzle does not have exactly one solution.
+     */
+    public Rating addSeed(byte[] puzzle) {
+        checkCells(puzzle);
+        if (!counter().hasUniqueSolution(puzzle)) {
+            throw new IllegalArgumentException("Seed puzzles must have exactly one solution");
+        }
+        if (rater == null) {
+            rater = new DifficultyRater();
+        }
+        Rating rating = rater.rate(puzzle);
+        add(puzzle, rating.difficulty());
+        return rating;
+    }
+
+    /**
+     * Adds a seed that is already known to have a unique solution and the given difficulty.
+     * Only its solution is searched for, not its rating.
+     *
+     * @param puzzle     flat array of 81 cells in row-major order, 0 for empty cells. Copied.
+     * @param difficulty the puzzle's difficulty.
+     * @throws IllegalArgumentException if the puzzle has no solution.
+     */
+    public void addSeed(byte[] puzzle, Difficulty difficulty) {
+        checkCells(puzzle);
+        add(puzzle, difficulty);
+    }
+
+    /**
+     * Returns the number of seeds of a difficulty.
+     */
+    public int getSeedCount(Difficulty difficulty) {
+        return seedCounts[difficulty.ordinal()];
+    }
+
+    /**
+     * Writes a randomly transformed copy of a random seed of the given difficulty.
+     *
+     * @param difficulty the difficulty of the puzzle.
+     * @param out        receives the 81 cells of the new puzzle.
+     * @throws IllegalStateException if there is no seed of that difficulty.
+     */
+    public void next(Difficulty difficulty, byte[] out) {
+        next(difficulty, out, null);
+    }
+
+    /**
+     * Writes a randomly transformed copy of a random seed of the given difficulty, along with
+     * the copy's solution.
+     *
+     * @param difficulty the difficulty of the puzzle.
+     * @param out        receives the 81 cells of the new puzzle.
+     * @param solution   receives the 81 cells of its solution, or null.
+     * @throws IllegalStateException if there is no seed of that difficulty.
+     */
+    public void next(Difficulty difficulty, byte[] out, byte[] solution) {
+        int count = seedCounts[difficulty.ordinal()];
+        if (count == 0) {
+            throw new IllegalStateException("No seed puzzles of difficulty " + difficulty);
+        }
+        if (out.length != CELLS || (solution != null && solution.length != CELLS)) {
+            throw new IllegalArgumentException("Puzzles must have " + CELLS + " cells");
+        }
+        randomize(random.nextLong());
+        int d = difficulty.ordinal();
+        remap(seeds[d], solutions[d], random.nextInt(count) * CELLS, out, solution);
+    }
+
+    /**
+     * Returns a randomly transformed copy of a random seed of the given difficulty as a board,
+     * with its solution attached.
+     *
+     * @throws IllegalStateException if there is no seed of that difficulty.
+     */
+    public SudokuBoard nextBoard(Difficulty difficulty) {
+        byte[] cells = new byte[CELLS];
+        byte[] solution = new byte[CELLS];
+        next(difficulty, cells, solution);
+        int[][] grid = new int[SIZE][SIZE];
+        for (int cell = 0; cell < CELLS; cell++) {
+            grid[cell / SIZE][cell % SIZE] = cells[cell];
+        }
+        SudokuBoard board = new SudokuBoard();
+        board.resetBoard(grid);
+        board.setSolution(solution);
+        return board;
+    }
+
+    /**
+     * Decodes 64 random bits into a transform. The digit shuffle takes 9! values, the eight
+     * permutations of bands, stacks, rows and columns 6^8, and the transpose flag 2; together
+     * about 2^41, so the bits are used as one mixed-radix number.
+     */
+    void randomize(long bits) {
+        long rest = bits >>> 1;
+        for (int digit = 0; digit <= SIZE; digit++) {
+            digitMap[digit] = (byte) digit;
+        }
+        for (int i = SIZE; i > 1; i--) {
+            int j = 1 + (int) (rest % i);
+            rest /= i;
+            byte swap = digitMap[i];
+            digitMap[i] = digitMap[j];
+            digitMap[j] = swap;
+        }
+        rest = decodeLines(rest, rowMap);
+        rest = decodeLines(rest, colMap);
+        transpose = (rest & 1) != 0;
+    }
+
+    /**
+     * Fills an output line -> seed line map from four permutations of 3: one for the bands (or
+     * stacks) and one for the lines within each.
+     */
+    private static long decodeLines(long rest, int[] map) {
+        byte[] blocks = PERMUTATIONS[(int) (rest % 6)];
+        rest /= 6;
+        for (int block = 0; block < 3; block++) {
+            byte[] lines = PERMUTATIONS[(int) (rest % 6)];
+            rest /= 6;
+            int base = blocks[block] * 3;
+            map[block * 3] = base + lines[0];
+            map[block * 3 + 1] = base + lines[1];
+            map[block * 3 + 2] = base + lines[2];
+        }
+        return rest;
+    }
+
+    /**
+     * Applies the current transform to the seed at {@code offset} and, if {@code solutionOut}
+     * is not null, to its solution in the same pass.
+     */
+    void remap(byte[] source, byte[] solutionSource, int offset, byte[] out, byte[] solutionOut) {
+        byte[] digits = digitMap;
+        // Moving to the next output column steps one seed row when transposed, one cell otherwise.
+        int rowStride = transpose ? 1 : SIZE;
+        int colStride = transpose ? SIZE : 1;
+        for (int row = 0; row < SIZE; row++) {
+            int base = offset + rowMap[row] * rowStride;
+            for (int col = 0; col < SIZE; col++) {
+                int from = base + colMap[col] * colStride;
+                out[row * SIZE + col] = digits[source[from]];
+                if (solutionOut != null) {
+                    solutionOut[row * SIZE + col] = digits[solutionSource[from]];
+                }
+            }
+        }
+    }
+
+    private void add(byte[] puzzle, Difficulty difficulty) {
+        byte[] solution = new byte[CELLS];
+        if (!counter().solve(puzzle, solution)) {
+            throw new IllegalArgumentException("Seed puzzles must have a solution");
+        }
+        int d = difficulty.ordinal();
+        int count = seedCounts[d];
+        if ((count + 1) * CELLS > seeds[d].length) {
+            seeds[d] = Arrays.copyOf(seeds[d], seeds[d].length * 2);
+            solutions[d] = Arrays.copyOf(solutions[d], solutions[d].length * 2);
+        }
+        System.arraycopy(puzzle, 0, seeds[d], count * CELLS, CELLS);
+        System.arraycopy(solution, 0, solutions[d], count * CELLS, CELLS);
+        seedCounts[d] = count + 1;
+    }
+
+    private SolutionCounter counter() {
+        if (counter == null) {
+            counter = new SolutionCounter();
+        }
+        return counter;
+    }
+
+    private static void checkCells(byte[] puzzle) {
+        if (puzzle.length != CELLS) {
+            throw new IllegalArgumentException("Puzzles must have " + CELLS + " cells");
+        }
+        for (byte value : puzzle) {
+            if (value < 0 || value > SIZE) {
+                throw new IllegalArgumentException("Invalid cell value " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.sudokumaster.model;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded pool of pre-generated puzzles for each {@link Difficulty}.
+ * <p>
+ * Low-priority daemon workers keep every pool filled: when a take leaves fewer than
+ * {@code lowWaterMark} puzzles, a refill is scheduled that generates puzzles until
+ * {@code highWaterMark} are ready. A generator may return null for an attempt it rejects; the
+ * refill drops it and tries again. {@link #take} is safe to call from any thread and never
+ * blocks on a refill; when the pool is empty it generates a puzzle inline with the miss
+ * generator, which should be cheap because the caller may be the UI thread, and counts a miss.
+ */
+public class PuzzlePool implements AutoCloseable {
+
+    /**
+     * Snapshot of the counters for one difficulty.
+     *
+     * @param available          puzzles ready in the pool.
+     * @param hits               takes served from the pool.
+     * @param misses             takes that had to generate inline.
+     * @param refills            completed refill runs.
+     * @param averageRefillNanos mean time of a refill run, from trigger to high water mark.
+     * @param averageGenerateNanos mean time to generate one puzzle in the background.
+     */
+    public record Statistics(int available, long hits, long misses, long refills,
+                             long averageRefillNanos, long averageGenerateNanos) {
+    }
+
+    // Time allowed for finding a puzzle that is rated at the requested difficulty.
+    private static final Duration DEFAULT_BUDGET = Duration.ofSeconds(2);
+    // Refilled puzzles kept per difficulty as seeds for the default pool's misses.
+    private static final int MAX_MISS_SEEDS = 64;
+
+    private final int lowWaterMark;
+    private final int highWaterMark;
+    private final Function<Difficulty, SudokuBoard> generator;
+    private final Function<Difficulty, SudokuBoard> missGenerator;
+    // Rated generator owned by the default pool, closed with it; null otherwise.
+    private final TargetedGenerator ratedGenerator;
+    private final ExecutorService workers;
+    private final Map<Difficulty, Slot> slots = new EnumMap<>(Difficulty.class);
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool keeping between 4 and 16 unique puzzles per difficulty, with one refill
+     * worker per difficulty so an empty pool never waits behind another difficulty's refill.
+     * Refills are searched by a {@link TargetedGenerator} of the pool's own whose workers run
+     * at minimum priority; searches that run out of budget before matching the difficulty's
+     * rating are dropped. Every accepted puzzle also seeds a {@link PuzzleMultiplier}, so a
+     * miss is served in microseconds by a transformed copy of an earlier rated puzzle. Only a
+     * miss before the first refill of its difficulty generates a rated puzzle inline.
+     */
+    public PuzzlePool() {
+        this(new TargetedGenerator(Runtime.getRuntime().availableProcessors(), Thread.MIN_PRIORITY),
+                new PuzzleMultiplier());
+    }
+
+    private PuzzlePool(TargetedGenerator rated, PuzzleMultiplier missSeeds) {
+        this(4, 16, Difficulty.values().length,
+                difficulty -> generateRated(rated, missSeeds, difficulty),
+                difficulty -> copyRated(missSeeds, difficulty), rated);
+    }
+
+    /**
+     * Creates a pool and starts filling it in the background. Misses use the same generator.
+     *
+     * @param lowWaterMark  a refill starts when fewer puzzles than this are available.
+     * @param highWaterMark capacity of each pool; a refill stops here.
+     * @param workerCount   number of background refill threads.
+     * @param generator     produces a puzzle for a difficulty, or null to drop the attempt;
+     *                      called concurrently by the workers.
+     */
+    public PuzzlePool(int lowWaterMark, int highWaterMark, int workerCount,
+                      Function<Difficulty, SudokuBoard> generator) {
+        this(lowWaterMark, highWaterMark, workerCount, generator, generator, null);
+    }
+
+    /**
+     * Creates a pool and starts filling it in the background.
+     *
+     * @param lowWaterMark  a refill starts when fewer puzzles than this are available.
+     * @param highWaterMark capacity of each pool; a refill stops here.
+     * @param workerCount   number of background refill threads.
+     * @param generator     produces a puzzle for a difficulty, or null to drop the attempt;
+     *                      called concurrently by the workers.
+     * @param missGenerator produces the puzzle for a take that finds the pool empty, on the
+     *                      taking thread.
+     */
+    public PuzzlePool(int lowWaterMark, int highWaterMark, int workerCount,
+                      Function<Difficulty, SudokuBoard> generator,
+                      Function<Difficulty, SudokuBoard> missGenerator) {
+        this(lowWaterMark, highWaterMark, workerCount, generator, missGenerator, null);
+    }
+
+    private PuzzlePool(int lowWaterMark, int highWaterMark, int workerCount,
+                       Function<Difficulty, SudokuBoard> generator,
+                       Function<Difficulty, SudokuBoard> missGenerator, TargetedGenerator ratedGenerator) {
+        if (lowWaterMark < 0 || highWaterMark < 1 || lowWaterMark > highWaterMark || workerCount < 1) {
+            throw new IllegalArgumentException("Require 0 <= lowWaterMark <= highWaterMark, highWaterMark >= 1 and workerCount >= 1");
+        }
+        this.lowWaterMark = lowWaterMark;
+        this.highWaterMark = highWaterMark;
+        this.generator = generator;
+        this.missGenerator = missGenerator;
+        this.ratedGenerator = ratedGenerator;
+        this.workers = Executors.newFixedThreadPool(workerCount, new RefillThreadFactory());
+        for (Difficulty difficulty : Difficulty.values()) {
+            slots.put(difficulty, new Slot(highWaterMark));
+        }
+        for (Difficulty difficulty : Difficulty.values()) {
+            scheduleRefill(difficulty);
+        }
+    }
+
+    /**
+     * Takes a ready puzzle of the given difficulty, generating one inline with the miss
+     * generator if the pool is empty.
+     *
+     * @param difficulty the selected difficulty level.
+     * @return a puzzle owned by the caller.
+     */
+    public SudokuBoard take(Difficulty difficulty) {
+        Slot slot = slots.get(difficulty);
+        SudokuBoard board = slot.puzzles.poll();
+        if (board != null) {
+            slot.hits.increment();
+        } else {
+            slot.misses.increment();
+        }
+        if (slot.puzzles.size() < lowWaterMark || board == null) {
+            scheduleRefill(difficulty);
+        }
+        return board != null ? board : missGenerator.apply(difficulty);
+    }
+
+    /**
+     * Returns the current counters for a difficulty.
+     */
+    public Statistics getStatistics(Difficulty difficulty) {
+        Slot slot = slots.get(difficulty);
+        long refills = slot.refills.sum();
+        long generated = slot.generated.sum();
+        return new Statistics(
+                slot.puzzles.size(),
+                slot.hits.sum(),
+                slot.misses.sum(),
+                refills,
+                refills == 0 ? 0 : slot.refillNanos.sum() / refills,
+                generated == 0 ? 0 : slot.generateNanos.sum() / generated);
+    }
+
+    public int getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Stops the refill workers. Puzzles already in the pool can still be taken.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        workers.shutdownNow();
+        if (ratedGenerator != null) {
+            ratedGenerator.close();
+        }
+    }
+
+    private void scheduleRefill(Difficulty difficulty) {
+        Slot slot = slots.get(difficulty);
+        // At most one refill per difficulty is queued or running.
+        if (closed || !slot.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        long triggered = System.nanoTime();
+        try {
+            workers.execute(() -> refill(difficulty, slot, triggered));
+        } catch (RejectedExecutionException e) {
+            slot.refilling.set(false);
+        }
+    }
+
+    private void refill(Difficulty difficulty, Slot slot, long triggered) {
+        try {
+            while (!closed && slot.puzzles.size() < highWaterMark) {
+                long start = System.nanoTime();
+                SudokuBoard board = generator.apply(difficulty);
+                slot.generateNanos.add(System.nanoTime() - start);
+                slot.generated.increment();
+                // Drop rejected attempts, and puzzles finished after the pool was closed.
+                if (board == null || closed) {
+                    continue;
+                }
+                if (!slot.puzzles.offer(board)) {
+                    break;
+                }
+            }
+            slot.refillNanos.add(System.nanoTime() - triggered);
+            slot.refills.increment();
+        } finally {
+            slot.refilling.set(false);
+        }
+        // Takes that raced with the end of this run may have left the pool low again.
+        if (slot.puzzles.size() < lowWaterMark) {
+            scheduleRefill(difficulty);
+        }
+    }
+
+    /**
+     * Refill generator of the default pool: a puzzle rated at the difficulty, or null if the
+     * search ran out of budget. Accepted puzzles are also kept as seeds for misses.
+     */
+    private static SudokuBoard generateRated(TargetedGenerator rated, PuzzleMultiplier missSeeds,
+                                             Difficulty difficulty) {
+        TargetedGenerator.Result result = rated.generate(difficulty, DEFAULT_BUDGET);
+        if (!result.matched()) {
+            return null;
+        }
+        int[][] grid = result.board().getBoard();
+        byte[] cells = new byte[81];
+        for (int cell = 0; cell < 81; cell++) {
+            cells[cell] = (byte) grid[cell / 9][cell % 9];
+        }
+        synchronized (missSeeds) {
+            if (missSeeds.getSeedCount(difficulty) < MAX_MISS_SEEDS) {
+                missSeeds.addSeed(cells, difficulty);
+            }
+        }
+        return result.board();
+    }
+
+    /**
+     * Miss generator of the default pool: a transformed copy of a refilled puzzle, which keeps
+     * its rating. Before the first refill of a difficulty a rated puzzle is generated inline.
+     */
+    private static SudokuBoard copyRated(PuzzleMultiplier missSeeds, Difficulty difficulty) {
+        synchronized (missSeeds) {
+            if (missSeeds.getSeedCount(difficulty) > 0) {
+                return missSeeds.nextBoard(difficulty);
+            }
+        }
+        return PuzzleGenerator.generateUniquePuzzle(difficulty);
+    }
+
+    /**
+     * Puzzles and counters for one difficulty.
+     */
+    private static final class Slot {
+        final BlockingQueue<SudokuBoard> puzzles;
+        final AtomicBoolean refilling = new AtomicBoolean();
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder refills = new LongAdder();
+        final LongAdder refillNanos = new LongAdder();
+        final LongAdder generated = new LongAdder();
+        final LongAdder generateNanos = new LongAdder();
+
+        Slot(int capacity) {
+            puzzles = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /**
+     * Creates low-priority daemon threads so refills never compete with the UI or keep the JVM alive.
+     */
+    private static final class RefillThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "puzzle-pool-refill-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.sudokumaster.model;
+
+/**
+ * Result of rating a puzzle with {@link DifficultyRater}.
+ *
+ * @param score   numeric rating: the score of the hardest technique needed, or 0 for invalid puzzles.
+ * @param hardest hardest technique needed, or null for invalid puzzles.
+ * @param steps   number of technique applications made before the puzzle was solved or stalled.
+ * @param valid   false if the givens conflict or the logic ran into a contradiction.
+ */
+public record Rating(int score, Technique hardest, int steps, boolean valid) {
+
+    /**
+     * Returns the difficulty tier for this rating, or null for invalid puzzles.
+     */
+    public Difficulty difficulty() {
+        return valid ? Difficulty.forRating(score) : null;
+    }
+}
@@ -0,0 +1,485 @@
+package com.sudokumaster.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Solver, solution counter and random filler for boards of any supported size.
+ * <p>
+ * The 9x9 engines branch blindly on the emptiest cell, which is fine for 81 cells but does not
+ * scale: a 25x25 grid has 625 cells and 25 digits. This solver keeps an {@code int} candidate
+ * mask per cell and propagates every placement before branching: naked singles (a cell with one
+ * candidate) and hidden singles (a digit with one place in a unit) are placed immediately, and a
+ * cell or unit left without options cuts the branch. Every mask change is recorded on a trail,
+ * so backtracking restores the exact previous state without copying the grid. It then branches
+ * on the cell with the fewest candidates.
+ * <p>
+ * All working state is preallocated for one {@link BoardGeometry}. Instances are not thread-safe.
+ */
+public class ScalableSolver {
+
+    // A random fill that takes this many nodes per cell is abandoned and restarted.
+    private static final int FILL_NODES_PER_CELL = 64;
+    // Search nodes between checks for cancellation and idle workers in a split search.
+    private static final int SPLIT_CHECK_NODES = 256;
+
+    /**
+     * Coordinates a search whose subtrees are shared with other solvers.
+     */
+    interface Splitter {
+        /**
+         * Returns true once the shared search has its answer.
+         */
+        boolean isStopped();
+
+        /**
+         * Returns true if other workers are waiting for work.
+         */
+        boolean wantsWork();
+
+        /**
+         * Hands over a subtree: {@code puzzle} with {@code cell} branching on the digits in {@code options}.
+         */
+        void split(byte[] puzzle, int cell, int options);
+
+        /**
+         * Reports a solution.
+         *
+         * @return true if the shared search has found enough solutions.
+         */
+        boolean foundSolution(byte[] grid);
+    }
+
+    private final BoardGeometry geometry;
+    private final int size;
+    private final int cells;
+    private final int allDigits;
+    private final byte[] grid;
+    private final int[] candidates;
+    // Trail of (cell, previous mask) pairs, undone on backtrack.
+    private final int[] trailCell;
+    private final int[] trailMask;
+    private int trailSize;
+    // Cells placed since the last propagation.
+    private final int[] pending;
+    private int pendingCount;
+    private int filled;
+    private int limit;
+    private int solutions;
+    private long nodes;
+    private long nodeLimit;
+    private byte[] solutionOut;
+    // Solution that does not count while searching for another one, or null.
+    private byte[] avoid;
+    // Open branches along the current search path: cell, digits left to try, digit being tried.
+    private final int[] frameCell;
+    private final int[] frameOptions;
+    private final int[] frameBit;
+    // Split search state: the subtree's puzzle, its first branch, and the next check.
+    private Splitter splitter;
+    private byte[] base;
+    private int firstCell = -1;
+    private int firstOptions;
+    private long nextCheck;
+    private SplittableRandom random;
+
+    /**
+     * Creates a solver for boards with boxes of {@code boxSize x boxSize} cells.
+     */
+    public ScalableSolver(int boxSize) {
+        this(BoardGeometry.of(boxSize));
+    }
+
+    public ScalableSolver(BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.size = geometry.getSize();
+        this.cells = geometry.getCellCount();
+        this.allDigits = geometry.getAllDigits();
+        this.grid = new byte[cells];
+        this.candidates = new int[cells];
+        // Each cell loses at most one bit per digit and is placed once along any search path.
+        this.trailCell = new int[cells * (size + 1)];
+        this.trailMask = new int[cells * (size + 1)];
+        this.pending = new int[cells];
+        this.frameCell = new int[cells];
+        this.frameOptions = new int[cells];
+        this.frameBit = new int[cells];
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Counts the solutions of a puzzle, stopping once {@code limit} solutions have been found.
+     *
+     * @param puzzle flat array of {@code size * size} cells in row-major order, 0 for empty. Not modified.
+     * @param limit  maximum number of solutions to look for (2 is enough to test uniqueness).
+     * @return the number of solutions found, at most {@code limit}; 0 if the givens conflict.
+     */
+    public int countSolutions(byte[] puzzle, int limit) {
+        return run(puzzle, limit, null, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns true if the puzzle has exactly one solution.
+     */
+    public boolean hasUniqueSolution(byte[] puzzle) {
+        return countSolutions(puzzle, 2) == 1;
+    }
+
+    /**
+     * Returns true if the puzzle has a solution in which {@code cell} does not hold {@code digit}.
+     * <p>
+     * This is the cheap way to test a removal: if a puzzle has a unique solution with
+     * {@code digit} at {@code cell}, then after emptying that cell it is still unique exactly when
+     * this returns false. The search only has to rule out the alternatives instead of finding the
+     * known solution again and then exhausting the whole tree.
+     */
+    public boolean hasSolutionWithout(byte[] puzzle, int cell, int digit) {
+        return hasSolutionWithout(puzzle, cell, digit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #hasSolutionWithout(byte[], int, int)}, but gives up after {@code nodeLimit}
+     * search nodes and then answers true. The answer is conservative: false always means the
+     * alternative was ruled out, so a generator using it never accepts an ambiguous removal.
+     */
+    public boolean hasSolutionWithout(byte[] puzzle, int cell, int digit, long nodeLimit) {
+        return run(puzzle, 1, null, null, nodeLimit, cell, 1 << (digit - 1)) == 1 || nodes > nodeLimit;
+    }
+
+    /**
+     * Like {@link #hasSolutionWithout(byte[], int, int)}, but also writes the solution found.
+     *
+     * @return true if a solution without {@code digit} at {@code cell} was written to {@code solution}.
+     */
+    public boolean findSolutionWithout(byte[] puzzle, int cell, int digit, byte[] solution) {
+        return run(puzzle, 1, solution, null, Long.MAX_VALUE, cell, 1 << (digit - 1)) == 1;
+    }
+
+    /**
+     * Finds a solution of a puzzle other than {@code known}, which must be one of its solutions.
+     * This tests uniqueness and returns the evidence: the cells where the two solutions differ
+     * form an unavoidable set, which every puzzle with the solution {@code known} must hit with a
+     * given to be unique.
+     *
+     * @return true if another solution was found and written to {@code other}.
+     */
+    public boolean findOtherSolution(byte[] puzzle, byte[] known, byte[] other) {
+        avoid = known;
+        try {
+            return run(puzzle, 1, other, null, Long.MAX_VALUE) == 1;
+        } finally {
+            avoid = null;
+        }
+    }
+
+    /**
+     * Solves a puzzle, writing the first solution found into {@code solution}.
+     *
+     * @return true if a solution was found.
+     */
+    public boolean solve(byte[] puzzle, byte[] solution) {
+        return run(puzzle, 1, solution, null, Long.MAX_VALUE) == 1;
+    }
+
+    /**
+     * Fills {@code solution} with a random complete grid. Branches try digits in random order;
+     * a search that runs unusually long is restarted with fresh random choices.
+     */
+    public void fill(SplittableRandom random, byte[] solution) {
+        byte[] empty = new byte[cells];
+        while (run(empty, 1, solution, random, (long) FILL_NODES_PER_CELL * cells) != 1) {
+            // Unlucky early choices; try again.
+        }
+    }
+
+    /**
+     * Returns the number of search nodes (branch assignments) during the last call.
+     */
+    public long getLastNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Searches one subtree of a split search: {@code puzzle} with {@code cell} branching first
+     * on the digits in {@code options}, or a plain search if {@code cell} is -1. Solutions are
+     * reported to the splitter, and whenever it wants work the untried digits of the shallowest
+     * open branch are handed over as a new subtree.
+     */
+    void searchSubtree(byte[] puzzle, int cell, int options, Splitter splitter) {
+        this.splitter = splitter;
+        this.base = puzzle;
+        this.firstCell = cell;
+        this.firstOptions = options;
+        this.nextCheck = 0;
+        try {
+            run(puzzle, Integer.MAX_VALUE, null, null, Long.MAX_VALUE);
+        } finally {
+            this.splitter = null;
+            this.base = null;
+            this.firstCell = -1;
+        }
+    }
+
+    private int run(byte[] puzzle, int limit, byte[] solutionOut, SplittableRandom random, long nodeLimit) {
+        return run(puzzle, limit, solutionOut, random, nodeLimit, -1, 0);
+    }
+
+    private int run(byte[] puzzle, int limit, byte[] solutionOut, SplittableRandom random, long nodeLimit,
+                    int excludedCell, int excludedBit) {
+        this.limit = limit;
+        this.solutionOut = solutionOut;
+        this.random = random;
+        this.nodeLimit = nodeLimit;
+        this.solutions = 0;
+        this.nodes = 0;
+        trailSize = 0;
+        pendingCount = 0;
+        filled = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            grid[cell] = 0;
+            candidates[cell] = allDigits;
+        }
+        boolean consistent = true;
+        if (excludedCell >= 0) {
+            candidates[excludedCell] &= ~excludedBit;
+            if ((candidates[excludedCell] & (candidates[excludedCell] - 1)) == 0) {
+                pending[pendingCount++] = excludedCell;
+            }
+        }
+        for (int cell = 0; cell < cells && consistent; cell++) {
+            int value = puzzle[cell];
+            if (value != 0) {
+                int bit = 1 << (value - 1);
+                consistent = (candidates[cell] & bit) != 0 && assign(cell, bit);
+            }
+        }
+        if (consistent && propagate()) {
+            search(0);
+        }
+        this.solutionOut = null;
+        this.random = null;
+        return solutions;
+    }
+
+    /**
+     * Searches from the current state.
+     *
+     * @return true when the search should stop (limit reached or node budget spent).
+     */
+    private boolean search(int depth) {
+        if (depth == 0 && firstCell >= 0 && grid[firstCell] != 0) {
+            // Propagation already placed the first branch cell.
+            if ((candidates[firstCell] & firstOptions) == 0) {
+                return false;
+            }
+            firstCell = -1;
+        }
+        if (filled == cells) {
+            if (avoid != null && Arrays.equals(grid, avoid)) {
+                return false;
+            }
+            if (splitter != null) {
+                solutions++;
+                return splitter.foundSolution(grid);
+            }
+            if (solutions == 0 && solutionOut != null) {
+                System.arraycopy(grid, 0, solutionOut, 0, cells);
+            }
+            return ++solutions >= limit;
+        }
+        int best = -1;
+        int options;
+        if (depth == 0 && firstCell >= 0) {
+            best = firstCell;
+            options = candidates[best] & firstOptions;
+        } else {
+            int bestCount = Integer.MAX_VALUE;
+            for (int cell = 0; cell < cells; cell++) {
+                if (grid[cell] == 0) {
+                    int count = Integer.bitCount(candidates[cell]);
+                    if (count < bestCount) {
+                        bestCount = count;
+                        best = cell;
+                        if (count == 2) {
+                            break;
+                        }
+                    }
+                }
+            }
+            options = candidates[best];
+        }
+        int mark = trailSize;
+        int filledMark = filled;
+        frameCell[depth] = best;
+        frameOptions[depth] = options;
+        while (frameOptions[depth] != 0) {
+            options = frameOptions[depth];
+            int bit = random == null ? options & -options : randomBit(options);
+            frameOptions[depth] = options ^ bit;
+            frameBit[depth] = bit;
+            if (++nodes > nodeLimit) {
+                return true;
+            }
+            if (splitter != null && nodes >= nextCheck && checkSplit(depth)) {
+                return true;
+            }
+            pendingCount = 0;
+            if (assign(best, bit) && propagate() && search(depth + 1)) {
+                return true;
+            }
+            undo(mark);
+            filled = filledMark;
+        }
+        return false;
+    }
+
+    /**
+     * Stops a cancelled split search, or hands over the untried digits of the shallowest open
+     * branch if other workers want work.
+     *
+     * @return true if the search was cancelled.
+     */
+    private boolean checkSplit(int depth) {
+        nextCheck = nodes + SPLIT_CHECK_NODES;
+        if (splitter.isStopped()) {
+            return true;
+        }
+        if (!splitter.wantsWork()) {
+            return false;
+        }
+        for (int level = 0; level <= depth; level++) {
+            if (frameOptions[level] != 0) {
+                byte[] puzzle = base.clone();
+                for (int i = 0; i < level; i++) {
+                    puzzle[frameCell[i]] = (byte) (Integer.numberOfTrailingZeros(frameBit[i]) + 1);
+                }
+                splitter.split(puzzle, frameCell[level], frameOptions[level]);
+                frameOptions[level] = 0;
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places a digit and removes it from the peers' candidates.
+     *
+     * @return false if some peer is left without candidates.
+     */
+    private boolean assign(int cell, int bit) {
+        setMask(cell, bit);
+        grid[cell] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+        filled++;
+        int peerCount = geometry.getPeerCount();
+        int base = cell * peerCount;
+        for (int i = base; i < base + peerCount; i++) {
+            int peer = geometry.peers[i];
+            int mask = candidates[peer];
+            if ((mask & bit) != 0) {
+                if (grid[peer] != 0) {
+                    return false; // The peer already holds this digit.
+                }
+                mask &= ~bit;
+                if (mask == 0) {
+                    return false;
+                }
+                setMask(peer, mask);
+                if ((mask & (mask - 1)) == 0) {
+                    pending[pendingCount++] = peer;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places naked and hidden singles until none are left.
+     *
+     * @return false on a contradiction.
+     */
+    private boolean propagate() {
+        while (true) {
+            while (pendingCount > 0) {
+                int cell = pending[--pendingCount];
+                if (grid[cell] == 0 && !assign(cell, candidates[cell])) {
+                    return false;
+                }
+            }
+            int placed = hiddenSingles();
+            if (placed < 0) {
+                return false;
+            }
+            if (placed == 0 && pendingCount == 0) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Places every hidden single found in one sweep over the units.
+     *
+     * @return the number placed, or -1 on a contradiction.
+     */
+    private int hiddenSingles() {
+        int placed = 0;
+        for (int[] unit : geometry.units) {
+            int once = 0;
+            int twice = 0;
+            int present = 0;
+            for (int cell : unit) {
+                int mask = candidates[cell];
+                if (grid[cell] != 0) {
+                    present |= mask;
+                    continue;
+                }
+                twice |= once & mask;
+                once |= mask;
+            }
+            if ((once | present) != allDigits) {
+                return -1; // A digit has no place left in this unit.
+            }
+            int singles = once & ~twice & ~present;
+            while (singles != 0) {
+                int bit = singles & -singles;
+                singles ^= bit;
+                for (int cell : unit) {
+                    if (grid[cell] == 0 && (candidates[cell] & bit) != 0) {
+                        if (!assign(cell, bit)) {
+                            return -1;
+                        }
+                        placed++;
+                        break;
+                    }
+                }
+            }
+        }
+        return placed;
+    }
+
+    private void setMask(int cell, int mask) {
+        trailCell[trailSize] = cell;
+        trailMask[trailSize++] = candidates[cell];
+        candidates[cell] = mask;
+    }
+
+    /**
+     * Restores every mask changed since the trail held {@code mark} entries, clearing placements.
+     */
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            int cell = trailCell[--trailSize];
+            candidates[cell] = trailMask[trailSize];
+            grid[cell] = 0;
+        }
+    }
+
+    private int randomBit(int mask) {
+        for (int skip = random.nextInt(Integer.bitCount(mask)); skip > 0; skip--) {
+            mask &= mask - 1;
+        }
+        return mask & -mask;
+    }
+}
@@ -0,0 +1,204 @@
+package com.sudokumaster.model;
+
+/**
+ * Fast solution counter for 9x9 Sudoku puzzles.
+ * <p>
+ * The search keeps digit bitmasks for every row, column and box, always branches on the
+ * empty cell with the fewest candidates, and stops as soon as the requested number of
+ * solutions has been found. All working state is preallocated, so a counter instance can be
+ * reused for any number of puzzles without allocating. Instances are not thread-safe.
+ */
+public class SolutionCounter {
+
+    private static final int SIZE = 9;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int ALL_DIGITS = 0x1FF;
+
+    // Row, column and box index of every cell.
+    private static final byte[] CELL_ROW = new byte[CELLS];
+    private static final byte[] CELL_COL = new byte[CELLS];
+    private static final byte[] CELL_BOX = new byte[CELLS];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            CELL_ROW[cell] = (byte) row;
+            CELL_COL[cell] = (byte) col;
+            CELL_BOX[cell] = (byte) ((row / 3) * 3 + col / 3);
+        }
+    }
+
+    private final byte[] grid = new byte[CELLS];
+    private final int[] rowMasks = new int[SIZE];
+    private final int[] colMasks = new int[SIZE];
+    private final int[] boxMasks = new int[SIZE];
+    // Indices of the empty cells; positions below the current depth are already filled.
+    private final byte[] empties = new byte[CELLS];
+    private int emptyCount;
+    private int limit;
+    private int solutions;
+    // Search nodes (cell assignments tried) during the last call.
+    private long nodes;
+    // Optional destination for the first solution found.
+    private byte[] solutionOut;
+
+    /**
+     * Counts the solutions of a puzzle, stopping once {@code limit} solutions have been found.
+     *
+     * @param puzzle flat array of 81 cells in row-major order, 0 for empty cells. Not modified.
+     * @param limit  maximum number of solutions to look for (2 is enough to test uniqueness).
+     * @return the number of solutions found, at most {@code limit}; 0 if the givens conflict.
+     */
+    public int countSolutions(byte[] puzzle, int limit) {
+        return search(puzzle, limit, null);
+    }
+
+    /**
+     * Counts the solutions of a puzzle stored as a 2D array, stopping once {@code limit} have been found.
+     *
+     * @param board 9x9 board, 0 for empty cells. Not modified.
+     * @param limit maximum number of solutions to look for.
+     * @return the number of solutions found, at most {@code limit}.
+     */
+    public int countSolutions(int[][] board, int limit) {
+        byte[] puzzle = new byte[CELLS];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                puzzle[row * SIZE + col] = (byte) board[row][col];
+            }
+        }
+        return countSolutions(puzzle, limit);
+    }
+
+    /**
+     * Returns true if the puzzle has exactly one solution.
+     */
+    public boolean hasUniqueSolution(byte[] puzzle) {
+        return countSolutions(puzzle, 2) == 1;
+    }
+
+    /**
+     * Solves a puzzle, writing the first solution found into {@code solution}.
+     *
+     * @param puzzle   flat array of 81 cells, 0 for empty cells. Not modified.
+     * @param solution destination array of 81 cells.
+     * @return true if a solution was found.
+     */
+    public boolean solve(byte[] puzzle, byte[] solution) {
+        return search(puzzle, 1, solution) == 1;
+    }
+
+    /**
+     * Returns the number of search nodes (cell assignments tried) during the last count or solve.
+     * It is a rough measure of how hard the puzzle is for a brute-force search.
+     */
+    public long getLastNodeCount() {
+        return nodes;
+    }
+
+    private int search(byte[] puzzle, int limit, byte[] solutionOut) {
+        this.limit = limit;
+        this.solutions = 0;
+        this.nodes = 0;
+        this.solutionOut = solutionOut;
+        if (!load(puzzle)) {
+            return 0;
+        }
+        search(0);
+        this.solutionOut = null;
+        return solutions;
+    }
+
+    /**
+     * Copies the puzzle into the working grid and builds the masks.
+     *
+     * @return false if two givens conflict.
+     */
+    private boolean load(byte[] puzzle) {
+        for (int i = 0; i < SIZE; i++) {
+            rowMasks[i] = 0;
+            colMasks[i] = 0;
+            boxMasks[i] = 0;
+        }
+        emptyCount = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int value = puzzle[cell];
+            grid[cell] = (byte) value;
+            if (value == 0) {
+                empties[emptyCount++] = (byte) cell;
+                continue;
+            }
+            int bit = 1 << (value - 1);
+            int row = CELL_ROW[cell];
+            int col = CELL_COL[cell];
+            int box = CELL_BOX[cell];
+            if (((rowMasks[row] | colMasks[col] | boxMasks[box]) & bit) != 0) {
+                return false;
+            }
+            rowMasks[row] |= bit;
+            colMasks[col] |= bit;
+            boxMasks[box] |= bit;
+        }
+        return true;
+    }
+
+    /**
+     * Depth-first search over the empty cells from position {@code depth} onwards.
+     *
+     * @return true when the search should stop because the limit was reached.
+     */
+    private boolean search(int depth) {
+        if (depth == emptyCount) {
+            if (solutions == 0 && solutionOut != null) {
+                System.arraycopy(grid, 0, solutionOut, 0, CELLS);
+            }
+            return ++solutions >= limit;
+        }
+
+        // Pick the most constrained remaining cell and move it to the current depth.
+        int bestIndex = depth;
+        int bestCandidates = 0;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = depth; i < emptyCount; i++) {
+            int cell = empties[i];
+            int candidates = ~(rowMasks[CELL_ROW[cell]] | colMasks[CELL_COL[cell]] | boxMasks[CELL_BOX[cell]]) & ALL_DIGITS;
+            int count = Integer.bitCount(candidates);
+            if (count < bestCount) {
+                bestCount = count;
+                bestCandidates = candidates;
+                bestIndex = i;
+                if (count <= 1) {
+                    break;
+                }
+            }
+        }
+        if (bestCount == 0) {
+            return false; // Dead end.
+        }
+        byte cell = empties[bestIndex];
+        empties[bestIndex] = empties[depth];
+        empties[depth] = cell;
+
+        int row = CELL_ROW[cell];
+        int col = CELL_COL[cell];
+        int box = CELL_BOX[cell];
+        int candidates = bestCandidates;
+        boolean stop = false;
+        while (candidates != 0 && !stop) {
+            int bit = candidates & -candidates;
+            candidates ^= bit;
+            rowMasks[row] |= bit;
+            colMasks[col] |= bit;
+            boxMasks[box] |= bit;
+            grid[cell] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+            nodes++;
+            stop = search(depth + 1);
+            rowMasks[row] &= ~bit;
+            colMasks[col] &= ~bit;
+            boxMasks[box] &= ~bit;
+        }
+        grid[cell] = 0;
+        return stop;
+    }
+}
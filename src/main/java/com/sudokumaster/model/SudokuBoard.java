@@ -1,62 +1,219 @@
 package com.sudokumaster.model;
 
+import java.util.AbstractSet;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
  * Represents a Sudoku board.
  * This class encapsulates the board state and provides methods to validate moves,
  * manage annotations, check if the puzzle is solved, and reset the board.
+ * <p>
+ * Boards are square with square boxes: the default is the classic 9x9 board with 3x3 boxes,
+ * and {@link #SudokuBoard(int)} creates 4x4, 16x16 or 25x25 boards (see {@link BoardGeometry}).
+ * <p>
+ * Besides the grid itself, the board keeps one digit bitmask per row, column and box
+ * (bit {@code n - 1} set means digit {@code n} is present in that unit). The masks are updated
+ * on every place and clear, so move validation and candidate queries take a few bit operations
+ * instead of scanning the units.
+ * <p>
+ * Entries made with {@link #enterNumber} may conflict with their peers, so each unit also
+ * counts how often it holds every digit, and each cell counts the units in which its digit
+ * appears more than once. A change adjusts the counts of the cell's three units and touches
+ * other cells only when a unit's count of the digit crosses between one and two. The number
+ * of filled and conflicting cells is kept alongside, so {@link #isSolved()} is two comparisons
+ * and {@link #nextConflictCell} lists the conflicting cells from a bitmap.
+ * <p>
+ * A candidate mask is also cached per cell: the digits still legal there, minus any digits
+ * removed by {@link #eliminateCandidates} (for example by a hint). Placing a digit updates the
+ * masks of the cell's peers, so {@link #getCandidates} is a single array read.
+ * <p>
+ * A generated board also carries the solution it was cut from, one byte per cell (see
+ * {@link #setSolution}). Correctness and reveal queries then read a single array entry, and the
+ * number of correct cells is counted along with the filled ones, so progress needs no scan.
+ * <p>
+ * Annotations (pencil marks) use the same bit layout: one {@code int} per cell in a flat
+ * array indexed by {@code row * size + col}, so adding, removing and eliminating marks never
+ * allocates.
+ * <p>
+ * Every change to a cell's value or marks sets that cell's bit in a dirty bitmap. Views walk the
+ * dirty cells with {@link #nextDirtyCell} and redraw only those, then call {@link #clearDirty}.
  */
 public class SudokuBoard {
-    private final int size = 9;
+    /** Bitmask with one bit set for each of the digits 1-9 of a 9x9 board; see {@link #getAllDigits()}. */
+    public static final int ALL_DIGITS = 0x1FF;
+
+    private final BoardGeometry geometry;
+    private final int size;
+    private final int allDigits;
     private final int[][] board;
-    // 2D array for cell annotations (manual/automatic)
-    private final Set<Integer>[][] annotations;
+    // Digit bitmasks for each row, column and box.
+    private final int[] rowMasks;
+    private final int[] colMasks;
+    private final int[] boxMasks;
+    // How often each unit holds each digit, at unit * size + (digit - 1); units are the rows,
+    // then the columns, then the boxes. A unit's mask bit is set while its count is positive.
+    private final byte[] unitCounts;
+    // For each cell, the number of its units that hold its digit more than once.
+    private final byte[] conflictUnits;
+    // Cells with a conflicting digit, one bit per cell index.
+    private final long[] conflicts;
+    private int filledCells;
+    private int conflictCells;
+    // Solution digit of each cell, indexed by row * size + col, or null if unknown.
+    private byte[] solution;
+    // Filled cells that hold their solution digit.
+    private int correctCells;
+    // Cached candidate mask for each cell, indexed by row * size + col; 0 for filled cells.
+    private final int[] candidates;
+    // Digits removed from each cell's candidates by eliminateCandidates.
+    private final int[] eliminated;
+    // Pencil-mark bitmask for each cell (manual/automatic), indexed by row * size + col.
+    private final int[] annotations;
+    // Cells changed since the last clearDirty(), one bit per cell index.
+    private final long[] dirty;
+    // Read-only Set views over the annotation masks, created on first use.
+    private Set<Integer>[][] annotationViews;
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Creates an empty 9x9 board.
+     */
     public SudokuBoard() {
+        this(3);
+    }
+
+    /**
+     * Creates an empty board with boxes of {@code boxSize x boxSize} cells.
+     *
+     * @param boxSize 2 to 5, for 4x4 up to 25x25 boards.
+     */
+    public SudokuBoard(int boxSize) {
+        geometry = BoardGeometry.of(boxSize);
+        size = geometry.getSize();
+        allDigits = geometry.getAllDigits();
         board = new int[size][size];
-        annotations = new HashSet[size][size];
-        for (int i = 0; i < size; i++) {
-            Arrays.fill(board[i], 0);
-            for (int j = 0; j < size; j++) {
-                annotations[i][j] = new HashSet<>();
-            }
-        }
+        rowMasks = new int[size];
+        colMasks = new int[size];
+        boxMasks = new int[size];
+        unitCounts = new byte[3 * size * size];
+        conflictUnits = new byte[size * size];
+        conflicts = new long[(size * size + 63) >>> 6];
+        candidates = new int[size * size];
+        eliminated = new int[size * size];
+        Arrays.fill(candidates, allDigits);
+        annotations = new int[size * size];
+        dirty = new long[(size * size + 63) >>> 6];
+        markAllDirty();
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public int getBoxSize() {
+        return geometry.getBoxSize();
+    }
+
+    /**
+     * Returns the bitmask with one bit set for each digit of this board.
+     */
+    public int getAllDigits() {
+        return allDigits;
     }
 
     public int getSize() {
         return size;
     }
 
+    /**
+     * Returns the underlying grid. It should be treated as read-only: changes must go through
+     * {@link #placeNumber}, {@link #enterNumber}, {@link #clearCell} or {@link #resetBoard} so the
+     * digit masks and counts stay in sync.
+     */
     public int[][] getBoard() {
         return board;
     }
 
+    /**
+     * Returns a read-only view of the annotations as sets of digits.
+     * The views reflect later changes to the board; prefer {@link #getAnnotationMask} on hot paths.
+     */
     public Set<Integer>[][] getAnnotations() {
-        return annotations;
+        if (annotationViews == null) {
+            Set<Integer>[][] views = newSetGrid(size);
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    views[i][j] = new AnnotationView(annotations, i * size + j, size);
+                }
+            }
+            annotationViews = views;
+        }
+        return annotationViews;
+    }
+
+    // Java cannot create generic arrays; the raw array only ever holds Set<Integer> views.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Set<Integer>[][] newSetGrid(int size) {
+        return new Set[size][size];
+    }
+
+    /**
+     * Returns the pencil marks of the given cell as a bitmask (bit {@code n - 1} set means digit {@code n}).
+     */
+    public int getAnnotationMask(int row, int col) {
+        return annotations[row * size + col];
     }
 
     public boolean isValidMove(int row, int col, int number) {
-        // Check the row and column.
-        for (int i = 0; i < size; i++) {
-            if (board[row][i] == number || board[i][col] == number) {
-                return false;
-            }
-        }
-        // Check the 3x3 block.
-        int blockRowStart = (row / 3) * 3;
-        int blockColStart = (col / 3) * 3;
-        for (int i = blockRowStart; i < blockRowStart + 3; i++) {
-            for (int j = blockColStart; j < blockColStart + 3; j++) {
-                if (board[i][j] == number) {
-                    return false;
-                }
-            }
+        if (number < 1 || number > size) {
+            return false;
         }
-        return true;
+        int used = rowMasks[row] | colMasks[col] | boxMasks[boxIndex(row, col)];
+        return (used & (1 << (number - 1))) == 0;
+    }
+
+    /**
+     * Returns the bitmask of digits that can legally be placed in the given cell
+     * (bit {@code n - 1} set means digit {@code n} is allowed), without the digits removed by
+     * {@link #eliminateCandidates}. Filled cells have no candidates.
+     */
+    public int getCandidates(int row, int col) {
+        return candidates[row * size + col];
+    }
+
+    /**
+     * Removes digits from a cell's cached candidates, typically after a hint proved they cannot
+     * go there. Placing and validating moves is not affected. The eliminations of every cell are
+     * forgotten when any cell is cleared or the board is reset, since they may have depended on
+     * the removed digit.
+     *
+     * @param digits digit bitmask to remove (bit {@code n - 1} for digit {@code n}).
+     */
+    public void eliminateCandidates(int row, int col, int digits) {
+        int cell = row * size + col;
+        eliminated[cell] |= digits;
+        candidates[cell] &= ~digits;
+    }
+
+    /**
+     * Returns the digits removed from a cell's candidates by {@link #eliminateCandidates} since
+     * they were last forgotten.
+     */
+    public int getEliminations(int row, int col) {
+        return eliminated[row * size + col];
+    }
+
+    /**
+     * Takes back eliminations, returning the digits to the cell's candidates where they are
+     * still legal. Used by {@link MoveJournal} to undo them.
+     */
+    void restoreCandidates(int row, int col, int digits) {
+        int cell = row * size + col;
+        eliminated[cell] &= ~digits;
+        candidates[cell] = board[row][col] != 0 ? 0
+                : ~(rowMasks[row] | colMasks[col] | boxMasks[geometry.cellBox[cell]] | eliminated[cell]) & allDigits;
     }
 
     /**
@@ -65,7 +222,7 @@ public class SudokuBoard {
      */
     public boolean placeNumber(int row, int col, int number) {
         if (isValidMove(row, col, number)) {
-            board[row][col] = number;
+            setNumber(row, col, number);
             clearAnnotations(row, col);
             updateAnnotationsAfterMove(row, col, number);
             return true;
@@ -73,12 +230,107 @@ public class SudokuBoard {
         return false;
     }
 
+    /**
+     * Enters a number whether or not it conflicts with the cell's peers, as a player may.
+     * Clears any annotations for that cell and removes the number from its peers' annotations,
+     * like {@link #placeNumber}.
+     *
+     * @return true if the number conflicts with no peer.
+     * @throws IllegalArgumentException if the number is not a digit of this board.
+     */
+    public boolean enterNumber(int row, int col, int number) {
+        if (number < 1 || number > size) {
+            throw new IllegalArgumentException("Number must be between 1 and " + size);
+        }
+        setNumber(row, col, number);
+        clearAnnotations(row, col);
+        updateAnnotationsAfterMove(row, col, number);
+        return conflictUnits[row * size + col] == 0;
+    }
+
+    /**
+     * Puts a number into a cell, leaving all annotations alone. Used by {@link MoveJournal} to
+     * restore earlier states, which need not pass {@link #isValidMove}; 0 empties the cell.
+     */
+    void restoreNumber(int row, int col, int number) {
+        if (number == 0) {
+            clearCell(row, col);
+        } else {
+            setNumber(row, col, number);
+        }
+    }
+
+    /**
+     * Flips annotation bits of a cell whether or not it is filled. Used by {@link MoveJournal}.
+     */
+    void flipAnnotations(int row, int col, int digits) {
+        annotations[row * size + col] ^= digits;
+        markDirty(row * size + col);
+    }
+
+    private void setNumber(int row, int col, int number) {
+        if (board[row][col] != 0) {
+            clearCell(row, col);
+        }
+        int cell = row * size + col;
+        board[row][col] = number;
+        markDirty(cell);
+        filledCells++;
+        if (solution != null && solution[cell] == number) {
+            correctCells++;
+        }
+        int bit = 1 << (number - 1);
+        if (addToUnit(row, cell, number)) {
+            rowMasks[row] |= bit;
+        }
+        if (addToUnit(size + col, cell, number)) {
+            colMasks[col] |= bit;
+        }
+        int box = boxIndex(row, col);
+        if (addToUnit(2 * size + box, cell, number)) {
+            boxMasks[box] |= bit;
+        }
+        removeCandidate(cell, bit);
+    }
+
+    /**
+     * Empties the specified cell and removes its digit from the row, column and box masks.
+     */
+    public void clearCell(int row, int col) {
+        if (board[row][col] == 0) {
+            return;
+        }
+        int cell = row * size + col;
+        int number = board[row][col];
+        board[row][col] = 0;
+        markDirty(cell);
+        filledCells--;
+        if (solution != null && solution[cell] == number) {
+            correctCells--;
+        }
+        // A duplicate keeps the digit in the unit's mask.
+        int keep = ~(1 << (number - 1));
+        if (removeFromUnit(row, cell, number)) {
+            rowMasks[row] &= keep;
+        }
+        if (removeFromUnit(size + col, cell, number)) {
+            colMasks[col] &= keep;
+        }
+        int box = boxIndex(row, col);
+        if (removeFromUnit(2 * size + box, cell, number)) {
+            boxMasks[box] &= keep;
+        }
+        Arrays.fill(eliminated, 0);
+        rebuildCandidates();
+    }
+
     /**
      * Adds an annotation to the specified cell.
      */
     public void addAnnotation(int row, int col, int number) {
-        if (board[row][col] == 0 && number >= 1 && number <= 9) {
-            annotations[row][col].add(number);
+        if (board[row][col] == 0 && number >= 1 && number <= size) {
+            annotations[row * size + col] |= 1 << (number - 1);
+            markDirty(row * size + col);
         }
     }
 
@@ -86,8 +338,9 @@ public class SudokuBoard {
      * Removes an annotation from the specified cell.
      */
     public void removeAnnotation(int row, int col, int number) {
-        if (board[row][col] == 0) {
-            annotations[row][col].remove(number);
+        if (board[row][col] == 0 && number >= 1 && number <= size) {
+            annotations[row * size + col] &= ~(1 << (number - 1));
+            markDirty(row * size + col);
         }
     }
 
@@ -95,12 +348,9 @@ public class SudokuBoard {
      * Toggles an annotation in the specified cell.
      */
     public void toggleAnnotation(int row, int col, int number) {
-        if (board[row][col] == 0) {
-            if (annotations[row][col].contains(number)) {
-                annotations[row][col].remove(number);
-            } else {
-                annotations[row][col].add(number);
-            }
+        if (board[row][col] == 0 && number >= 1 && number <= size) {
+            annotations[row * size + col] ^= 1 << (number - 1);
+            markDirty(row * size + col);
         }
     }
 
@@ -108,69 +358,438 @@ public class SudokuBoard {
      * Clears all annotations from the specified cell.
      */
     public void clearAnnotations(int row, int col) {
-        annotations[row][col].clear();
+        if (annotations[row * size + col] != 0) {
+            annotations[row * size + col] = 0;
+            markDirty(row * size + col);
+        }
     }
 
     /**
      * After placing a number, remove that number from annotations in the same row, column, and block.
      */
     public void updateAnnotationsAfterMove(int row, int col, int number) {
-        // Row and column.
+        eliminateFromPeers(row, col, 1 << (number - 1));
+    }
+
+    /**
+     * Removes the given digits from the annotations of every peer (same row, column or box) of a cell.
+     * Filled cells never hold annotations, so no emptiness check is needed.
+     *
+     * @param row    Row index.
+     * @param col    Column index.
+     * @param digits digit bitmask to remove (bit {@code n - 1} for digit {@code n}).
+     */
+    public void eliminateFromPeers(int row, int col, int digits) {
+        int keep = ~digits;
+        int[] peers = geometry.peers;
+        int peerCount = geometry.getPeerCount();
+        int base = (row * size + col) * peerCount;
+        for (int i = base; i < base + peerCount; i++) {
+            int peer = peers[i];
+            if ((annotations[peer] & digits) != 0) {
+                annotations[peer] &= keep;
+                markDirty(peer);
+            }
+        }
+    }
+
+    /**
+     * The puzzle is solved when every cell is filled and no cell conflicts with a peer: each unit
+     * then holds {@code size} distinct digits, which is all of them.
+     */
+    public boolean isSolved() {
+        return filledCells == size * size && conflictCells == 0;
+    }
+
+    /**
+     * Returns true if the cell's digit appears again in its row, column or box.
+     */
+    public boolean isConflicting(int row, int col) {
+        return conflictUnits[row * size + col] != 0;
+    }
+
+    /**
+     * Returns the number of cells whose digit appears again in their row, column or box.
+     */
+    public int getConflictCount() {
+        return conflictCells;
+    }
+
+    /**
+     * Returns the number of filled cells.
+     */
+    public int getFilledCount() {
+        return filledCells;
+    }
+
+    /**
+     * Stores the solution of the puzzle on this board. It is kept across {@link #resetBoard}, so
+     * restarting the same puzzle keeps it.
+     *
+     * @param solution flat array of {@code size * size} digits in row-major order, or null to
+     *                 forget the solution. The array is copied.
+     * @throws IllegalArgumentException if the array has the wrong length or holds a non-digit.
+     */
+    public void setSolution(byte[] solution) {
+        if (solution == null) {
+            this.solution = null;
+            correctCells = 0;
+            return;
+        }
+        if (solution.length != size * size) {
+            throw new IllegalArgumentException("Solutions must have " + size * size + " cells");
+        }
+        for (byte digit : solution) {
+            if (digit < 1 || digit > size) {
+                throw new IllegalArgumentException("Solutions must hold digits 1 to " + size);
+            }
+        }
+        this.solution = solution.clone();
+        correctCells = countCorrect();
+    }
+
+    /**
+     * Returns true if the board knows its solution.
+     */
+    public boolean hasSolution() {
+        return solution != null;
+    }
+
+    /**
+     * Returns the digit the solution has in the given cell.
+     *
+     * @throws IllegalStateException if the board has no solution.
+     */
+    public int getSolutionDigit(int row, int col) {
+        return requireSolution()[row * size + col];
+    }
+
+    /**
+     * Returns true if the cell holds its solution digit.
+     *
+     * @throws IllegalStateException if the board has no solution.
+     */
+    public boolean isCorrect(int row, int col) {
+        return board[row][col] == requireSolution()[row * size + col];
+    }
+
+    /**
+     * Returns true if the cell is filled with a digit other than its solution digit, even one
+     * that conflicts with no peer.
+     *
+     * @throws IllegalStateException if the board has no solution.
+     */
+    public boolean isWrong(int row, int col) {
+        return board[row][col] != 0 && board[row][col] != requireSolution()[row * size + col];
+    }
+
+    /**
+     * Fills a cell with its solution digit like {@link #enterNumber}.
+     *
+     * @return the digit revealed.
+     * @throws IllegalStateException if the board has no solution.
+     */
+    public int revealCell(int row, int col) {
+        int digit = getSolutionDigit(row, col);
+        enterNumber(row, col, digit);
+        return digit;
+    }
+
+    /**
+     * Returns the number of cells that hold their solution digit, or 0 if the board has no solution.
+     */
+    public int getCorrectCount() {
+        return correctCells;
+    }
+
+    /**
+     * Returns the number of filled cells that differ from the solution, or 0 if the board has
+     * no solution.
+     */
+    public int getWrongCount() {
+        return solution == null ? 0 : filledCells - correctCells;
+    }
+
+    /**
+     * Returns the index ({@code row * size + col}) of the first conflicting cell at or after
+     * {@code fromCell}, or -1 if there is none.
+     */
+    public int nextConflictCell(int fromCell) {
+        return nextSetBit(conflicts, fromCell);
+    }
+
+    public void resetBoard(int[][] newState) {
         for (int i = 0; i < size; i++) {
-            if (board[row][i] == 0) {
-                annotations[row][i].remove(number);
+            System.arraycopy(newState[i], 0, board[i], 0, size);
+        }
+        Arrays.fill(annotations, 0);
+        Arrays.fill(eliminated, 0);
+        rebuildMasks();
+        rebuildCandidates();
+        markAllDirty();
+    }
+
+    /**
+     * Returns the index ({@code row * size + col}) of the first cell at or after {@code fromCell}
+     * that changed since the last {@link #clearDirty()}, or -1 if there is none.
+     */
+    public int nextDirtyCell(int fromCell) {
+        return nextSetBit(dirty, fromCell);
+    }
+
+    /**
+     * Returns true if the given cell changed since the last {@link #clearDirty()}.
+     */
+    public boolean isDirty(int row, int col) {
+        int cell = row * size + col;
+        return (dirty[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Forgets all changes; call after the view has redrawn the dirty cells.
+     */
+    public void clearDirty() {
+        Arrays.fill(dirty, 0);
+    }
+
+    /**
+     * Marks every cell as changed, forcing a full redraw.
+     */
+    public void markAllDirty() {
+        int cells = size * size;
+        Arrays.fill(dirty, -1L);
+        if ((cells & 63) != 0) {
+            dirty[dirty.length - 1] = (1L << cells) - 1;
+        }
+    }
+
+    private void markDirty(int cell) {
+        dirty[cell >>> 6] |= 1L << cell;
+    }
+
+    private static int nextSetBit(long[] bitmap, int from) {
+        int word = from >>> 6;
+        if (word >= bitmap.length) {
+            return -1;
+        }
+        long bits = bitmap[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
             }
-            if (board[i][col] == 0) {
-                annotations[i][col].remove(number);
+            if (++word == bitmap.length) {
+                return -1;
             }
+            bits = bitmap[word];
         }
-        // 3x3 block.
-        int blockRowStart = (row / 3) * 3;
-        int blockColStart = (col / 3) * 3;
-        for (int i = blockRowStart; i < blockRowStart + 3; i++) {
-            for (int j = blockColStart; j < blockColStart + 3; j++) {
-                if (board[i][j] == 0) {
-                    annotations[i][j].remove(number);
-                }
+    }
+
+    /**
+     * Counts a digit just placed in {@code cell} in one of its units.
+     *
+     * @return true if the unit did not hold the digit before.
+     */
+    private boolean addToUnit(int unit, int cell, int number) {
+        int count = ++unitCounts[unit * size + number - 1];
+        if (count == 1) {
+            return true;
+        }
+        if (count == 2) {
+            // The cell that held the digit alone now conflicts in this unit too.
+            adjustConflict(otherCell(unit, cell, number), 1);
+        }
+        adjustConflict(cell, 1);
+        return false;
+    }
+
+    /**
+     * Uncounts a digit just removed from {@code cell} in one of its units.
+     *
+     * @return true if the unit no longer holds the digit.
+     */
+    private boolean removeFromUnit(int unit, int cell, int number) {
+        int count = --unitCounts[unit * size + number - 1];
+        if (count == 0) {
+            return true;
+        }
+        adjustConflict(cell, -1);
+        if (count == 1) {
+            adjustConflict(otherCell(unit, cell, number), -1);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a cell of the unit other than {@code cell} that holds {@code number}.
+     */
+    private int otherCell(int unit, int cell, int number) {
+        for (int other : geometry.units[unit]) {
+            if (other != cell && board[geometry.cellRow[other]][geometry.cellCol[other]] == number) {
+                return other;
             }
         }
+        throw new IllegalStateException("Unit counts out of sync");
     }
 
-    public boolean isSolved() {
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                int number = board[i][j];
-                if (number == 0) {
-                    return false;
-                }
-                // Check row and column uniqueness.
-                for (int k = 0; k < size; k++) {
-                    if ((k != j && board[i][k] == number) ||
-                            (k != i && board[k][j] == number)) {
-                        return false;
-                    }
-                }
-                // Check 3x3 block uniqueness.
-                int blockRowStart = (i / 3) * 3;
-                int blockColStart = (j / 3) * 3;
-                for (int r = blockRowStart; r < blockRowStart + 3; r++) {
-                    for (int c = blockColStart; c < blockColStart + 3; c++) {
-                        if ((r != i || c != j) && board[r][c] == number) {
-                            return false;
-                        }
-                    }
+    /**
+     * Changes the number of units in which a cell's digit is duplicated, updating the conflict
+     * bitmap and counter when the cell starts or stops conflicting. Such cells are marked dirty
+     * so views repaint them.
+     */
+    private void adjustConflict(int cell, int delta) {
+        int before = conflictUnits[cell];
+        conflictUnits[cell] = (byte) (before + delta);
+        if ((before == 0) != (before + delta == 0)) {
+            conflicts[cell >>> 6] ^= 1L << cell;
+            conflictCells += delta;
+            markDirty(cell);
+        }
+    }
+
+    private byte[] requireSolution() {
+        if (solution == null) {
+            throw new IllegalStateException("The board has no solution");
+        }
+        return solution;
+    }
+
+    private int countCorrect() {
+        int count = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (board[geometry.cellRow[cell]][geometry.cellCol[cell]] == solution[cell]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Recomputes the digit counts, masks, conflicts and filled and correct cell counts from the grid.
+     */
+    private void rebuildMasks() {
+        Arrays.fill(unitCounts, (byte) 0);
+        Arrays.fill(conflictUnits, (byte) 0);
+        Arrays.fill(conflicts, 0);
+        Arrays.fill(rowMasks, 0);
+        Arrays.fill(colMasks, 0);
+        Arrays.fill(boxMasks, 0);
+        filledCells = 0;
+        conflictCells = 0;
+        for (int unit = 0; unit < 3 * size; unit++) {
+            int mask = 0;
+            for (int cell : geometry.units[unit]) {
+                int number = board[geometry.cellRow[cell]][geometry.cellCol[cell]];
+                if (number != 0) {
+                    unitCounts[unit * size + number - 1]++;
+                    mask |= 1 << (number - 1);
                 }
             }
+            if (unit < size) {
+                rowMasks[unit] = mask;
+            } else if (unit < 2 * size) {
+                colMasks[unit - size] = mask;
+            } else {
+                boxMasks[unit - 2 * size] = mask;
+            }
         }
-        return true;
+        for (int cell = 0; cell < size * size; cell++) {
+            int number = board[geometry.cellRow[cell]][geometry.cellCol[cell]];
+            if (number == 0) {
+                continue;
+            }
+            filledCells++;
+            int digit = number - 1;
+            int duplicated = (unitCounts[geometry.cellRow[cell] * size + digit] > 1 ? 1 : 0)
+                    + (unitCounts[(size + geometry.cellCol[cell]) * size + digit] > 1 ? 1 : 0)
+                    + (unitCounts[(2 * size + geometry.cellBox[cell]) * size + digit] > 1 ? 1 : 0);
+            if (duplicated != 0) {
+                conflictUnits[cell] = (byte) duplicated;
+                conflicts[cell >>> 6] |= 1L << cell;
+                conflictCells++;
+            }
+        }
+        correctCells = solution == null ? 0 : countCorrect();
     }
 
-    public void resetBoard(int[][] newState) {
-        for (int i = 0; i < size; i++) {
-            System.arraycopy(newState[i], 0, board[i], 0, size);
-            for (int j = 0; j < size; j++) {
-                annotations[i][j].clear();
+    /**
+     * Empties a newly filled cell's candidates and removes its digit from its peers'.
+     */
+    private void removeCandidate(int cell, int bit) {
+        candidates[cell] = 0;
+        int keep = ~bit;
+        int[] peers = geometry.peers;
+        int peerCount = geometry.getPeerCount();
+        int base = cell * peerCount;
+        for (int i = base; i < base + peerCount; i++) {
+            candidates[peers[i]] &= keep;
+        }
+    }
+
+    /**
+     * Recomputes every cell's candidates from the unit masks and the eliminations.
+     */
+    private void rebuildCandidates() {
+        for (int cell = 0; cell < size * size; cell++) {
+            int row = geometry.cellRow[cell];
+            int col = geometry.cellCol[cell];
+            candidates[cell] = board[row][col] != 0 ? 0
+                    : ~(rowMasks[row] | colMasks[col] | boxMasks[geometry.cellBox[cell]] | eliminated[cell]) & allDigits;
+        }
+    }
+
+    private int boxIndex(int row, int col) {
+        return geometry.boxIndex(row, col);
+    }
+
+    /**
+     * Read-only {@link Set} view over one cell's annotation mask.
+     */
+    private static final class AnnotationView extends AbstractSet<Integer> {
+        private final int[] masks;
+        private final int cell;
+        private final int size;
+
+        AnnotationView(int[] masks, int cell, int size) {
+            this.masks = masks;
+            this.cell = cell;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return Integer.bitCount(masks[cell]);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Integer)) {
+                return false;
             }
+            int number = (Integer) o;
+            return number >= 1 && number <= size && (masks[cell] & (1 << (number - 1))) != 0;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            // Iterates digits in ascending order over a snapshot of the mask.
+            return new Iterator<>() {
+                private int remaining = masks[cell];
+
+                @Override
+                public boolean hasNext() {
+                    return remaining != 0;
+                }
+
+                @Override
+                public Integer next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    int bit = Integer.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    return bit + 1;
+                }
+            };
         }
     }
 }
@@ -1,27 +1,111 @@
 package com.sudokumaster.model;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Sudoku puzzle generator that ensures every generated puzzle follows the rules.
+ * The solver keeps a digit bitmask per row, column and box that is updated on every
+ * placement and removal, so placement checks do not rescan the units.
+ * <p>
+ * The generator works on boards with boxes of {@code subgridSize x subgridSize} cells. Its
+ * row-major backtracker is only practical up to 9x9; larger boards are filled with the
+ * {@link ScalableSolver}.
  */
 public class SudokuGenerator {
 
-    private static final int SIZE = 9;
-    private static final int SUBGRID_SIZE = 3;
+    private final int size;
+    private final int subgridSize;
 
     private final Random random = new Random();
+    // Digit bitmasks (bit num - 1 set means num is present) for the board being generated.
+    private final int[] rowMasks;
+    private final int[] colMasks;
+    private final int[] boxMasks;
+
+    public SudokuGenerator() {
+        this(3);
+    }
+
+    /**
+     * Creates a generator for boards with boxes of {@code subgridSize x subgridSize} cells.
+     */
+    public SudokuGenerator(int subgridSize) {
+        BoardGeometry geometry = BoardGeometry.of(subgridSize);
+        this.subgridSize = subgridSize;
+        size = geometry.getSize();
+        rowMasks = new int[size];
+        colMasks = new int[size];
+        boxMasks = new int[size];
+    }
 
     public int[][] generatePuzzle(int difficulty) {
-        int[][] board = new int[SIZE][SIZE];
+        return generatePuzzle(difficulty, null);
+    }
+
+    /**
+     * Generates a puzzle and writes the full grid it was cut from into {@code solution}. The
+     * random removals may leave other solutions; this is the one the puzzle was made from.
+     *
+     * @param difficulty 1 (easy) to 3 (hard).
+     * @param solution   receives {@code size * size} digits in row-major order, or null.
+     * @return the puzzle, 0 for empty cells.
+     */
+    public int[][] generatePuzzle(int difficulty, byte[] solution) {
+        if (solution != null && solution.length != size * size) {
+            throw new IllegalArgumentException("solution must have " + size * size + " cells");
+        }
+        int[][] board = new int[size][size];
+        Arrays.fill(rowMasks, 0);
+        Arrays.fill(colMasks, 0);
+        Arrays.fill(boxMasks, 0);
         fillBoard(board);
+        if (solution != null) {
+            for (int cell = 0; cell < solution.length; cell++) {
+                solution[cell] = (byte) board[cell / size][cell % size];
+            }
+        }
         removeNumbers(board, difficulty);
         return board;
     }
 
+    /**
+     * Solves the given board in place with the row-major backtracking search.
+     *
+     * @param board square board of this generator's size, 0 for empty cells.
+     * @return true if the board was solved; false if it has no solution.
+     */
+    public boolean solvePuzzle(int[][] board) {
+        Arrays.fill(rowMasks, 0);
+        Arrays.fill(colMasks, 0);
+        Arrays.fill(boxMasks, 0);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int num = board[row][col];
+                if (num != 0) {
+                    if (!isValidPlacement(row, col, num)) {
+                        return false;
+                    }
+                    place(board, row, col, num);
+                }
+            }
+        }
+        return solve(board);
+    }
+
     private void fillBoard(int[][] board) {
         // Ensures the board is completely filled with a valid Sudoku solution before numbers are removed.
-        solve(board);
+        if (subgridSize <= 3) {
+            solve(board);
+            return;
+        }
+        // The row-major backtracker does not finish on 16x16 and larger boards.
+        byte[] cells = new byte[size * size];
+        new ScalableSolver(subgridSize).fill(new SplittableRandom(random.nextLong()), cells);
+        for (int cell = 0; cell < cells.length; cell++) {
+            place(board, cell / size, cell % size, cells[cell]);
+        }
     }
 
     private void removeNumbers(int[][] board, int difficulty) {
@@ -31,29 +115,31 @@ public class SudokuGenerator {
             case 3 -> 60; // Hard (Fewer clues)
             default -> 45;
         };
+        // The counts above are for 81 cells; scale them to the board.
+        cluesToRemove = cluesToRemove * size * size / 81;
 
         for (int i = 0; i < cluesToRemove; i++) {
             int row, col;
             do {
-                row = random.nextInt(SIZE);
-                col = random.nextInt(SIZE);
+                row = random.nextInt(size);
+                col = random.nextInt(size);
             } while (board[row][col] == 0); // Ensure we're removing a non-empty cell
 
-            board[row][col] = 0;
+            clear(board, row, col);
         }
     }
 
     private boolean solve(int[][] board) {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
                 if (board[row][col] == 0) {
-                    for (int num = 1; num <= SIZE; num++) {
-                        if (isValidPlacement(board, row, col, num)) {
-                            board[row][col] = num;
+                    for (int num = 1; num <= size; num++) {
+                        if (isValidPlacement(row, col, num)) {
+                            place(board, row, col, num);
                             if (solve(board)) {
                                 return true;
                             }
-                            board[row][col] = 0; // Backtrack
+                            clear(board, row, col); // Backtrack
                         }
                     }
                     return false;
@@ -63,39 +149,28 @@ public class SudokuGenerator {
         return true;
     }
 
-    private boolean isValidPlacement(int[][] board, int row, int col, int num) {
-        return isRowValid(board, row, num) && isColValid(board, col, num) && isBoxValid(board, row, col, num);
+    private boolean isValidPlacement(int row, int col, int num) {
+        int used = rowMasks[row] | colMasks[col] | boxMasks[boxIndex(row, col)];
+        return (used & (1 << (num - 1))) == 0;
     }
 
-    private boolean isRowValid(int[][] board, int row, int num) {
-        for (int col = 0; col < SIZE; col++) {
-            if (board[row][col] == num) {
-                return false;
-            }
-        }
-        return true;
+    private void place(int[][] board, int row, int col, int num) {
+        int bit = 1 << (num - 1);
+        board[row][col] = num;
+        rowMasks[row] |= bit;
+        colMasks[col] |= bit;
+        boxMasks[boxIndex(row, col)] |= bit;
     }
 
-    private boolean isColValid(int[][] board, int col, int num) {
-        for (int row = 0; row < SIZE; row++) {
-            if (board[row][col] == num) {
-                return false;
-            }
-        }
-        return true;
+    private void clear(int[][] board, int row, int col) {
+        int bit = ~(1 << (board[row][col] - 1));
+        board[row][col] = 0;
+        rowMasks[row] &= bit;
+        colMasks[col] &= bit;
+        boxMasks[boxIndex(row, col)] &= bit;
     }
 
-    private boolean isBoxValid(int[][] board, int row, int col, int num) {
-        int boxRowStart = (row / SUBGRID_SIZE) * SUBGRID_SIZE;
-        int boxColStart = (col / SUBGRID_SIZE) * SUBGRID_SIZE;
-
-        for (int i = 0; i < SUBGRID_SIZE; i++) {
-            for (int j = 0; j < SUBGRID_SIZE; j++) {
-                if (board[boxRowStart + i][boxColStart + j] == num) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    private int boxIndex(int row, int col) {
+        return (row / subgridSize) * subgridSize + col / subgridSize;
     }
 }
@@ -0,0 +1,248 @@
+package com.sudokumaster.model;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates puzzles whose {@link DifficultyRater} rating matches a target.
+ * <p>
+ * A request runs generate-and-rate attempts on every worker at once. The first attempt that
+ * matches stops the others, and when the time budget runs out the closest puzzle seen so far
+ * is returned instead, so the latency of a request is bounded by its budget. Attempts for
+ * MEDIUM and HARD targets use minimal puzzles, which need advanced techniques far more often
+ * than puzzles cut to a fixed clue count. Workers are daemon threads; {@link #generate} is
+ * safe to call from any thread.
+ */
+public class TargetedGenerator implements AutoCloseable {
+
+    /**
+     * Outcome of a targeted request.
+     *
+     * @param board    the generated puzzle.
+     * @param rating   its rating.
+     * @param matched  true if the rating hit the target, false if the budget ran out first.
+     * @param attempts number of puzzles generated and rated for this request.
+     */
+    public record Result(SudokuBoard board, Rating rating, boolean matched, long attempts) {
+    }
+
+    // Generator core and rater owned by each worker thread.
+    private static final ThreadLocal<Attempt> ATTEMPTS = ThreadLocal.withInitial(Attempt::new);
+
+    private final int parallelism;
+    private final ExecutorService workers;
+
+    /**
+     * Creates a generator with one worker per available processor.
+     */
+    public TargetedGenerator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a generator with a fixed number of workers.
+     *
+     * @param parallelism number of attempts run at the same time.
+     */
+    public TargetedGenerator(int parallelism) {
+        this(parallelism, Thread.NORM_PRIORITY);
+    }
+
+    /**
+     * Creates a generator whose workers run at the given thread priority, e.g.
+     * {@link Thread#MIN_PRIORITY} for background work that must not slow down the UI.
+     *
+     * @param parallelism number of attempts run at the same time.
+     * @param priority    priority of the worker threads.
+     */
+    public TargetedGenerator(int parallelism, int priority) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
+        if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY) {
+            throw new IllegalArgumentException("priority must be between " + Thread.MIN_PRIORITY + " and " + Thread.MAX_PRIORITY);
+        }
+        this.parallelism = parallelism;
+        this.workers = Executors.newFixedThreadPool(parallelism, new WorkerThreadFactory(priority));
+    }
+
+    /**
+     * Generates a puzzle whose rating equals {@code targetRating}, or the closest one found
+     * within the budget.
+     *
+     * @param targetRating desired rating, usually a {@link Technique#getScore()}.
+     * @param budget       maximum time to search.
+     * @return the matching or closest puzzle.
+     */
+    public Result generate(int targetRating, Duration budget) {
+        return search(Difficulty.forRating(targetRating), targetRating, targetRating, budget);
+    }
+
+    /**
+     * Generates a puzzle whose rating falls into the range of a difficulty level, or the
+     * closest one found within the budget.
+     *
+     * @param difficulty desired difficulty level.
+     * @param budget     maximum time to search.
+     * @return the matching or closest puzzle.
+     */
+    public Result generate(Difficulty difficulty, Duration budget) {
+        return search(difficulty, difficulty.getMinRating(), difficulty.getMaxRating(), budget);
+    }
+
+    /**
+     * Stops the workers. Requests already running return their best puzzle so far.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private Result search(Difficulty level, int minRating, int maxRating, Duration budget) {
+        Search search = new Search(level, minRating, maxRating, System.nanoTime() + budget.toNanos());
+        int submitted = 0;
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                workers.execute(search::run);
+                submitted++;
+            }
+        } catch (RejectedExecutionException e) {
+            // Closed: fall through and answer inline.
+        }
+        try {
+            // Released by the first match; otherwise wait out the budget.
+            search.matched.await(Math.max(budget.toNanos(), 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            search.cancelled = true;
+        }
+        Result result = search.result();
+        if (result == null) {
+            // No attempt finished within the budget; make one on the caller's thread.
+            search.attempt(ATTEMPTS.get());
+            result = search.result();
+        }
+        return result;
+    }
+
+    /**
+     * Distance from a rating to the range {@code [min, max]}; 0 inside it.
+     */
+    static int distance(int rating, int min, int max) {
+        return rating < min ? min - rating : rating > max ? rating - max : 0;
+    }
+
+    /**
+     * Shared state of one request.
+     */
+    private static final class Search {
+        final Difficulty level;
+        final int minRating;
+        final int maxRating;
+        final long deadline;
+        final CountDownLatch matched = new CountDownLatch(1);
+        final LongAdder attempts = new LongAdder();
+        volatile boolean cancelled;
+        // Best puzzle so far, guarded by this.
+        private byte[] bestPuzzle;
+        private byte[] bestSolution;
+        private Rating bestRating;
+        private int bestDistance = Integer.MAX_VALUE;
+
+        Search(Difficulty level, int minRating, int maxRating, long deadline) {
+            this.level = level;
+            this.minRating = minRating;
+            this.maxRating = maxRating;
+            this.deadline = deadline;
+        }
+
+        void run() {
+            Attempt attempt = ATTEMPTS.get();
+            while (!cancelled && System.nanoTime() < deadline) {
+                if (attempt(attempt) == 0) {
+                    cancelled = true;
+                    matched.countDown();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Generates and rates one puzzle, recording it if it is the closest so far.
+         *
+         * @return its distance to the target.
+         */
+        int attempt(Attempt attempt) {
+            if (level == Difficulty.EASY) {
+                attempt.core.generate(GeneratorCore.EASY_REMOVALS, true, attempt.puzzle, attempt.solution);
+            } else {
+                attempt.core.generateMinimal(attempt.puzzle, attempt.solution);
+            }
+            Rating rating = attempt.rater.rate(attempt.puzzle);
+            attempts.increment();
+            int distance = distance(rating.score(), minRating, maxRating);
+            synchronized (this) {
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestRating = rating;
+                    bestPuzzle = attempt.puzzle.clone();
+                    bestSolution = attempt.solution.clone();
+                }
+            }
+            return distance;
+        }
+
+        synchronized Result result() {
+            if (bestPuzzle == null) {
+                return null;
+            }
+            int[][] grid = new int[9][9];
+            for (int cell = 0; cell < 81; cell++) {
+                grid[cell / 9][cell % 9] = bestPuzzle[cell];
+            }
+            SudokuBoard board = new SudokuBoard();
+            board.resetBoard(grid);
+            board.setSolution(bestSolution);
+            return new Result(board, bestRating, bestDistance == 0, attempts.sum());
+        }
+    }
+
+    /**
+     * Reusable per-thread working state.
+     */
+    private static final class Attempt {
+        final GeneratorCore core = new GeneratorCore(ThreadLocalRandom.current().nextLong());
+        final DifficultyRater rater = new DifficultyRater();
+        final byte[] puzzle = new byte[81];
+        final byte[] solution = new byte[81];
+    }
+
+    /**
+     * Creates daemon threads of a fixed priority so idle workers never keep the JVM alive.
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        private final int priority;
+
+        WorkerThreadFactory(int priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "targeted-generator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        }
+    }
+}
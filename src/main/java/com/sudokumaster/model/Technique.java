@@ -0,0 +1,41 @@
+package com.sudokumaster.model;
+
+/**
+ * Human solving techniques used by {@link DifficultyRater}, in the order they are tried.
+ * Each technique carries a score; a puzzle's rating is the score of the hardest technique
+ * needed to solve it.
+ */
+public enum Technique {
+    HIDDEN_SINGLE(10, "Hidden single"),
+    NAKED_SINGLE(15, "Naked single"),
+    LOCKED_CANDIDATES(25, "Locked candidates"),
+    NAKED_PAIR(30, "Naked pair"),
+    HIDDEN_PAIR(32, "Hidden pair"),
+    NAKED_TRIPLE(36, "Naked triple"),
+    HIDDEN_TRIPLE(38, "Hidden triple"),
+    X_WING(42, "X-Wing"),
+    SWORDFISH(48, "Swordfish"),
+    XY_WING(52, "XY-Wing"),
+    SIMPLE_COLORING(56, "Simple coloring"),
+    /** None of the techniques make progress; the puzzle needs guessing or harder chains. */
+    TRIAL_AND_ERROR(100, "Trial and error");
+
+    private final int score;
+    private final String displayName;
+
+    Technique(int score, String displayName) {
+        this.score = score;
+        this.displayName = displayName;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the name shown to players, e.g. in hints.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+}
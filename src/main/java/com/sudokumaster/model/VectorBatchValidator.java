@@ -0,0 +1,77 @@
+package com.sudokumaster.model;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BatchValidator} that checks one board per lane of the preferred short vector, 16
+ * boards at a time with AVX2. Digits are loaded as bytes, widened to shorts and turned into
+ * digit bits with a lanewise shift; boards left over after the last full vector are checked
+ * by the scalar code.
+ * <p>
+ * Only created reflectively by {@link BatchValidator#create()} when the
+ * {@code jdk.incubator.vector} module is present, so nothing else links against it.
+ */
+final class VectorBatchValidator extends BatchValidator {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    // Bytes with one lane per short lane, for loading one cell of a run of boards.
+    private static final VectorSpecies<Byte> BYTES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(SHORTS.length() * Byte.SIZE));
+    private static final short ALL_DIGITS = 0x1FF;
+
+    VectorBatchValidator() {
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    int check(byte[] cells, int stride, int from, int to, boolean complete, boolean[] results) {
+        int lanes = SHORTS.length();
+        short min = (short) (complete ? 1 : 0);
+        ShortVector one = ShortVector.broadcast(SHORTS, (short) 1);
+        int passed = 0;
+        int start = from;
+        for (; start + lanes <= to; start += lanes) {
+            VectorMask<Short> bad = SHORTS.maskAll(false);
+            for (int cell = 0; cell < BoardBatch.CELLS; cell++) {
+                ShortVector digits = load(cells, cell * stride + start);
+                bad = bad.or(digits.compare(VectorOperators.LT, min)).or(digits.compare(VectorOperators.GT, (short) 9));
+            }
+            for (int[] unit : UNITS) {
+                ShortVector seen = ShortVector.zero(SHORTS);
+                ShortVector conflicts = ShortVector.zero(SHORTS);
+                for (int cell : unit) {
+                    ShortVector digits = load(cells, cell * stride + start);
+                    // Shift counts are taken mod 16, so an empty cell lands on bit 15.
+                    ShortVector bit = one.lanewise(VectorOperators.LSHL, digits.sub((short) 1)).and(ALL_DIGITS);
+                    conflicts = conflicts.or(seen.and(bit));
+                    seen = seen.or(bit);
+                }
+                bad = bad.or(conflicts.compare(VectorOperators.NE, (short) 0));
+                if (complete) {
+                    bad = bad.or(seen.compare(VectorOperators.NE, ALL_DIGITS));
+                }
+            }
+            VectorMask<Short> ok = bad.not();
+            ok.intoArray(results, start);
+            passed += ok.trueCount();
+        }
+        if (start < to) {
+            passed += super.check(cells, stride, start, to, complete, results);
+        }
+        return passed;
+    }
+
+    private static ShortVector load(byte[] cells, int offset) {
+        return (ShortVector) ByteVector.fromArray(BYTES, cells, offset)
+                .convertShape(VectorOperators.B2S, SHORTS, 0);
+    }
+}
@@ -0,0 +1,311 @@
+package com.sudokumaster.view;
+
+import com.sudokumaster.model.SudokuBoard;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single component that paints the whole Sudoku grid.
+ * <p>
+ * The component keeps its own copy of what is on screen: the value, given flag, conflict flag
+ * and pencil-mark mask of every cell. Digits the model reports as conflicting are drawn in red.
+ * {@link #updateBoard(SudokuBoard, int[][])} copies only the cells the model marked dirty and
+ * repaints just their rectangles. Painting draws values and pencil marks directly with fonts
+ * and glyph widths that are measured once per cell size, and pencil marks are laid out like
+ * the box (3x3 on a 9x9 board). Mouse presses are mapped to cells and passed to the registered
+ * {@link CellSelectionListener}s.
+ */
+public class BoardComponent extends JComponent {
+
+    /**
+     * Receives the cell under a mouse press.
+     */
+    public interface CellSelectionListener {
+        void cellSelected(int row, int col);
+    }
+
+    private static final Color USER_COLOR = new Color(0, 0, 250);
+    private static final Color DARK_USER_COLOR = new Color(120, 170, 255);
+    private static final Color SELECTED_COLOR = Color.BLUE;
+    private static final int THIN_LINE = 1;
+    private static final int THICK_LINE = 3;
+    private static final int SELECTION_WIDTH = 2;
+
+    private int boxSize;
+    private int size;
+    // Displayed state, indexed by row * size + col.
+    private int[] values;
+    private boolean[] fixed;
+    private boolean[] conflicting;
+    private int[] marks;
+    private int selectedCell = -1;
+    private boolean dark;
+    private boolean fullRedraw = true;
+    private String[] digitText;
+    private final List<CellSelectionListener> listeners = new ArrayList<>();
+
+    // Layout, recomputed when the component is resized, and glyph metrics for the cell size.
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+    private int cellSize;
+    private int metricsCellSize = -1;
+    private int originX;
+    private int originY;
+    private Font valueFont;
+    private Font markFont;
+    private int[] valueWidths;
+    private int[] markWidths;
+    private int valueAscent;
+    private int valueHeight;
+    private int markAscent;
+    private int markHeight;
+
+    public BoardComponent(int boxSize) {
+        setBoxSize(boxSize);
+        setPreferredSize(new Dimension(540, 540));
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0) {
+                    for (CellSelectionListener listener : listeners) {
+                        listener.cellSelected(cell / size, cell % size);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Switches to boards with boxes of {@code boxSize x boxSize} cells and clears the display.
+     */
+    public void setBoxSize(int boxSize) {
+        this.boxSize = boxSize;
+        this.size = boxSize * boxSize;
+        values = new int[size * size];
+        fixed = new boolean[size * size];
+        conflicting = new boolean[size * size];
+        marks = new int[size * size];
+        digitText = new String[size + 1];
+        for (int digit = 1; digit <= size; digit++) {
+            digitText[digit] = String.valueOf(digit);
+        }
+        selectedCell = -1;
+        fullRedraw = true;
+        layoutWidth = -1;
+        metricsCellSize = -1;
+        repaint();
+    }
+
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    public void addCellSelectionListener(CellSelectionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void setDarkMode(boolean dark) {
+        this.dark = dark;
+        repaint();
+    }
+
+    /**
+     * Copies the cells that changed in the model, clears its dirty bitmap and repaints them.
+     *
+     * @param board      the board to display.
+     * @param fixedBoard the initial puzzle state (fixed numbers), or null.
+     */
+    public void updateBoard(SudokuBoard board, int[][] fixedBoard) {
+        int[][] grid = board.getBoard();
+        if (fullRedraw) {
+            board.markAllDirty();
+            fullRedraw = false;
+        }
+        for (int cell = board.nextDirtyCell(0); cell >= 0; cell = board.nextDirtyCell(cell + 1)) {
+            int row = cell / size;
+            int col = cell % size;
+            values[cell] = grid[row][col];
+            fixed[cell] = fixedBoard != null && grid[row][col] != 0 && grid[row][col] == fixedBoard[row][col];
+            conflicting[cell] = board.isConflicting(row, col);
+            marks[cell] = board.getAnnotationMask(row, col);
+            repaintCell(cell);
+        }
+        board.clearDirty();
+    }
+
+    /**
+     * Replaces the whole display. No cell is shown as conflicting.
+     *
+     * @param board      cell values, 0 for empty.
+     * @param fixedBoard the initial puzzle state (fixed numbers), or null.
+     * @param marks      pencil-mark mask of every cell (row * size + col), or null.
+     */
+    public void setCells(int[][] board, int[][] fixedBoard, int[] marks) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int cell = row * size + col;
+                values[cell] = board[row][col];
+                fixed[cell] = fixedBoard != null && board[row][col] != 0 && board[row][col] == fixedBoard[row][col];
+                conflicting[cell] = false;
+                this.marks[cell] = marks == null ? 0 : marks[cell];
+            }
+        }
+        repaint();
+    }
+
+    /**
+     * Highlights the selected cell; a negative row clears the selection.
+     */
+    public void setSelectedCell(int row, int col) {
+        if (selectedCell >= 0) {
+            repaintCell(selectedCell);
+        }
+        selectedCell = row < 0 ? -1 : row * size + col;
+        if (selectedCell >= 0) {
+            repaintCell(selectedCell);
+        }
+    }
+
+    /**
+     * Returns the cell index ({@code row * size + col}) at a point, or -1 outside the grid.
+     */
+    public int cellAt(int x, int y) {
+        updateLayout();
+        int dx = x - originX;
+        int dy = y - originY;
+        if (cellSize <= 0 || dx < 0 || dy < 0 || dx >= cellSize * size || dy >= cellSize * size) {
+            return -1;
+        }
+        return (dy / cellSize) * size + dx / cellSize;
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        updateLayout();
+        Graphics2D g = (Graphics2D) graphics;
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        Color background = dark ? Color.DARK_GRAY : Color.WHITE;
+        g.setColor(background);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (cellSize <= 0) {
+            return;
+        }
+        // Only the cells inside the clip are drawn.
+        int firstRow = Math.max(0, (clip.y - originY) / cellSize);
+        int lastRow = Math.min(size - 1, (clip.y + clip.height - originY) / cellSize);
+        int firstCol = Math.max(0, (clip.x - originX) / cellSize);
+        int lastCol = Math.min(size - 1, (clip.x + clip.width - originX) / cellSize);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                paintCell(g, row * size + col, originX + col * cellSize, originY + row * cellSize);
+            }
+        }
+        paintGrid(g);
+    }
+
+    private void paintCell(Graphics2D g, int cell, int x, int y) {
+        if (values[cell] != 0) {
+            g.setFont(valueFont);
+            if (conflicting[cell]) {
+                g.setColor(Color.RED);
+            } else {
+                g.setColor(fixed[cell] ? (dark ? Color.WHITE : Color.BLACK) : (dark ? DARK_USER_COLOR : USER_COLOR));
+            }
+            drawValue(g, values[cell], x, y);
+        } else if (marks[cell] != 0) {
+            g.setFont(markFont);
+            g.setColor(dark ? Color.LIGHT_GRAY : Color.GRAY);
+            int sub = cellSize / boxSize;
+            for (int bits = marks[cell]; bits != 0; bits &= bits - 1) {
+                int digit = Integer.numberOfTrailingZeros(bits) + 1;
+                // Digit n sits where it would in a box: row (n - 1) / boxSize, column (n - 1) % boxSize.
+                int subX = x + ((digit - 1) % boxSize) * sub;
+                int subY = y + ((digit - 1) / boxSize) * sub;
+                g.drawString(digitText[digit], subX + (sub - markWidths[digit]) / 2,
+                        subY + (sub - markHeight) / 2 + markAscent);
+            }
+        }
+        if (cell == selectedCell) {
+            g.setColor(SELECTED_COLOR);
+            g.fillRect(x, y, cellSize, SELECTION_WIDTH + 1);
+            g.fillRect(x, y + cellSize - SELECTION_WIDTH - 1, cellSize, SELECTION_WIDTH + 1);
+            g.fillRect(x, y, SELECTION_WIDTH + 1, cellSize);
+            g.fillRect(x + cellSize - SELECTION_WIDTH - 1, y, SELECTION_WIDTH + 1, cellSize);
+        }
+    }
+
+    private void drawValue(Graphics2D g, int digit, int x, int y) {
+        g.drawString(digitText[digit], x + (cellSize - valueWidths[digit]) / 2,
+                y + (cellSize - valueHeight) / 2 + valueAscent);
+    }
+
+    /**
+     * Draws thin lines between cells and thick lines between boxes and around the board.
+     */
+    private void paintGrid(Graphics2D g) {
+        g.setColor(dark ? Color.WHITE : Color.BLACK);
+        int extent = cellSize * size;
+        for (int i = 0; i <= size; i++) {
+            int width = i % boxSize == 0 ? THICK_LINE : THIN_LINE;
+            int offset = i * cellSize - width / 2;
+            g.fillRect(originX + offset, originY - THICK_LINE / 2, width, extent + THICK_LINE);
+            g.fillRect(originX - THICK_LINE / 2, originY + offset, extent + THICK_LINE, width);
+        }
+    }
+
+    private void repaintCell(int cell) {
+        updateLayout();
+        if (cellSize > 0) {
+            // Include the surrounding lines, which overlap the cell edges.
+            repaint(originX + (cell % size) * cellSize - THICK_LINE, originY + (cell / size) * cellSize - THICK_LINE,
+                    cellSize + 2 * THICK_LINE, cellSize + 2 * THICK_LINE);
+        }
+    }
+
+    /**
+     * Recomputes the cell size and the grid origin after a resize, and the glyph metrics when
+     * the cell size changed.
+     */
+    private void updateLayout() {
+        int width = getWidth();
+        int height = getHeight();
+        if (width == layoutWidth && height == layoutHeight) {
+            return;
+        }
+        layoutWidth = width;
+        layoutHeight = height;
+        cellSize = Math.max((Math.min(width, height) - 2 * THICK_LINE) / size, 0);
+        originX = (width - cellSize * size) / 2;
+        originY = (height - cellSize * size) / 2;
+        if (cellSize == 0 || cellSize == metricsCellSize) {
+            return;
+        }
+        metricsCellSize = cellSize;
+        Font base = new Font("Arial", Font.BOLD, 12);
+        valueFont = base.deriveFont(cellSize * (size > 9 ? 0.45f : 0.6f));
+        markFont = base.deriveFont(Font.PLAIN, Math.max(6f, cellSize / (float) boxSize * 0.75f));
+        FontMetrics valueMetrics = getFontMetrics(valueFont);
+        FontMetrics markMetrics = getFontMetrics(markFont);
+        valueWidths = new int[size + 1];
+        markWidths = new int[size + 1];
+        for (int digit = 1; digit <= size; digit++) {
+            valueWidths[digit] = valueMetrics.stringWidth(digitText[digit]);
+            markWidths[digit] = markMetrics.stringWidth(digitText[digit]);
+        }
+        valueAscent = valueMetrics.getAscent();
+        valueHeight = valueMetrics.getAscent() + valueMetrics.getDescent();
+        markAscent = markMetrics.getAscent();
+        markHeight = markMetrics.getAscent() + markMetrics.getDescent();
+    }
+}
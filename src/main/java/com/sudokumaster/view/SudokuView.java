@@ -1,40 +1,65 @@
 package com.sudokumaster.view;
 
+import com.sudokumaster.model.SudokuBoard;
+
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 
 /**
  * Basic GUI for the Sudoku game.
  * This class sets up the main frame, board grid, numeric input buttons,
- * and an options menu with dark mode toggle, annotation mode, show guides, and new game options.
+ * and an options menu with dark mode toggle, annotation mode, show guides, board size, undo/redo, hint and new game options.
+ * The number buttons are rebuilt by {@link #setBoxSize} when a game of another size starts.
+ * <p>
+ * The grid is a single {@link BoardComponent} that paints every cell itself; cell clicks are
+ * reported through {@link BoardComponent#addCellSelectionListener}.
  */
 public class SudokuView extends JFrame {
 
-    private JButton[][] boardCells;
-    private JPanel boardPanel;
+    // Board sizes offered in the Board Size menu, by box size.
+    private static final int[] BOX_SIZES = {2, 3, 4, 5};
+
+    private int boxSize;
+    private int size;
+    private BoardComponent boardComponent;
     private JPanel numberPanel;
     private JMenuBar menuBar;
     private JCheckBoxMenuItem darkModeToggle;
     private JMenuItem newGameItem;
+    private JMenuItem hintItem;
+    private JMenuItem undoItem;
+    private JMenuItem redoItem;
+    private JLabel statusLabel;
     private JCheckBoxMenuItem showGuidesToggle;
     private JCheckBoxMenuItem annotationModeToggle;
+    private JRadioButtonMenuItem[] boardSizeItems;
 
     public SudokuView() {
+        this(3);
+    }
+
+    /**
+     * Creates the window for boards with boxes of {@code boxSize x boxSize} cells.
+     */
+    public SudokuView(int boxSize) {
         super("Sudoku Master");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(600, 700);
         setLocationRelativeTo(null);
 
+        this.boxSize = boxSize;
+        this.size = boxSize * boxSize;
         initMenu();
-        initBoard();
+        boardComponent = new BoardComponent(boxSize);
         initNumberPanel();
 
+        statusLabel = new JLabel(" ");
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+
         setLayout(new BorderLayout());
-        add(boardPanel, BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.NORTH);
+        add(boardComponent, BorderLayout.CENTER);
         add(numberPanel, BorderLayout.SOUTH);
 
         setVisible(true);
@@ -55,6 +80,29 @@ public class SudokuView extends JFrame {
         showGuidesToggle = new JCheckBoxMenuItem("Show Guides");
         optionsMenu.add(showGuidesToggle);
 
+        JMenu boardSizeMenu = new JMenu("Board Size");
+        ButtonGroup sizeGroup = new ButtonGroup();
+        boardSizeItems = new JRadioButtonMenuItem[BOX_SIZES.length];
+        for (int i = 0; i < BOX_SIZES.length; i++) {
+            int n = BOX_SIZES[i] * BOX_SIZES[i];
+            boardSizeItems[i] = new JRadioButtonMenuItem(n + "x" + n, BOX_SIZES[i] == boxSize);
+            sizeGroup.add(boardSizeItems[i]);
+            boardSizeMenu.add(boardSizeItems[i]);
+        }
+        optionsMenu.add(boardSizeMenu);
+
+        int shortcut = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        undoItem = new JMenuItem("Undo");
+        undoItem.setAccelerator(KeyStroke.getKeyStroke('Z', shortcut));
+        optionsMenu.add(undoItem);
+        redoItem = new JMenuItem("Redo");
+        redoItem.setAccelerator(KeyStroke.getKeyStroke('Y', shortcut));
+        optionsMenu.add(redoItem);
+
+        hintItem = new JMenuItem("Hint");
+        hintItem.setAccelerator(KeyStroke.getKeyStroke('H', shortcut));
+        optionsMenu.add(hintItem);
+
         newGameItem = new JMenuItem("New Game");
         optionsMenu.add(newGameItem);
 
@@ -62,106 +110,119 @@ public class SudokuView extends JFrame {
         setJMenuBar(menuBar);
     }
 
-    private void initBoard() {
-        boardPanel = new JPanel(new GridLayout(9, 9));
-        boardCells = new JButton[9][9];
-
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                JButton cell = new JButton("");
-                cell.setFont(new Font("Arial", Font.BOLD, 20));
-                // Define borders: thicker borders at the beginning of each 3x3 block.
-                int top = (i % 3 == 0) ? 3 : 1;
-                int left = (j % 3 == 0) ? 3 : 1;
-                int bottom = (i == 8) ? 3 : 1;
-                int right = (j == 8) ? 3 : 1;
-                cell.setBorder(BorderFactory.createMatteBorder(top, left, bottom, right, Color.BLACK));
-                boardCells[i][j] = cell;
-                boardPanel.add(cell);
-            }
-        }
-    }
-
     private void initNumberPanel() {
         numberPanel = new JPanel(new FlowLayout());
-        for (int i = 1; i <= 9; i++) {
+        for (int i = 1; i <= size; i++) {
             JButton numberButton = new JButton(String.valueOf(i));
             numberButton.setFont(new Font("Arial", Font.BOLD, 18));
             numberPanel.add(numberButton);
         }
     }
 
+    /**
+     * Switches the grid to boards with boxes of {@code boxSize x boxSize} cells and rebuilds the
+     * number buttons. Listeners attached to the old buttons are discarded with them.
+     */
+    public void setBoxSize(int boxSize) {
+        if (boxSize == this.boxSize) {
+            return;
+        }
+        this.boxSize = boxSize;
+        this.size = boxSize * boxSize;
+        boardComponent.setBoxSize(boxSize);
+        remove(numberPanel);
+        initNumberPanel();
+        add(numberPanel, BorderLayout.SOUTH);
+        toggleDarkMode(darkModeToggle.isSelected());
+        revalidate();
+        repaint();
+    }
+
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    /**
+     * Returns the box size chosen in the Board Size menu, used for the next new game.
+     */
+    public int getSelectedBoxSize() {
+        for (int i = 0; i < boardSizeItems.length; i++) {
+            if (boardSizeItems[i].isSelected()) {
+                return BOX_SIZES[i];
+            }
+        }
+        return boxSize;
+    }
+
     public void toggleDarkMode(boolean isDark) {
         Color backgroundColor = isDark ? Color.DARK_GRAY : Color.WHITE;
         Color foregroundColor = isDark ? Color.WHITE : Color.BLACK;
-        boardPanel.setBackground(backgroundColor);
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                boardCells[i][j].setBackground(backgroundColor);
-                boardCells[i][j].setForeground(foregroundColor);
-            }
-        }
+        boardComponent.setDarkMode(isDark);
         numberPanel.setBackground(backgroundColor);
         numberPanel.setForeground(foregroundColor);
+        getContentPane().setBackground(backgroundColor);
+        statusLabel.setForeground(foregroundColor);
     }
 
     /**
      * Simple updateBoard method using the current board state.
      */
     public void updateBoard(int[][] board) {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                boardCells[i][j].setText(board[i][j] == 0 ? "" : String.valueOf(board[i][j]));
-            }
-        }
+        boardComponent.setCells(board, null, null);
     }
 
     /**
      * Overloaded updateBoard method.
      * Differentiates fixed numbers (displayed in BLACK) from user inputs (displayed in DARK BLUE).
-     * Displays annotations (if any) in GRAY.
+     * Displays annotations (if any) in GRAY. Redraws every cell; prefer
+     * {@link #updateBoard(SudokuBoard, int[][])}, which only touches changed cells.
      *
      * @param board       The current board state.
      * @param fixedBoard  The initial puzzle state (fixed numbers).
      * @param annotations The annotations for each cell.
      */
     public void updateBoard(int[][] board, int[][] fixedBoard, Set<Integer>[][] annotations) {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                if (board[i][j] != 0) {
-                    boardCells[i][j].setText(String.valueOf(board[i][j]));
-                    if (fixedBoard != null && board[i][j] == fixedBoard[i][j]) {
-                        boardCells[i][j].setForeground(Color.BLACK);
-                    } else {
-                        boardCells[i][j].setForeground(new Color(0, 0, 250)); // User input in dark blue.
+        int[] marks = null;
+        if (annotations != null) {
+            marks = new int[size * size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    for (int note : annotations[i][j]) {
+                        marks[i * size + j] |= 1 << (note - 1);
                     }
-                    boardCells[i][j].setFont(new Font("Arial", Font.BOLD, 20));
-                } else if (annotations != null && !annotations[i][j].isEmpty()) {
-                    StringBuilder sb = new StringBuilder("<html><small>");
-                    List<Integer> sortedNotes = new ArrayList<>(annotations[i][j]);
-                    Collections.sort(sortedNotes);
-                    for (Integer note : sortedNotes) {
-                        sb.append(note).append(" ");
-                    }
-                    sb.append("</small></html>");
-                    boardCells[i][j].setText(sb.toString());
-                    boardCells[i][j].setFont(new Font("Arial", Font.PLAIN, 12));
-                    boardCells[i][j].setForeground(Color.GRAY);
-                } else {
-                    boardCells[i][j].setText("");
                 }
-                // Reapply the cell borders.
-                int top = (i % 3 == 0) ? 3 : 1;
-                int left = (j % 3 == 0) ? 3 : 1;
-                int bottom = (i == 8) ? 3 : 1;
-                int right = (j == 8) ? 3 : 1;
-                boardCells[i][j].setBorder(BorderFactory.createMatteBorder(top, left, bottom, right, Color.BLACK));
             }
         }
+        boardComponent.setCells(board, fixedBoard, marks);
     }
 
-    public JButton[][] getBoardCells() {
-        return boardCells;
+    /**
+     * Redraws the cells that changed since the last update, as reported by the board's dirty
+     * bitmap, and clears the bitmap. Conflicting digits are shown in red. The whole grid is redrawn after a size change.
+     *
+     * @param board      The board to display.
+     * @param fixedBoard The initial puzzle state (fixed numbers).
+     */
+    public void updateBoard(SudokuBoard board, int[][] fixedBoard) {
+        boardComponent.updateBoard(board, fixedBoard);
+    }
+
+    /**
+     * Highlights the selected cell; a negative row clears the selection.
+     */
+    public void setSelectedCell(int row, int col) {
+        boardComponent.setSelectedCell(row, col);
+    }
+
+    /**
+     * Shows a one-line message above the board; an empty message clears it.
+     */
+    public void setStatus(String message) {
+        statusLabel.setText(message.isEmpty() ? " " : message);
+    }
+
+    public BoardComponent getBoardComponent() {
+        return boardComponent;
     }
 
     public JPanel getNumberPanel() {
@@ -172,6 +233,18 @@ public class SudokuView extends JFrame {
         return darkModeToggle;
     }
 
+    public JMenuItem getUndoItem() {
+        return undoItem;
+    }
+
+    public JMenuItem getRedoItem() {
+        return redoItem;
+    }
+
+    public JMenuItem getHintItem() {
+        return hintItem;
+    }
+
     public JMenuItem getNewGameItem() {
         return newGameItem;
     }
@@ -0,0 +1,142 @@
+package com.sudokumaster.cli;
+
+import com.sudokumaster.io.PuzzleCodec;
+import com.sudokumaster.model.SolutionCounter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the headless SudokuCli.
+ */
+public class SudokuCliTest {
+
+    private static final String HARD_17 =
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000";
+
+    private static String[] run(String input, String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int code = SudokuCli.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), out,
+                new PrintStream(err, true, StandardCharsets.US_ASCII));
+        assertEquals(0, code, err.toString(StandardCharsets.US_ASCII));
+        return out.toString(StandardCharsets.US_ASCII).split("\n");
+    }
+
+    @Test
+    public void testValidateKeepsInputOrder() {
+        String[] lines = run(HARD_17 + "\nnot a puzzle\n" + ".".repeat(81) + "\n", "validate", "--quiet", "--threads", "2");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].endsWith("\tunique"));
+        assertEquals("not a puzzle\tmalformed", lines[1]);
+        assertTrue(lines[2].endsWith("\tmultiple"));
+    }
+
+    @Test
+    public void testSolveAndGenerate() {
+        String[] solved = run(HARD_17 + "\n", "solve", "--quiet");
+        assertEquals(1, solved.length);
+        assertFalse(solved[0].contains("."));
+
+        String[] generated = run("", "generate", "--difficulty", "easy", "--count", "5", "--quiet");
+        assertEquals(5, generated.length);
+        for (String line : generated) {
+            assertEquals(81, line.length());
+        }
+
+        for (String line : run("", "generate", "--difficulty", "hard", "--count", "3", "--quiet")) {
+            assertTrue(run(line + "\n", "rate", "--quiet")[0].endsWith("\tHARD"), "Puzzles rate at the requested difficulty.");
+        }
+    }
+
+    @Test
+    public void testGenerateFromSeeds() throws IOException {
+        Path seeds = Files.createTempFile("seeds", ".txt");
+        try {
+            Files.writeString(seeds, HARD_17 + "\nnot a puzzle\n" + ".".repeat(81) + "\n");
+            String[] lines = run("", "generate", "--difficulty", "easy", "--count", "20", "--seeds", seeds.toString(), "--quiet");
+            assertEquals(20, lines.length);
+            for (String line : lines) {
+                assertEquals(17, line.chars().filter(c -> c != '.').count());
+                assertTrue(run(line + "\n", "validate", "--quiet")[0].endsWith("\tunique"));
+            }
+        } finally {
+            Files.delete(seeds);
+        }
+    }
+
+    @Test
+    public void testGenerateMinimal() {
+        String[] lines = run("", "generate", "--difficulty", "medium", "--count", "3", "--minimal", "--distinct",
+                "--threads", "2", "--quiet");
+        assertEquals(3, lines.length);
+        SolutionCounter counter = new SolutionCounter();
+        byte[] cells = new byte[81];
+        for (String line : lines) {
+            assertTrue(run(line + "\n", "rate", "--quiet")[0].endsWith("\tMEDIUM"));
+            assertTrue(PuzzleCodec.parseLine(line, cells));
+            assertTrue(counter.hasUniqueSolution(cells));
+            for (int cell = 0; cell < 81; cell++) {
+                if (cells[cell] != 0) {
+                    byte value = cells[cell];
+                    cells[cell] = 0;
+                    assertFalse(counter.hasUniqueSolution(cells), "Every given should be necessary.");
+                    cells[cell] = value;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCheck() {
+        String solved = run(HARD_17 + "\n", "solve", "--quiet")[0];
+        String conflict = "11" + HARD_17.substring(2);
+        String[] lines = run(solved + "\n" + HARD_17 + "\n" + conflict + "\nnot a puzzle\n", "check", "--quiet");
+        assertEquals(4, lines.length);
+        assertEquals(solved + "\tsolved", lines[0]);
+        assertTrue(lines[1].endsWith("\tvalid"));
+        assertTrue(lines[2].endsWith("\tinvalid"));
+        assertEquals("not a puzzle\tmalformed", lines[3]);
+    }
+
+    @Test
+    public void testRate() {
+        String[] lines = run(HARD_17 + "\n", "rate", "--quiet");
+        assertEquals(1, lines.length);
+        String[] fields = lines[0].split("\t");
+        assertEquals(4, fields.length);
+        assertEquals(HARD_17.replace('0', '.'), fields[0]);
+        assertEquals("HIDDEN_SINGLE", fields[2]);
+        assertEquals("EASY", fields[3]);
+    }
+
+    @Test
+    public void testUsageErrors() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream errStream = new PrintStream(err, true, StandardCharsets.US_ASCII);
+        assertEquals(2, SudokuCli.run(new String[]{"explode"}, System.in, new ByteArrayOutputStream(), errStream));
+        assertEquals(2, SudokuCli.run(new String[]{"generate", "--count"}, System.in, new ByteArrayOutputStream(), errStream));
+        assertEquals(2, SudokuCli.run(new String[]{"generate", "--distinct", "--seeds", "x"}, System.in,
+                new ByteArrayOutputStream(), errStream));
+        assertEquals(2, SudokuCli.run(new String[]{"generate", "--minimal", "--seeds", "x"}, System.in,
+                new ByteArrayOutputStream(), errStream));
+    }
+
+    @Test
+    public void testWorkerFailuresBecomeIoErrors() {
+        IOException failure = SudokuCli.workerFailure(new ExecutionException(new IllegalStateException("boom")));
+        assertEquals("worker failed: boom", failure.getMessage());
+        IOException io = new IOException("disk full");
+        assertSame(io, SudokuCli.workerFailure(new ExecutionException(new UncheckedIOException(io))));
+    }
+}
@@ -0,0 +1,31 @@
+package com.sudokumaster.controller;
+
+import com.sudokumaster.model.MoveJournal;
+import com.sudokumaster.model.SudokuBoard;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SudokuController class.
+ */
+public class SudokuControllerTest {
+
+    @Test
+    public void testGivensCannotBeOverwritten() {
+        int[][] fixedBoard = new int[9][9];
+        fixedBoard[0][0] = 5;
+        SudokuBoard board = new SudokuBoard();
+        board.resetBoard(fixedBoard);
+        MoveJournal journal = new MoveJournal(board);
+
+        assertFalse(SudokuController.enterNumber(journal, fixedBoard, 0, 0, 7));
+        assertEquals(5, board.getBoard()[0][0], "The given keeps its digit.");
+        assertEquals(0, journal.getCurrentMove(), "Nothing is recorded.");
+
+        assertTrue(SudokuController.enterNumber(journal, fixedBoard, 0, 1, 5));
+        assertEquals(5, board.getBoard()[0][1], "Other cells take conflicting entries.");
+        assertTrue(board.isConflicting(0, 0));
+        assertEquals(1, journal.getCurrentMove());
+    }
+}
@@ -0,0 +1,201 @@
+package com.sudokumaster.io;
+
+import com.sudokumaster.model.Difficulty;
+import com.sudokumaster.model.MoveJournal;
+import com.sudokumaster.model.PuzzleGenerator;
+import com.sudokumaster.model.SudokuBoard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GameStore.
+ */
+public class GameStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static int[][] copy(int[][] grid) {
+        int[][] copy = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) {
+            copy[i] = grid[i].clone();
+        }
+        return copy;
+    }
+
+    private static void assertSameGame(SudokuBoard expected, SudokuBoard actual) {
+        assertTrue(Arrays.deepEquals(expected.getBoard(), actual.getBoard()));
+        for (int row = 0; row < expected.getSize(); row++) {
+            for (int col = 0; col < expected.getSize(); col++) {
+                assertEquals(expected.getAnnotationMask(row, col), actual.getAnnotationMask(row, col));
+            }
+        }
+    }
+
+    /**
+     * Starts a saved game and makes a few moves, including an undo and a redo.
+     */
+    private static MoveJournal play(GameStore store, SudokuBoard board, int[][] givens) {
+        store.saveSnapshot(board, givens);
+        MoveJournal journal = new MoveJournal(board);
+        journal.setChangeListener(store);
+        int moves = 0;
+        for (int cell = 0; cell < 81 && moves < 6; cell++) {
+            int row = cell / 9;
+            int col = cell % 9;
+            if (board.getBoard()[row][col] == 0) {
+                journal.toggleAnnotation(row, col, 1 + cell % 9);
+                int candidates = board.getCandidates(row, col);
+                journal.placeNumber(row, col, Integer.numberOfTrailingZeros(candidates) + 1);
+                moves++;
+            }
+        }
+        journal.undo();
+        journal.undo();
+        journal.redo();
+        return journal;
+    }
+
+    @Test
+    public void testResumeRestoresSnapshotAndJournal() throws IOException {
+        SudokuBoard board = PuzzleGenerator.generateUniquePuzzle(3, Difficulty.MEDIUM, 7);
+        int[][] givens = copy(board.getBoard());
+        try (GameStore store = new GameStore(directory)) {
+            assertNull(store.load(), "Nothing saved yet.");
+            play(store, board, givens);
+        }
+        try (GameStore store = new GameStore(directory)) {
+            GameStore.SavedGame saved = store.load();
+            assertNotNull(saved);
+            assertSameGame(board, saved.board());
+            assertTrue(Arrays.deepEquals(givens, saved.fixedBoard()));
+            assertTrue(saved.board().hasSolution(), "The generated puzzle's solution is saved.");
+            for (int cell = 0; cell < 81; cell++) {
+                assertEquals(board.getSolutionDigit(cell / 9, cell % 9), saved.board().getSolutionDigit(cell / 9, cell % 9));
+            }
+            assertEquals(board.getCorrectCount(), saved.board().getCorrectCount());
+        }
+    }
+
+    @Test
+    public void testVersionOneSnapshotIsRead() throws IOException {
+        // A 4x4 game in the format without flags or solution: one given and one mark.
+        ByteBuffer out = ByteBuffer.allocate(GameStore.HEADER_SIZE + 6 * 16 + 4);
+        out.putInt(GameStore.SNAPSHOT_MAGIC).putShort(GameStore.VERSION).put((byte) 2).put((byte) 0).putLong(1);
+        byte[] bytes = out.array();
+        bytes[GameStore.HEADER_SIZE] = 3;
+        bytes[GameStore.HEADER_SIZE + 16] = 3;
+        bytes[GameStore.HEADER_SIZE + 32 + 4 * 5 + 3] = 0b10;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        ByteBuffer.wrap(bytes).putInt(bytes.length - 4, (int) crc.getValue());
+        Files.write(directory.resolve(GameStore.SNAPSHOT_FILE), bytes);
+        try (GameStore store = new GameStore(directory)) {
+            GameStore.SavedGame saved = store.load();
+            assertEquals(3, saved.board().getBoard()[0][0]);
+            assertEquals(0b10, saved.board().getAnnotationMask(1, 1));
+            assertFalse(saved.board().hasSolution());
+        }
+    }
+
+    @Test
+    public void testTornBatchIsDroppedAndJournalContinues() throws IOException {
+        SudokuBoard board = PuzzleGenerator.generateUniquePuzzle(3, Difficulty.EASY, 8);
+        int[][] givens = copy(board.getBoard());
+        try (GameStore store = new GameStore(directory)) {
+            store.load();
+            play(store, board, givens);
+        }
+        // A crash in the middle of a batch: a count with only part of its entries.
+        try (FileChannel channel = FileChannel.open(directory.resolve(GameStore.JOURNAL_FILE), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 5, 1, 2, 3}));
+        }
+        SudokuBoard resumed;
+        try (GameStore store = new GameStore(directory)) {
+            GameStore.SavedGame saved = store.load();
+            assertSameGame(board, saved.board());
+            resumed = saved.board();
+            MoveJournal journal = new MoveJournal(resumed);
+            journal.setChangeListener(store);
+            for (int cell = 0; cell < 81; cell++) {
+                if (resumed.getBoard()[cell / 9][cell % 9] == 0) {
+                    journal.toggleAnnotation(cell / 9, cell % 9, 9);
+                    break;
+                }
+            }
+        }
+        try (GameStore store = new GameStore(directory)) {
+            assertSameGame(resumed, store.load().board());
+        }
+    }
+
+    @Test
+    public void testJournalOfOlderSnapshotIsIgnored() throws IOException {
+        SudokuBoard board = PuzzleGenerator.generateUniquePuzzle(2, Difficulty.EASY, 9);
+        int[][] givens = copy(board.getBoard());
+        try (GameStore store = new GameStore(directory)) {
+            store.load();
+            store.saveSnapshot(board, givens);
+            MoveJournal journal = new MoveJournal(board);
+            journal.setChangeListener(store);
+            for (int cell = 0; cell < 16; cell++) {
+                if (board.getBoard()[cell / 4][cell % 4] == 0) {
+                    journal.toggleAnnotation(cell / 4, cell % 4, 2);
+                    break;
+                }
+            }
+        }
+        // As if the process died after renaming a newer snapshot but before resetting the journal.
+        Path journalFile = directory.resolve(GameStore.JOURNAL_FILE);
+        byte[] bytes = Files.readAllBytes(journalFile);
+        bytes[15]--;
+        Files.write(journalFile, bytes);
+        try (GameStore store = new GameStore(directory)) {
+            SudokuBoard resumed = store.load().board();
+            assertTrue(Arrays.deepEquals(givens, resumed.getBoard()));
+            for (int cell = 0; cell < 16; cell++) {
+                assertEquals(0, resumed.getAnnotationMask(cell / 4, cell % 4));
+            }
+        }
+    }
+
+    @Test
+    public void testLongSessionsAreCompacted() throws IOException {
+        SudokuBoard board = PuzzleGenerator.generateUniquePuzzle(3, Difficulty.EASY, 10);
+        int[][] givens = copy(board.getBoard());
+        int empty = 0;
+        while (board.getBoard()[empty / 9][empty % 9] != 0) {
+            empty++;
+        }
+        try (GameStore store = new GameStore(directory)) {
+            store.load();
+            MoveJournal journal = play(store, board, givens);
+            for (int i = 0; i < 3 * GameStore.COMPACT_ENTRIES + 1; i++) {
+                journal.toggleAnnotation(empty / 9, empty % 9, 1 + i % 9);
+            }
+        }
+        assertTrue(Files.size(directory.resolve(GameStore.JOURNAL_FILE)) < 4L * GameStore.COMPACT_ENTRIES + 64);
+        try (GameStore store = new GameStore(directory)) {
+            assertSameGame(board, store.load().board());
+        }
+    }
+
+    @Test
+    public void testCorruptSnapshotIsReported() throws IOException {
+        Files.write(directory.resolve(GameStore.SNAPSHOT_FILE), new byte[] {1, 2, 3});
+        try (GameStore store = new GameStore(directory)) {
+            assertThrows(IOException.class, store::load);
+        }
+    }
+}
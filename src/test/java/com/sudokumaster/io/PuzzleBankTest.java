@@ -0,0 +1,76 @@
+package com.sudokumaster.io;
+
+import com.sudokumaster.model.Difficulty;
+import com.sudokumaster.model.SudokuBoard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PuzzleCodec, PuzzleBank and PuzzleBankWriter.
+ */
+public class PuzzleBankTest {
+
+    private static byte[] grid(int seed) {
+        byte[] cells = new byte[81];
+        for (int i = 0; i < 81; i++) {
+            int row = i / 9;
+            int col = i % 9;
+            cells[i] = (byte) ((row * 3 + row / 3 + col + seed) % 9 + 1);
+        }
+        return cells;
+    }
+
+    private static byte[] puzzle(int seed) {
+        byte[] cells = grid(seed);
+        for (int i = seed % 3; i < 81; i += 3) {
+            cells[i] = 0;
+        }
+        return cells;
+    }
+
+    @Test
+    public void testPackRoundTrip() {
+        byte[] cells = puzzle(4);
+        byte[] packed = new byte[PuzzleCodec.PACKED_SIZE + 3];
+        PuzzleCodec.pack(cells, packed, 3);
+        byte[] unpacked = new byte[81];
+        PuzzleCodec.unpack(packed, 3, unpacked);
+        assertArrayEquals(cells, unpacked);
+    }
+
+    @Test
+    public void testWriteAndReadBankWithSolutions(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("puzzles.bank");
+        try (PuzzleBankWriter writer = PuzzleBank.create(file, true)) {
+            for (int i = 0; i < 2000; i++) {
+                writer.add(Difficulty.EASY, puzzle(i), grid(i));
+            }
+            for (int i = 0; i < 5; i++) {
+                writer.add(Difficulty.HARD, puzzle(i + 1), grid(i + 1));
+            }
+            assertThrows(IllegalStateException.class, () -> writer.add(Difficulty.EASY, puzzle(0), grid(0)));
+        }
+
+        try (PuzzleBank bank = PuzzleBank.open(file)) {
+            assertTrue(bank.hasSolutions());
+            assertEquals(2000, bank.count(Difficulty.EASY));
+            assertEquals(0, bank.count(Difficulty.MEDIUM));
+            assertEquals(5, bank.count(Difficulty.HARD));
+            byte[] cells = new byte[81];
+            bank.readPuzzle(Difficulty.EASY, 1999, cells);
+            assertArrayEquals(puzzle(1999), cells);
+            bank.readSolution(Difficulty.HARD, 4, cells);
+            assertArrayEquals(grid(5), cells);
+            SudokuBoard board = bank.load(Difficulty.HARD, 0);
+            assertEquals(puzzle(1)[0], board.getBoard()[0][0]);
+            assertTrue(board.hasSolution(), "Loaded boards carry the stored solution.");
+            assertEquals(grid(1)[80], board.getSolutionDigit(8, 8));
+            assertThrows(IndexOutOfBoundsException.class, () -> bank.readPuzzle(Difficulty.MEDIUM, 0, cells));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the BatchValidator class.
+ */
+public class BatchValidatorTest {
+
+    private static int[][] toBoard(byte[] cells) {
+        int[][] board = new int[9][9];
+        for (int cell = 0; cell < 81; cell++) {
+            board[cell / 9][cell % 9] = cells[cell];
+        }
+        return board;
+    }
+
+    private static boolean isComplete(byte[] cells) {
+        for (byte value : cells) {
+            if (value == 0) {
+                return false;
+            }
+        }
+        return PuzzleGenerator.validateBoard(toBoard(cells));
+    }
+
+    /**
+     * Solved grids, puzzles, and both with defects: a swapped pair, a duplicate, an empty cell
+     * or a value out of range.
+     */
+    private static BoardBatch mixedBatch(int count, SplittableRandom random, byte[][] boards) {
+        ScalableSolver solver = new ScalableSolver(3);
+        BoardBatch batch = new BoardBatch(count);
+        for (int i = 0; i < count; i++) {
+            byte[] cells = new byte[81];
+            solver.fill(random, cells);
+            if (random.nextBoolean()) {
+                for (int cell = 0; cell < 81; cell++) {
+                    if (random.nextInt(3) > 0) {
+                        cells[cell] = 0;
+                    }
+                }
+            }
+            int cell = random.nextInt(81);
+            switch (random.nextInt(6)) {
+                case 0:
+                    int other = random.nextInt(81);
+                    byte swap = cells[cell];
+                    cells[cell] = cells[other];
+                    cells[other] = swap;
+                    break;
+                case 1:
+                    cells[cell] = (byte) (1 + random.nextInt(9));
+                    break;
+                case 2:
+                    cells[cell] = 0;
+                    break;
+                case 3:
+                    cells[cell] = (byte) (random.nextBoolean() ? 10 : -1);
+                    break;
+                default:
+                    break;
+            }
+            boards[i] = cells;
+            batch.add(cells);
+        }
+        return batch;
+    }
+
+    private static void assertAgreesWithSingleBoardChecks(BatchValidator validator) {
+        int count = 1000;
+        byte[][] boards = new byte[count][];
+        BoardBatch batch = mixedBatch(count, new SplittableRandom(23), boards);
+        boolean[] solved = new boolean[count];
+        boolean[] valid = new boolean[count];
+        int solvedCount = validator.checkSolved(batch, solved);
+        int validCount = validator.checkValid(batch, valid);
+        int expectedSolved = 0;
+        int expectedValid = 0;
+        for (int i = 0; i < count; i++) {
+            boolean inRange = true;
+            for (byte value : boards[i]) {
+                inRange &= value >= 0 && value <= 9;
+            }
+            boolean expected = inRange && PuzzleGenerator.validateBoard(toBoard(boards[i]));
+            assertEquals(expected, valid[i], "board " + i);
+            assertEquals(inRange && isComplete(boards[i]), solved[i], "board " + i);
+            expectedValid += expected ? 1 : 0;
+            expectedSolved += solved[i] ? 1 : 0;
+        }
+        assertEquals(expectedValid, validCount);
+        assertEquals(expectedSolved, solvedCount);
+        assertTrue(solvedCount > 0 && solvedCount < validCount && validCount < count);
+    }
+
+    @Test
+    public void testScalarValidator() {
+        assertFalse(BatchValidator.scalar().isVectorized());
+        assertAgreesWithSingleBoardChecks(BatchValidator.scalar());
+    }
+
+    @Test
+    public void testVectorValidator() {
+        // The tests run with the incubator module added, so the Vector API path is taken.
+        BatchValidator validator = BatchValidator.create();
+        assertTrue(validator.isVectorized());
+        assertAgreesWithSingleBoardChecks(validator);
+    }
+}
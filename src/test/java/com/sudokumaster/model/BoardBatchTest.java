@@ -0,0 +1,55 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import static com.sudokumaster.model.TestPuzzles.HARD_17;
+import static com.sudokumaster.model.TestPuzzles.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the BoardBatch class.
+ */
+public class BoardBatchTest {
+
+    @Test
+    public void testAddAndGetRoundTrip() {
+        BoardBatch batch = new BoardBatch(3);
+        byte[] puzzle = parse(HARD_17);
+        byte[] other = new byte[81];
+        other[40] = 5;
+        assertEquals(0, batch.add(puzzle));
+        assertEquals(1, batch.add(other));
+        byte[] out = new byte[81];
+        batch.get(0, out);
+        assertArrayEquals(puzzle, out);
+        batch.get(1, out);
+        assertArrayEquals(other, out);
+        batch.set(0, other);
+        batch.get(0, out);
+        assertArrayEquals(other, out);
+        assertEquals(2, batch.size());
+        batch.add(puzzle);
+        assertThrows(IllegalStateException.class, () -> batch.add(puzzle));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.get(3, out));
+    }
+
+    @Test
+    public void testSolve() {
+        BoardBatch puzzles = new BoardBatch(2);
+        puzzles.add(parse(HARD_17));
+        byte[] broken = parse(HARD_17);
+        broken[0] = broken[7];
+        puzzles.add(broken);
+        BoardBatch solutions = new BoardBatch(2);
+        boolean[] solved = new boolean[2];
+        assertEquals(1, puzzles.solve(solutions, solved));
+        assertTrue(solved[0]);
+        assertFalse(solved[1]);
+        boolean[] complete = new boolean[2];
+        assertEquals(1, BatchValidator.create().checkSolved(solutions, complete));
+        assertTrue(complete[0]);
+        byte[] out = new byte[81];
+        solutions.get(1, out);
+        assertArrayEquals(broken, out);
+    }
+}
@@ -0,0 +1,53 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CanonicalIndex class.
+ */
+public class CanonicalIndexTest {
+
+    @Test
+    public void testAddAndContainsWhileGrowing() {
+        for (boolean offHeap : new boolean[] {false, true}) {
+            CanonicalIndex index = new CanonicalIndex(0, offHeap);
+            SplittableRandom random = new SplittableRandom(3);
+            long[] keys = new long[20_000];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+                assertTrue(index.add(keys[i], i));
+            }
+            assertEquals(keys.length, index.size());
+            for (int i = 0; i < keys.length; i++) {
+                assertTrue(index.contains(keys[i], i));
+                assertFalse(index.add(keys[i], i));
+                assertFalse(index.contains(keys[i], i + 1));
+            }
+            assertTrue(index.add(0, 0));
+            assertTrue(index.contains(0, 0));
+            assertEquals(offHeap, index.isOffHeap());
+        }
+    }
+
+    @Test
+    public void testBatchRejectsTransformedCopies() {
+        CanonicalIndex seen = new CanonicalIndex();
+        List<SudokuBoard> puzzles = PuzzleGenerator.generateBatch(Difficulty.EASY, 30, 2, seen);
+        assertEquals(30, puzzles.size());
+        assertEquals(30, seen.size());
+        Canonicalizer canonicalizer = new Canonicalizer();
+        byte[] cells = new byte[81];
+        for (SudokuBoard board : puzzles) {
+            for (int cell = 0; cell < 81; cell++) {
+                cells[cell] = (byte) board.getBoard()[cell / 9][cell % 9];
+            }
+            canonicalizer.canonicalize(cells, cells);
+            assertFalse(seen.add(cells), "Every accepted form is in the index.");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static com.sudokumaster.model.TestPuzzles.HARD_17;
+import static com.sudokumaster.model.TestPuzzles.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Canonicalizer class.
+ */
+public class CanonicalizerTest {
+
+    private static void shuffle(int[] values, int from, int to, SplittableRandom random) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    /**
+     * Returns a random order of rows (or columns) that keeps bands (or stacks) together.
+     */
+    private static int[] lineOrder(SplittableRandom random) {
+        int[] bands = {0, 1, 2};
+        shuffle(bands, 0, 3, random);
+        int[] order = new int[9];
+        for (int i = 0; i < 9; i++) {
+            order[i] = bands[i / 3] * 3 + i % 3;
+        }
+        for (int band = 0; band < 3; band++) {
+            shuffle(order, band * 3, band * 3 + 3, random);
+        }
+        return order;
+    }
+
+    /**
+     * Applies a random symmetry transform.
+     */
+    private static byte[] transform(byte[] puzzle, SplittableRandom random) {
+        int[] digits = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        shuffle(digits, 1, 10, random);
+        int[] rows = lineOrder(random);
+        int[] cols = lineOrder(random);
+        boolean transpose = random.nextBoolean();
+        byte[] result = new byte[81];
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                int source = transpose ? cols[col] * 9 + rows[row] : rows[row] * 9 + cols[col];
+                result[row * 9 + col] = (byte) digits[puzzle[source]];
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testTransformedCopiesShareTheForm() {
+        Canonicalizer canonicalizer = new Canonicalizer();
+        SplittableRandom random = new SplittableRandom(11);
+        GeneratorCore core = new GeneratorCore(5);
+        for (int n = 0; n < 20; n++) {
+            byte[] puzzle = new byte[81];
+            if (n == 0) {
+                puzzle = parse(HARD_17);
+            } else {
+                core.generate(Difficulty.values()[n % 3], puzzle, null);
+            }
+            byte[] form = new byte[81];
+            canonicalizer.canonicalize(puzzle, form);
+            assertTrue(Arrays.compare(form, puzzle) <= 0, "The puzzle itself is one of the copies.");
+            for (int i = 0; i < 10; i++) {
+                byte[] copy = transform(puzzle, random);
+                byte[] copyForm = new byte[81];
+                canonicalizer.canonicalize(copy, copyForm);
+                assertArrayEquals(form, copyForm);
+            }
+            canonicalizer.canonicalize(form, puzzle);
+            assertArrayEquals(form, puzzle, "The canonical form is its own form.");
+        }
+    }
+
+    @Test
+    public void testDifferentPuzzlesHaveDifferentForms() {
+        Canonicalizer canonicalizer = new Canonicalizer();
+        byte[] puzzle = parse(HARD_17);
+        byte[] form = new byte[81];
+        canonicalizer.canonicalize(puzzle, form);
+        // Moving one given to another cell of its row gives a puzzle that is not a copy.
+        puzzle[7] = 0;
+        puzzle[0] = 1;
+        byte[] other = new byte[81];
+        canonicalizer.canonicalize(puzzle, other);
+        assertFalse(Arrays.equals(form, other));
+
+        byte[] solved = new byte[81];
+        new SolutionCounter().solve(parse(HARD_17), solved);
+        canonicalizer.canonicalize(solved, form);
+        // A full grid's first row is relabeled to 1..9.
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9}, Arrays.copyOf(form, 9));
+    }
+}
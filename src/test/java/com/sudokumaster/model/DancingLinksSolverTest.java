@@ -0,0 +1,47 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+import static com.sudokumaster.model.TestPuzzles.HARD_17;
+import static com.sudokumaster.model.TestPuzzles.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the DancingLinksSolver class.
+ */
+public class DancingLinksSolverTest {
+
+    @Test
+    public void testSolveMatchesSolutionCounter() {
+        DancingLinksSolver solver = new DancingLinksSolver();
+        byte[] puzzle = parse(HARD_17);
+        byte[] expected = new byte[81];
+        byte[] actual = new byte[81];
+        assertTrue(new SolutionCounter().solve(puzzle, expected));
+        assertTrue(solver.solve(puzzle, actual));
+        assertArrayEquals(expected, actual);
+        assertEquals(1, solver.countSolutions(puzzle, 2));
+    }
+
+    @Test
+    public void testSolverIsReusableAfterConflict() {
+        DancingLinksSolver solver = new DancingLinksSolver();
+        byte[] conflicting = parse(HARD_17);
+        conflicting[1] = 1; // Duplicates the 1 in the same row.
+        assertEquals(0, solver.countSolutions(conflicting, 2));
+        // The matrix must be fully restored for the next puzzle.
+        assertEquals(1, solver.countSolutions(parse(HARD_17), 2));
+    }
+
+    @Test
+    public void testEnumerateStopsWhenVisitorDeclines() {
+        DancingLinksSolver solver = new DancingLinksSolver();
+        byte[] puzzle = parse(HARD_17);
+        // Remove two givens so the puzzle has several solutions.
+        puzzle[7] = 0;
+        puzzle[9] = 0;
+        int[] seen = new int[1];
+        long visited = solver.enumerate(puzzle, 100, solution -> ++seen[0] < 3);
+        assertEquals(3, visited);
+        assertEquals(3, seen[0]);
+    }
+}
@@ -0,0 +1,78 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+import static com.sudokumaster.model.TestPuzzles.EASY;
+import static com.sudokumaster.model.TestPuzzles.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the DifficultyRater class.
+ */
+public class DifficultyRaterTest {
+
+    // Resists every technique the rater knows.
+    private static final String HARD =
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+    @Test
+    public void testSinglesPuzzleIsEasy() {
+        Rating rating = new DifficultyRater().rate(parse(EASY));
+        assertTrue(rating.valid());
+        assertTrue(rating.hardest() == Technique.HIDDEN_SINGLE || rating.hardest() == Technique.NAKED_SINGLE,
+                "Only singles should be needed, got " + rating.hardest());
+        assertEquals(Difficulty.EASY, rating.difficulty());
+        assertTrue(rating.steps() > 0);
+    }
+
+    @Test
+    public void testPuzzleBeyondLogicNeedsTrialAndError() {
+        Rating rating = new DifficultyRater().rate(parse(HARD));
+        assertTrue(rating.valid());
+        assertEquals(Technique.TRIAL_AND_ERROR, rating.hardest());
+        assertEquals(Difficulty.HARD, rating.difficulty());
+        assertEquals(rating.hardest().getScore(), rating.score());
+    }
+
+    @Test
+    public void testConflictingGivensAreInvalid() {
+        byte[] puzzle = parse(EASY);
+        puzzle[1] = 3; // Duplicates the 3 in the same row.
+        Rating rating = new DifficultyRater().rate(puzzle);
+        assertFalse(rating.valid());
+        assertNull(rating.difficulty());
+    }
+
+    @Test
+    public void testEliminationsNeverRemoveTheSolution() {
+        DifficultyRater rater = new DifficultyRater();
+        GeneratorCore core = new GeneratorCore(11);
+        byte[] puzzle = new byte[81];
+        byte[] solution = new byte[81];
+        for (int i = 0; i < 200; i++) {
+            core.generate(Difficulty.HARD, puzzle, solution);
+            assertTrue(rater.load(puzzle));
+            while (!rater.isSolved() && rater.step() != null) {
+                for (int cell = 0; cell < 81; cell++) {
+                    if (rater.values[cell] != 0) {
+                        assertEquals(solution[cell], rater.values[cell], "Placed a wrong digit");
+                    } else {
+                        assertNotEquals(0, rater.candidates[cell] & (1 << (solution[cell] - 1)),
+                                "Eliminated the solution digit");
+                    }
+                }
+            }
+            assertFalse(rater.hasContradiction());
+        }
+    }
+
+    @Test
+    public void testDifficultyTiersCoverAllRatings() {
+        for (Technique technique : Technique.values()) {
+            Difficulty difficulty = Difficulty.forRating(technique.getScore());
+            assertTrue(difficulty.contains(technique.getScore()));
+        }
+        assertEquals(Difficulty.EASY, Difficulty.forRating(Technique.NAKED_SINGLE.getScore()));
+        assertEquals(Difficulty.MEDIUM, Difficulty.forRating(Technique.LOCKED_CANDIDATES.getScore()));
+        assertEquals(Difficulty.HARD, Difficulty.forRating(Technique.X_WING.getScore()));
+    }
+}
@@ -0,0 +1,108 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+import static com.sudokumaster.model.TestPuzzles.EASY;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the HintFinder class.
+ */
+public class HintFinderTest {
+
+    private static SudokuBoard parse(String line) {
+        int[][] grid = new int[9][9];
+        for (int i = 0; i < 81; i++) {
+            grid[i / 9][i % 9] = line.charAt(i) - '0';
+        }
+        SudokuBoard board = new SudokuBoard();
+        board.resetBoard(grid);
+        return board;
+    }
+
+    /**
+     * Applies hints until none is left, checking each against the solution.
+     *
+     * @return the number of elimination hints.
+     */
+    private static int applyHints(HintFinder finder, SudokuBoard board, byte[] solution) {
+        int eliminationHints = 0;
+        for (Hint hint = finder.findHint(board); hint != null; hint = finder.findHint(board)) {
+            if (hint.isPlacement()) {
+                assertEquals(solution[hint.row() * 9 + hint.col()], hint.digit(), "Wrong " + hint.technique());
+                assertTrue(board.placeNumber(hint.row(), hint.col(), hint.digit()));
+            } else {
+                int[] eliminations = hint.eliminations();
+                assertNotEquals(0, eliminations[hint.row() * 9 + hint.col()]);
+                for (int cell = 0; cell < 81; cell++) {
+                    assertEquals(0, eliminations[cell] & (1 << (solution[cell] - 1)),
+                            hint.technique() + " removed the solution at " + cell);
+                    board.eliminateCandidates(cell / 9, cell % 9, eliminations[cell]);
+                }
+                eliminationHints++;
+            }
+        }
+        return eliminationHints;
+    }
+
+    @Test
+    public void testSinglesPuzzleIsSolvedByPlacements() {
+        SudokuBoard board = parse(EASY);
+        Hint first = new HintFinder().findHint(board);
+        assertNotNull(first);
+        assertTrue(first.isPlacement());
+        assertTrue(first.technique() == Technique.HIDDEN_SINGLE || first.technique() == Technique.NAKED_SINGLE);
+
+        byte[] puzzle = new byte[81];
+        for (int i = 0; i < 81; i++) {
+            puzzle[i] = (byte) (EASY.charAt(i) - '0');
+        }
+        byte[] solution = new byte[81];
+        assertTrue(new ScalableSolver(3).solve(puzzle, solution));
+        assertEquals(0, applyHints(new HintFinder(), board, solution));
+        assertTrue(board.isSolved());
+        assertNull(new HintFinder().findHint(board), "A solved board has no hint.");
+    }
+
+    @Test
+    public void testHintsAreSoundOnMinimalPuzzles() {
+        HintFinder finder = new HintFinder();
+        GeneratorCore core = new GeneratorCore(5);
+        byte[] puzzle = new byte[81];
+        byte[] solution = new byte[81];
+        int eliminationHints = 0;
+        for (int i = 0; i < 30; i++) {
+            core.generateMinimal(puzzle, solution);
+            int[][] grid = new int[9][9];
+            for (int cell = 0; cell < 81; cell++) {
+                grid[cell / 9][cell % 9] = puzzle[cell];
+            }
+            SudokuBoard board = new SudokuBoard();
+            board.resetBoard(grid);
+            eliminationHints += applyHints(finder, board, solution);
+        }
+        assertTrue(eliminationHints > 0, "Some minimal puzzle should need more than singles.");
+    }
+
+    @Test
+    public void testWrongEntryGivesNoHint() {
+        SudokuBoard board = new SudokuBoard(2);
+        // 1 2 | . .      Row 0 needs 3 and 4, but column 3 already holds both.
+        // . . | . 3
+        // . . | . 4
+        board.placeNumber(0, 0, 1);
+        board.placeNumber(0, 1, 2);
+        board.placeNumber(1, 3, 3);
+        board.placeNumber(2, 3, 4);
+        assertNull(new HintFinder().findHint(board));
+    }
+
+    @Test
+    public void testSinglesOnLargerBoards() {
+        SudokuBoard board = PuzzleGenerator.generateUniquePuzzle(4, Difficulty.EASY, 3);
+        Hint hint = new HintFinder().findHint(board);
+        assertNotNull(hint);
+        assertTrue(hint.isPlacement());
+        assertTrue(board.isValidMove(hint.row(), hint.col(), hint.digit()));
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MinimalGenerator class.
+ */
+public class MinimalGeneratorTest {
+
+    /**
+     * The sequential greedy pass: each cell in order is removed if the puzzle stays unique.
+     */
+    private static byte[] greedy(byte[] solution, int[] order) {
+        SolutionCounter counter = new SolutionCounter();
+        byte[] puzzle = solution.clone();
+        for (int cell : order) {
+            puzzle[cell] = 0;
+            if (!counter.hasUniqueSolution(puzzle)) {
+                puzzle[cell] = solution[cell];
+            }
+        }
+        return puzzle;
+    }
+
+    private static int[] shuffledOrder(SplittableRandom random) {
+        int[] order = new int[81];
+        for (int i = 0; i < 81; i++) {
+            order[i] = i;
+        }
+        for (int i = 80; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    @Test
+    public void testMatchesSequentialGreedyPass() {
+        SplittableRandom random = new SplittableRandom(21);
+        ScalableSolver solver = new ScalableSolver(3);
+        byte[] solution = new byte[81];
+        byte[] puzzle = new byte[81];
+        for (int parallelism : new int[] {1, 3, 8}) {
+            try (MinimalGenerator generator = new MinimalGenerator(parallelism)) {
+                for (int i = 0; i < 5; i++) {
+                    solver.fill(random, solution);
+                    int[] order = shuffledOrder(random);
+                    int givens = generator.minimize(solution, order, puzzle);
+                    byte[] expected = greedy(solution, order);
+                    assertArrayEquals(expected, puzzle, "parallelism " + parallelism);
+                    int count = 0;
+                    for (byte value : puzzle) {
+                        count += value != 0 ? 1 : 0;
+                    }
+                    assertEquals(count, givens);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedPuzzleIsUniqueAndMinimal() {
+        try (MinimalGenerator generator = new MinimalGenerator(4)) {
+            byte[] puzzle = new byte[81];
+            byte[] solution = new byte[81];
+            generator.generate(5, puzzle, solution);
+            SolutionCounter counter = new SolutionCounter();
+            assertTrue(counter.hasUniqueSolution(puzzle));
+            for (int cell = 0; cell < 81; cell++) {
+                if (puzzle[cell] != 0) {
+                    assertEquals(solution[cell], puzzle[cell]);
+                    byte value = puzzle[cell];
+                    puzzle[cell] = 0;
+                    assertFalse(counter.hasUniqueSolution(puzzle), "Every given should be necessary.");
+                    puzzle[cell] = value;
+                }
+            }
+            byte[] again = new byte[81];
+            generator.generate(5, again, new byte[81]);
+            assertArrayEquals(puzzle, again, "The seed should determine the puzzle.");
+        }
+    }
+
+    @Test
+    public void testClosedGeneratorRunsInline() {
+        MinimalGenerator generator = new MinimalGenerator(2);
+        generator.close();
+        byte[] puzzle = new byte[81];
+        assertTrue(generator.generate(9, puzzle, new byte[81]) >= 17);
+        assertTrue(new SolutionCounter().hasUniqueSolution(puzzle));
+    }
+}
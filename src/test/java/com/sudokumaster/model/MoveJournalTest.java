@@ -0,0 +1,209 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MoveJournal class.
+ */
+public class MoveJournalTest {
+
+    /**
+     * Values and pencil marks of every cell, for comparing board states.
+     */
+    private static List<Integer> state(SudokuBoard board) {
+        List<Integer> state = new ArrayList<>();
+        int size = board.getSize();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                state.add(board.getBoard()[row][col]);
+                state.add(board.getAnnotationMask(row, col));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Makes one random move; returns false if it changed nothing.
+     */
+    private static boolean randomMove(MoveJournal journal, SplittableRandom random) {
+        SudokuBoard board = journal.getBoard();
+        int size = board.getSize();
+        int row = random.nextInt(size);
+        int col = random.nextInt(size);
+        int number = random.nextInt(size) + 1;
+        long before = journal.getCurrentMove();
+        switch (random.nextInt(4)) {
+            case 0:
+                journal.placeNumber(row, col, number);
+                break;
+            case 1:
+                journal.clearCell(row, col);
+                break;
+            default:
+                journal.toggleAnnotation(row, col, number);
+                break;
+        }
+        return journal.getCurrentMove() != before;
+    }
+
+    @Test
+    public void testUndoPlacementRestoresMarks() {
+        SudokuBoard board = new SudokuBoard();
+        MoveJournal journal = new MoveJournal(board);
+        journal.toggleAnnotation(0, 0, 5);
+        journal.toggleAnnotation(0, 0, 7);
+        journal.toggleAnnotation(0, 8, 5);
+        journal.toggleAnnotation(4, 0, 5);
+        List<Integer> before = state(board);
+
+        assertTrue(journal.placeNumber(0, 0, 5));
+        assertEquals(0, board.getAnnotationMask(0, 8));
+        assertTrue(journal.undo());
+        assertEquals(before, state(board), "The cell's and the peers' marks come back.");
+        assertEquals(1 << 4, board.getCandidates(0, 0) & (1 << 4));
+
+        assertTrue(journal.redo());
+        assertEquals(5, board.getBoard()[0][0]);
+        assertEquals(0, board.getAnnotationMask(4, 0));
+        assertFalse(journal.redo());
+    }
+
+    @Test
+    public void testNewMoveDiscardsRedo() {
+        SudokuBoard board = new SudokuBoard();
+        MoveJournal journal = new MoveJournal(board);
+        journal.placeNumber(0, 0, 1);
+        journal.placeNumber(0, 1, 2);
+        journal.undo();
+        assertTrue(journal.canRedo());
+        journal.placeNumber(5, 5, 3);
+        assertFalse(journal.canRedo());
+        assertEquals(2, journal.getLastMove());
+        assertFalse(journal.placeNumber(5, 6, 3), "Invalid moves are not recorded.");
+        assertEquals(2, journal.getCurrentMove());
+    }
+
+    @Test
+    public void testGroupedMovesUndoTogether() {
+        SudokuBoard board = new SudokuBoard();
+        MoveJournal journal = new MoveJournal(board);
+        journal.beginMove();
+        journal.toggleAnnotation(1, 1, 1);
+        journal.toggleAnnotation(2, 2, 2);
+        journal.endMove();
+        assertEquals(1, journal.getCurrentMove());
+        journal.undo();
+        assertEquals(0, board.getAnnotationMask(1, 1));
+        assertEquals(0, board.getAnnotationMask(2, 2));
+        assertFalse(journal.canUndo());
+    }
+
+    @Test
+    public void testJumpToMatchesRecordedStates() {
+        SudokuBoard board = new SudokuBoard(2);
+        MoveJournal journal = new MoveJournal(board);
+        SplittableRandom random = new SplittableRandom(4);
+        List<List<Integer>> states = new ArrayList<>();
+        states.add(state(board));
+        while (states.size() <= 3 * MoveJournal.SNAPSHOT_INTERVAL + 17) {
+            if (randomMove(journal, random)) {
+                states.add(state(board));
+            }
+        }
+        long last = journal.getLastMove();
+        for (int i = 0; i < 200; i++) {
+            long target = random.nextLong(last + 1);
+            journal.jumpTo(target);
+            assertEquals(target, journal.getCurrentMove());
+            assertEquals(states.get((int) target), state(board), "State after move " + target);
+        }
+        journal.jumpTo(last);
+        while (journal.undo()) {
+            assertEquals(states.get((int) journal.getCurrentMove()), state(board));
+        }
+        assertEquals(states.get(0), state(board));
+    }
+
+    @Test
+    public void testOldestMovesAreDroppedWhenFull() {
+        SudokuBoard board = new SudokuBoard();
+        MoveJournal journal = new MoveJournal(board, 1024);
+        SplittableRandom random = new SplittableRandom(9);
+        List<List<Integer>> states = new ArrayList<>();
+        states.add(state(board));
+        while (states.size() < 3000) {
+            if (randomMove(journal, random)) {
+                states.add(state(board));
+            }
+        }
+        assertTrue(journal.getFirstMove() > 0);
+        assertTrue(journal.getEntryCount() <= 1024);
+        journal.jumpTo(journal.getFirstMove());
+        assertEquals(states.get((int) journal.getFirstMove()), state(board));
+        assertFalse(journal.undo());
+        journal.jumpTo(journal.getLastMove());
+        assertEquals(states.get(states.size() - 1), state(board));
+    }
+
+    @Test
+    public void testConflictingEntriesAreRecorded() {
+        SudokuBoard board = new SudokuBoard();
+        MoveJournal journal = new MoveJournal(board);
+        journal.placeNumber(0, 0, 3);
+        board.addAnnotation(4, 6, 3);
+        List<Integer> before = state(board);
+        assertFalse(journal.placeNumber(0, 6, 3));
+        assertFalse(journal.enterNumber(0, 6, 3), "The entry conflicts but is kept.");
+        assertEquals(2, journal.getCurrentMove());
+        assertEquals(2, board.getConflictCount());
+        assertEquals(0, board.getAnnotationMask(4, 6));
+
+        journal.undo();
+        assertEquals(before, state(board));
+        assertEquals(0, board.getConflictCount());
+        journal.redo();
+        assertTrue(board.isConflicting(0, 0));
+    }
+
+    @Test
+    public void testEliminationsAreUndoneWithTheirMove() {
+        SudokuBoard board = new SudokuBoard();
+        MoveJournal journal = new MoveJournal(board);
+        SudokuBoard copy = new SudokuBoard();
+        journal.setChangeListener(new MoveJournal.ChangeListener() {
+            @Override
+            public void changed(int entry) {
+                MoveJournal.replay(copy, entry);
+            }
+
+            @Override
+            public void moveFinished() {
+            }
+        });
+        journal.placeNumber(0, 0, 5);
+        int candidates = board.getCandidates(4, 4);
+        journal.beginMove();
+        journal.eliminateCandidates(4, 4, 0b11);
+        journal.eliminateCandidates(4, 4, 0b110);
+        journal.endMove();
+        assertEquals(2, journal.getCurrentMove(), "A hint's eliminations are one move.");
+        assertEquals(candidates & ~0b111, board.getCandidates(4, 4));
+        assertEquals(0b111, copy.getEliminations(4, 4));
+
+        journal.undo();
+        assertEquals(candidates, board.getCandidates(4, 4));
+        assertEquals(0, board.getEliminations(4, 4));
+        assertEquals(0, copy.getEliminations(4, 4));
+        journal.redo();
+        assertEquals(candidates & ~0b111, board.getCandidates(4, 4));
+        journal.jumpTo(0);
+        journal.jumpTo(2);
+        assertEquals(0b111, board.getEliminations(4, 4));
+    }
+}
@@ -0,0 +1,87 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.sudokumaster.model.TestPuzzles.EASY;
+import static com.sudokumaster.model.TestPuzzles.HARD_17;
+import static com.sudokumaster.model.TestPuzzles.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ParallelSolver class.
+ */
+public class ParallelSolverTest {
+
+    @Test
+    public void testSolvesHardPuzzle() {
+        try (ParallelSolver solver = new ParallelSolver(3, 4)) {
+            byte[] puzzle = parse(HARD_17);
+            byte[] expected = new byte[81];
+            byte[] actual = new byte[81];
+            assertTrue(new SolutionCounter().solve(puzzle, expected));
+            assertTrue(solver.solve(puzzle, actual));
+            assertArrayEquals(expected, actual);
+            assertTrue(solver.hasUniqueSolution(puzzle));
+        }
+    }
+
+    @Test
+    public void testCountsEverySubtreeOnce() {
+        try (ParallelSolver solver = new ParallelSolver(2, 4)) {
+            // The 4x4 grid has 288 solutions.
+            assertEquals(288, solver.countSolutions(new byte[16], 1000));
+            assertEquals(10, solver.countSolutions(new byte[16], 10));
+        }
+        try (ParallelSolver solver = new ParallelSolver(3, 3)) {
+            // Emptying five givens of the easy puzzle leaves a few hundred solutions.
+            byte[] puzzle = parse(EASY);
+            for (int cell : new int[]{2, 4, 6, 9, 12}) {
+                puzzle[cell] = 0;
+            }
+            int expected = new ScalableSolver(3).countSolutions(puzzle, Integer.MAX_VALUE);
+            assertTrue(expected > 100 && expected < 10000);
+            assertEquals(expected, solver.countSolutions(puzzle, Integer.MAX_VALUE));
+            assertEquals(2, solver.countSolutions(puzzle, 2));
+            assertEquals(500, solver.countSolutions(new byte[81], 500));
+        }
+    }
+
+    @Test
+    public void testSolutionFollowsTheRules() {
+        try (ParallelSolver solver = new ParallelSolver(4, 4)) {
+            byte[] puzzle = new byte[256];
+            byte[] solution = new byte[256];
+            assertTrue(solver.solve(puzzle, solution));
+            int[][] board = new int[16][16];
+            for (int cell = 0; cell < 256; cell++) {
+                board[cell / 16][cell % 16] = solution[cell];
+            }
+            assertTrue(PuzzleGenerator.validateBoard(board));
+            puzzle[0] = 1;
+            puzzle[1] = 1;
+            assertEquals(0, solver.countSolutions(puzzle, 2), "Conflicting givens have no solution.");
+        }
+    }
+
+    @Test
+    public void testClosedSolverRunsInline() {
+        ParallelSolver solver = new ParallelSolver(3, 2);
+        solver.close();
+        assertTrue(solver.hasUniqueSolution(parse(HARD_17)));
+    }
+
+    @Test
+    public void testCloseDuringSearchFinishesOnCaller() throws InterruptedException, ExecutionException, TimeoutException {
+        ParallelSolver solver = new ParallelSolver(3, 2);
+        // Counting this many solutions of an empty grid runs long enough to be closed midway.
+        CompletableFuture<Integer> count = CompletableFuture.supplyAsync(() -> solver.countSolutions(new byte[81], 20_000));
+        Thread.sleep(20);
+        solver.close();
+        assertEquals(20_000, count.get(30, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,172 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PuzzleGenerator class.
+ */
+public class PuzzleGeneratorTest {
+
+    @Test
+    public void testGenerateBatch() {
+        List<SudokuBoard> puzzles = PuzzleGenerator.generateBatch(Difficulty.MEDIUM, 16, 4);
+        assertEquals(16, puzzles.size());
+        SolutionCounter counter = new SolutionCounter();
+        for (SudokuBoard puzzle : puzzles) {
+            assertEquals(1, counter.countSolutions(puzzle.getBoard(), 2), "Batch puzzles should have a unique solution.");
+        }
+    }
+
+    @Test
+    public void testGenerateStream() {
+        assertEquals(10, PuzzleGenerator.generateStream(Difficulty.EASY, 10)
+                .filter(board -> PuzzleGenerator.validateBoard(board.getBoard()))
+                .count());
+    }
+
+    @Test
+    public void testSeededGenerationIsReproducible() {
+        int[][] first = PuzzleGenerator.generateUniquePuzzle(Difficulty.HARD, 1234L).getBoard();
+        int[][] second = PuzzleGenerator.generateUniquePuzzle(Difficulty.HARD, 1234L).getBoard();
+        assertArrayEquals(first, second, "Equal seeds should give equal puzzles.");
+        int[][] other = PuzzleGenerator.generateUniquePuzzle(Difficulty.HARD, 1235L).getBoard();
+        assertFalse(Arrays.deepEquals(first, other), "Different seeds should give different puzzles.");
+    }
+
+    @Test
+    public void testGeneratorCoreRemovesRequestedCells() {
+        GeneratorCore core = new GeneratorCore(7L);
+        byte[] puzzle = new byte[81];
+        byte[] solution = new byte[81];
+        for (int removals : new int[] {0, GeneratorCore.EASY_REMOVALS, 50, 81}) {
+            core.generate(removals, false, puzzle, solution);
+            int empty = 0;
+            for (int i = 0; i < 81; i++) {
+                if (puzzle[i] == 0) {
+                    empty++;
+                } else {
+                    assertEquals(solution[i], puzzle[i], "Givens must come from the solution.");
+                }
+            }
+            assertEquals(removals, empty);
+        }
+    }
+
+    @Test
+    public void testGeneratedPuzzlesRateAtTheirDifficulty() {
+        DifficultyRater rater = new DifficultyRater();
+        SolutionCounter counter = new SolutionCounter();
+        for (Difficulty difficulty : Difficulty.values()) {
+            SudokuBoard board = PuzzleGenerator.generateUniquePuzzle(difficulty, 21L);
+            assertEquals(difficulty, rater.rate(board.getBoard()).difficulty());
+            assertEquals(1, counter.countSolutions(board.getBoard(), 2));
+        }
+    }
+
+    @Test
+    public void testGeneratorCoreMinimalPuzzle() {
+        GeneratorCore core = new GeneratorCore(9L);
+        byte[] puzzle = new byte[81];
+        int givens = core.generateMinimal(puzzle, null);
+        SolutionCounter counter = new SolutionCounter();
+        assertTrue(counter.hasUniqueSolution(puzzle));
+        int counted = 0;
+        for (int i = 0; i < 81; i++) {
+            if (puzzle[i] != 0) {
+                counted++;
+                byte value = puzzle[i];
+                puzzle[i] = 0;
+                assertFalse(counter.hasUniqueSolution(puzzle), "Every given of a minimal puzzle is necessary.");
+                puzzle[i] = value;
+            }
+        }
+        assertEquals(givens, counted);
+    }
+
+    @Test
+    public void testGenerateLargerBoards() {
+        for (int boxSize = 2; boxSize <= 5; boxSize++) {
+            long start = System.nanoTime();
+            SudokuBoard board = PuzzleGenerator.generateUniquePuzzle(boxSize, Difficulty.HARD, 99L + boxSize);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            int size = boxSize * boxSize;
+            assertEquals(size, board.getSize());
+            assertTrue(PuzzleGenerator.validateBoard(board.getBoard()));
+            byte[] cells = new byte[size * size];
+            int empty = 0;
+            for (int cell = 0; cell < cells.length; cell++) {
+                cells[cell] = (byte) board.getBoard()[cell / size][cell % size];
+                if (cells[cell] == 0) {
+                    empty++;
+                }
+            }
+            if (boxSize != 3) {
+                assertEquals(PuzzleGenerator.removalsFor(board.getGeometry(), Difficulty.HARD), empty);
+            }
+            assertTrue(new ScalableSolver(boxSize).hasUniqueSolution(cells), size + "x" + size + " puzzle must be unique");
+            if (boxSize == 4) {
+                assertTrue(millis < 1000, "16x16 generation took " + millis + " ms");
+            }
+        }
+    }
+
+    @Test
+    public void testSudokuGeneratorLargeBoard() {
+        int[][] puzzle = new SudokuGenerator(4).generatePuzzle(1);
+        assertEquals(16, puzzle.length);
+        assertTrue(PuzzleGenerator.validateBoard(puzzle));
+    }
+
+    @Test
+    public void testGeneratedBoardsCarryTheirSolution() {
+        for (SudokuBoard board : List.of(PuzzleGenerator.generateUniquePuzzle(Difficulty.HARD, 99L),
+                PuzzleGenerator.generatePuzzle(GeneratorCore.EASY_REMOVALS, 99L),
+                PuzzleGenerator.generateUniquePuzzle(2, Difficulty.MEDIUM, 99L))) {
+            int size = board.getSize();
+            assertTrue(board.hasSolution());
+            assertEquals(board.getFilledCount(), board.getCorrectCount(), "Every given agrees with the solution.");
+            int[][] solved = new int[size][size];
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    solved[row][col] = board.getSolutionDigit(row, col);
+                }
+            }
+            assertTrue(PuzzleGenerator.validateBoard(solved), "The solution is a valid full grid.");
+            board.resetBoard(solved);
+            assertTrue(board.isSolved());
+        }
+    }
+
+    @Test
+    public void testSudokuGeneratorReturnsSolution() {
+        byte[] solution = new byte[81];
+        int[][] puzzle = new SudokuGenerator().generatePuzzle(2, solution);
+        for (int cell = 0; cell < 81; cell++) {
+            int value = puzzle[cell / 9][cell % 9];
+            assertTrue(value == 0 || value == solution[cell]);
+        }
+        SudokuBoard board = new SudokuBoard();
+        board.resetBoard(puzzle);
+        board.setSolution(solution);
+        board.revealCell(0, 0);
+        assertTrue(board.isCorrect(0, 0));
+    }
+
+    @Test
+    public void testScaledGenerationStopsAtUnreachableTargets() {
+        // No 4x4 puzzle with a unique solution has fewer than four givens.
+        SudokuBoard board = PuzzleGenerator.generateScaled(BoardGeometry.of(2), 16, new SplittableRandom(5));
+        assertTrue(board.getFilledCount() >= 4);
+        byte[] cells = new byte[16];
+        for (int cell = 0; cell < 16; cell++) {
+            cells[cell] = (byte) board.getBoard()[cell / 4][cell % 4];
+        }
+        assertEquals(1, new ScalableSolver(2).countSolutions(cells, 2), "The deepest cut keeps a unique solution.");
+    }
+}
@@ -0,0 +1,77 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PuzzleMultiplier class.
+ */
+public class PuzzleMultiplierTest {
+
+    @Test
+    public void testCopiesKeepUniquenessAndRating() {
+        PuzzleMultiplier multiplier = new PuzzleMultiplier(1);
+        GeneratorCore core = new GeneratorCore(2);
+        byte[] seed = new byte[81];
+        core.generate(Difficulty.HARD, seed, null);
+        Rating rating = multiplier.addSeed(seed);
+        Difficulty difficulty = rating.difficulty();
+        assertEquals(1, multiplier.getSeedCount(difficulty));
+
+        SolutionCounter counter = new SolutionCounter();
+        DifficultyRater rater = new DifficultyRater();
+        Canonicalizer canonicalizer = new Canonicalizer();
+        byte[] seedForm = new byte[81];
+        canonicalizer.canonicalize(seed, seedForm);
+        byte[] copy = new byte[81];
+        byte[] form = new byte[81];
+        for (int i = 0; i < 50; i++) {
+            multiplier.next(difficulty, copy);
+            assertEquals(1, counter.countSolutions(copy, 2));
+            assertEquals(rating.hardest(), rater.rate(copy).hardest());
+            canonicalizer.canonicalize(copy, form);
+            assertArrayEquals(seedForm, form, "A copy is a transform of its seed.");
+        }
+    }
+
+    @Test
+    public void testSeedsAreVetted() {
+        PuzzleMultiplier multiplier = new PuzzleMultiplier(3);
+        assertThrows(IllegalArgumentException.class, () -> multiplier.addSeed(new byte[81]));
+        assertThrows(IllegalStateException.class, () -> multiplier.next(Difficulty.EASY, new byte[81]));
+
+        byte[] seed = new byte[81];
+        new GeneratorCore(4).generate(Difficulty.EASY, seed, null);
+        multiplier.addSeed(seed, Difficulty.EASY);
+        SudokuBoard board = multiplier.nextBoard(Difficulty.EASY);
+        assertTrue(PuzzleGenerator.validateBoard(board.getBoard()));
+        assertTrue(board.hasSolution());
+        assertEquals(board.getFilledCount(), board.getCorrectCount(), "The remapped solution keeps the givens.");
+        byte[] copy = new byte[81];
+        byte[] solution = new byte[81];
+        byte[] expected = new byte[81];
+        for (int i = 0; i < 20; i++) {
+            multiplier.next(Difficulty.EASY, copy, solution);
+            assertTrue(new SolutionCounter().solve(copy, expected));
+            assertArrayEquals(expected, solution);
+        }
+    }
+
+    @Test
+    public void testSameSeedGivesSameCopies() {
+        byte[] seed = new byte[81];
+        new GeneratorCore(5).generate(Difficulty.MEDIUM, seed, null);
+        PuzzleMultiplier first = new PuzzleMultiplier(6);
+        PuzzleMultiplier second = new PuzzleMultiplier(6);
+        first.addSeed(seed, Difficulty.MEDIUM);
+        second.addSeed(seed, Difficulty.MEDIUM);
+        byte[] a = new byte[81];
+        byte[] b = new byte[81];
+        for (int i = 0; i < 10; i++) {
+            first.next(Difficulty.MEDIUM, a);
+            second.next(Difficulty.MEDIUM, b);
+            assertArrayEquals(a, b);
+        }
+    }
+}
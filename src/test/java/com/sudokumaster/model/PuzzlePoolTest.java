@@ -0,0 +1,98 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PuzzlePool class.
+ */
+public class PuzzlePoolTest {
+
+    @Test
+    public void testPoolFillsAndCountsHits() throws InterruptedException {
+        try (PuzzlePool pool = new PuzzlePool(1, 3, 1, PuzzleGenerator::generateUniquePuzzle)) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (pool.getStatistics(Difficulty.EASY).available() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(3, pool.getStatistics(Difficulty.EASY).available(), "The pool should fill up to its high water mark.");
+
+            assertNotNull(pool.take(Difficulty.EASY));
+            PuzzlePool.Statistics stats = pool.getStatistics(Difficulty.EASY);
+            assertEquals(1, stats.hits());
+            assertEquals(0, stats.misses());
+            assertTrue(stats.refills() >= 1);
+        }
+    }
+
+    @Test
+    public void testTakeGeneratesInlineWhenEmpty() {
+        PuzzlePool pool = new PuzzlePool(0, 1, 1, PuzzleGenerator::generateUniquePuzzle);
+        pool.close();
+        // With the workers stopped the pool may be empty; take must still return a puzzle.
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(pool.take(Difficulty.HARD));
+        }
+        PuzzlePool.Statistics stats = pool.getStatistics(Difficulty.HARD);
+        assertEquals(3, stats.hits() + stats.misses());
+        assertTrue(stats.misses() >= 2);
+    }
+
+    @Test
+    public void testMissesUseTheMissGenerator() {
+        AtomicInteger misses = new AtomicInteger();
+        PuzzlePool pool = new PuzzlePool(0, 1, 1, PuzzleGenerator::generateUniquePuzzle,
+                difficulty -> {
+                    misses.incrementAndGet();
+                    return PuzzleGenerator.generateUniquePuzzle(difficulty);
+                });
+        pool.close();
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(pool.take(Difficulty.MEDIUM));
+        }
+        // At most the one puzzle refilled before close is a hit; every miss is generated by the miss generator.
+        assertEquals(pool.getStatistics(Difficulty.MEDIUM).misses(), misses.get());
+        assertTrue(misses.get() >= 2);
+    }
+
+    @Test
+    public void testRefillsDropRejectedAttempts() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        try (PuzzlePool pool = new PuzzlePool(1, 2, 1,
+                difficulty -> calls.incrementAndGet() % 2 == 0 ? PuzzleGenerator.generateUniquePuzzle(difficulty) : null)) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (pool.getStatistics(Difficulty.EASY).available() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(2, pool.getStatistics(Difficulty.EASY).available());
+            assertNotNull(pool.take(Difficulty.EASY));
+            assertNotNull(pool.take(Difficulty.EASY));
+        }
+    }
+
+    @Test
+    public void testDefaultPoolServesRatedMisses() throws InterruptedException {
+        DifficultyRater rater = new DifficultyRater();
+        try (PuzzlePool pool = new PuzzlePool()) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+            while (pool.getStatistics(Difficulty.HARD).available() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            pool.close();
+            while (pool.getStatistics(Difficulty.HARD).available() > 0) {
+                assertEquals(Difficulty.HARD, rater.rate(pool.take(Difficulty.HARD).getBoard()).difficulty());
+            }
+            for (int i = 0; i < 5; i++) {
+                SudokuBoard board = pool.take(Difficulty.HARD);
+                assertEquals(Difficulty.HARD, rater.rate(board.getBoard()).difficulty(), "Misses are rated too.");
+                assertTrue(board.hasSolution());
+            }
+            // A refill that was offering its puzzle as the pool closed can still add one hit.
+            assertTrue(pool.getStatistics(Difficulty.HARD).misses() >= 4);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static com.sudokumaster.model.TestPuzzles.HARD_17;
+import static com.sudokumaster.model.TestPuzzles.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ScalableSolver class.
+ */
+public class ScalableSolverTest {
+
+    @Test
+    public void testAgreesWithSolutionCounterOnNineByNine() {
+        ScalableSolver solver = new ScalableSolver(3);
+        byte[] puzzle = parse(HARD_17);
+        assertEquals(1, solver.countSolutions(puzzle, 2));
+        byte[] expected = new byte[81];
+        byte[] actual = new byte[81];
+        assertTrue(new SolutionCounter().solve(puzzle, expected));
+        assertTrue(solver.solve(puzzle, actual));
+        assertArrayEquals(expected, actual);
+
+        puzzle[7] = 0; // Removing a given of a 17-clue puzzle breaks uniqueness.
+        assertEquals(2, solver.countSolutions(puzzle, 2));
+        assertTrue(solver.hasSolutionWithout(puzzle, 7, 1));
+    }
+
+    @Test
+    public void testConflictingGivens() {
+        byte[] puzzle = parse(HARD_17);
+        puzzle[0] = 1; // Clashes with the 1 at index 7 in the same row.
+        assertEquals(0, new ScalableSolver(3).countSolutions(puzzle, 2));
+    }
+
+    @Test
+    public void testFillProducesValidGridsOfEverySize() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int boxSize = BoardGeometry.MIN_BOX_SIZE; boxSize <= BoardGeometry.MAX_BOX_SIZE; boxSize++) {
+            ScalableSolver solver = new ScalableSolver(boxSize);
+            int size = boxSize * boxSize;
+            byte[] grid = new byte[size * size];
+            solver.fill(random, grid);
+            int[][] board = new int[size][size];
+            for (int cell = 0; cell < grid.length; cell++) {
+                assertTrue(grid[cell] >= 1 && grid[cell] <= size);
+                board[cell / size][cell % size] = grid[cell];
+            }
+            assertTrue(PuzzleGenerator.validateBoard(board), size + "x" + size + " fill must follow the rules");
+        }
+    }
+
+    @Test
+    public void testSolutionWithoutDigit() {
+        ScalableSolver solver = new ScalableSolver(2);
+        byte[] grid = {
+                1, 2, 3, 4,
+                3, 4, 1, 2,
+                2, 1, 4, 3,
+                4, 3, 2, 1};
+        byte[] puzzle = grid.clone();
+        puzzle[0] = 0;
+        // Every other cell is given, so the emptied cell is forced.
+        assertFalse(solver.hasSolutionWithout(puzzle, 0, 1));
+        assertTrue(solver.hasUniqueSolution(puzzle));
+    }
+
+    @Test
+    public void testOtherSolutionWitness() {
+        ScalableSolver solver = new ScalableSolver(2);
+        byte[] grid = {
+                1, 2, 3, 4,
+                3, 4, 1, 2,
+                2, 1, 4, 3,
+                4, 3, 2, 1};
+        byte[] puzzle = grid.clone();
+        // Emptying a rectangle of two digits in two boxes admits the swapped grid too.
+        puzzle[0] = 0;
+        puzzle[1] = 0;
+        puzzle[8] = 0;
+        puzzle[9] = 0;
+        byte[] other = new byte[16];
+        assertTrue(solver.findOtherSolution(puzzle, grid, other));
+        assertEquals(2, other[0]);
+        assertEquals(1, other[1]);
+        assertEquals(grid[5], other[5]);
+        assertTrue(solver.findSolutionWithout(puzzle, 0, 1, other));
+        assertEquals(2, other[0]);
+        puzzle[0] = 1;
+        assertFalse(solver.findOtherSolution(puzzle, grid, other));
+    }
+}
@@ -0,0 +1,56 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+import static com.sudokumaster.model.TestPuzzles.HARD_17;
+import static com.sudokumaster.model.TestPuzzles.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SolutionCounter class and unique puzzle generation.
+ */
+public class SolutionCounterTest {
+
+    @Test
+    public void testUniqueSeventeenCluePuzzle() {
+        SolutionCounter counter = new SolutionCounter();
+        byte[] puzzle = parse(HARD_17);
+        assertEquals(1, counter.countSolutions(puzzle, 2), "The 17-clue puzzle should have exactly one solution.");
+
+        byte[] solution = new byte[81];
+        assertTrue(counter.solve(puzzle, solution));
+        for (int i = 0; i < 81; i++) {
+            assertTrue(puzzle[i] == 0 || puzzle[i] == solution[i], "The solution must keep the givens.");
+        }
+        for (byte value : solution) {
+            assertNotEquals(0, value, "The solution must be complete.");
+        }
+        assertTrue(PuzzleGenerator.validateBoard(toBoard(solution)), "The solution must follow the rules.");
+    }
+
+    @Test
+    public void testCountStopsAtLimit() {
+        SolutionCounter counter = new SolutionCounter();
+        assertEquals(2, counter.countSolutions(new byte[81], 2), "An empty grid has many solutions; counting stops at the limit.");
+        byte[] conflicting = new byte[81];
+        conflicting[0] = 5;
+        conflicting[1] = 5;
+        assertEquals(0, counter.countSolutions(conflicting, 2), "Conflicting givens have no solution.");
+    }
+
+    @Test
+    public void testGenerateUniquePuzzle() {
+        SolutionCounter counter = new SolutionCounter();
+        for (Difficulty difficulty : Difficulty.values()) {
+            SudokuBoard board = PuzzleGenerator.generateUniquePuzzle(difficulty);
+            assertEquals(1, counter.countSolutions(board.getBoard(), 2), difficulty + " puzzle should have a unique solution.");
+        }
+    }
+
+    private static int[][] toBoard(byte[] cells) {
+        int[][] board = new int[9][9];
+        for (int i = 0; i < 81; i++) {
+            board[i / 9][i % 9] = cells[i];
+        }
+        return board;
+    }
+}
@@ -1,6 +1,9 @@
 package com.sudokumaster.model;
 
 import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -28,4 +31,260 @@ public class SudokuBoardTest {
         // Trying to place the same number in the same row should now be invalid
         assertFalse(board.isValidMove(0, 1, 5), "Placing number 5 at (0,1) should be invalid (duplicate in row).");
     }
+
+    @Test
+    public void testClearCellRestoresCandidates() {
+        SudokuBoard board = new SudokuBoard();
+        board.placeNumber(4, 4, 7);
+        // 7 is no longer a candidate anywhere in row 4, column 4 or the centre box.
+        assertEquals(0, board.getCandidates(4, 0) & (1 << 6));
+        assertEquals(0, board.getCandidates(3, 3) & (1 << 6));
+        assertEquals(SudokuBoard.ALL_DIGITS, board.getCandidates(0, 0));
+        board.clearCell(4, 4);
+        assertTrue(board.isValidMove(4, 0, 7), "Clearing the cell should make 7 valid again in its row.");
+        assertEquals(SudokuBoard.ALL_DIGITS, board.getCandidates(4, 4));
+    }
+
+    @Test
+    public void testIsSolved() {
+        int[][] solution = new int[9][9];
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                solution[row][col] = (row * 3 + row / 3 + col) % 9 + 1;
+            }
+        }
+        SudokuBoard board = new SudokuBoard();
+        board.resetBoard(solution);
+        assertTrue(board.isSolved(), "A complete valid grid should be solved.");
+        board.clearCell(8, 8);
+        assertFalse(board.isSolved(), "A grid with an empty cell should not be solved.");
+        assertTrue(board.placeNumber(8, 8, solution[8][8]));
+        assertTrue(board.isSolved());
+    }
+
+    @Test
+    public void testAnnotationsAreEliminatedFromPeers() {
+        SudokuBoard board = new SudokuBoard();
+        board.addAnnotation(0, 8, 3);
+        board.addAnnotation(0, 8, 5);
+        board.toggleAnnotation(8, 0, 3);
+        board.addAnnotation(4, 4, 3);
+        assertTrue(board.placeNumber(0, 0, 3));
+        // Peers in the same row and column lose the mark, an unrelated cell keeps it.
+        assertEquals(1 << 4, board.getAnnotationMask(0, 8));
+        assertEquals(0, board.getAnnotationMask(8, 0));
+        assertEquals(1 << 2, board.getAnnotationMask(4, 4));
+        assertTrue(board.getAnnotations()[0][8].contains(5));
+        assertFalse(board.getAnnotations()[0][8].contains(3));
+        assertThrows(UnsupportedOperationException.class, () -> board.getAnnotations()[4][4].add(7));
+    }
+
+    @Test
+    public void testSixteenBySixteenBoard() {
+        SudokuBoard board = new SudokuBoard(4);
+        assertEquals(16, board.getSize());
+        assertEquals(0xFFFF, board.getAllDigits());
+        assertTrue(board.placeNumber(0, 0, 16));
+        assertFalse(board.isValidMove(3, 3, 16), "16 is already in the top-left 4x4 box.");
+        assertTrue(board.isValidMove(4, 4, 16));
+        assertFalse(board.isValidMove(4, 4, 17));
+        board.addAnnotation(15, 0, 16);
+        board.addAnnotation(15, 0, 12);
+        board.clearCell(0, 0);
+        board.placeNumber(0, 0, 16);
+        assertEquals(1 << 11, board.getAnnotationMask(15, 0));
+        assertTrue(board.getAnnotations()[15][0].contains(12));
+
+        int[][] solution = new int[16][16];
+        for (int row = 0; row < 16; row++) {
+            for (int col = 0; col < 16; col++) {
+                solution[row][col] = (row * 4 + row / 4 + col) % 16 + 1;
+            }
+        }
+        board.resetBoard(solution);
+        assertTrue(board.isSolved());
+        assertTrue(PuzzleGenerator.validateBoard(solution));
+    }
+
+    @Test
+    public void testDirtyCellsTrackChanges() {
+        SudokuBoard board = new SudokuBoard();
+        assertEquals(0, board.nextDirtyCell(0), "A new board needs a full redraw.");
+        board.clearDirty();
+        assertEquals(-1, board.nextDirtyCell(0));
+
+        board.addAnnotation(0, 8, 3);
+        board.addAnnotation(4, 4, 3);
+        board.clearDirty();
+        assertTrue(board.placeNumber(0, 0, 3));
+        // The placed cell and the one peer that lost a mark; the unrelated mark is untouched.
+        assertEquals(0, board.nextDirtyCell(0));
+        assertEquals(8, board.nextDirtyCell(1));
+        assertEquals(-1, board.nextDirtyCell(9));
+        assertFalse(board.isDirty(4, 4));
+
+        board.clearDirty();
+        board.clearCell(8, 8);
+        assertEquals(-1, board.nextDirtyCell(0), "Clearing an empty cell changes nothing.");
+        board.toggleAnnotation(8, 8, 1);
+        assertTrue(board.isDirty(8, 8));
+        assertEquals(80, board.nextDirtyCell(0));
+    }
+
+    @Test
+    public void testCachedCandidatesFollowMovesAndEliminations() {
+        SudokuBoard board = new SudokuBoard();
+        assertTrue(board.placeNumber(0, 0, 5));
+        assertEquals(0, board.getCandidates(0, 0), "Filled cells have no candidates.");
+        assertEquals(SudokuBoard.ALL_DIGITS & ~(1 << 4), board.getCandidates(0, 8));
+        assertEquals(SudokuBoard.ALL_DIGITS & ~(1 << 4), board.getCandidates(2, 2));
+
+        board.eliminateCandidates(8, 8, 0b11);
+        assertEquals(SudokuBoard.ALL_DIGITS & ~0b11, board.getCandidates(8, 8));
+        assertTrue(board.isValidMove(8, 8, 1), "Eliminations do not restrict moves.");
+
+        board.clearCell(0, 0);
+        assertEquals(SudokuBoard.ALL_DIGITS, board.getCandidates(0, 8));
+        assertEquals(SudokuBoard.ALL_DIGITS, board.getCandidates(8, 8), "Clearing a cell forgets eliminations.");
+    }
+
+    @Test
+    public void testConflictingEntriesAreTracked() {
+        SudokuBoard board = new SudokuBoard();
+        assertTrue(board.enterNumber(0, 0, 5));
+        board.addAnnotation(0, 4, 5);
+        assertFalse(board.enterNumber(0, 8, 5), "A duplicate in the row conflicts.");
+        assertEquals(0, board.getAnnotationMask(0, 4), "Entries erase the digit from peer marks.");
+        assertFalse(board.enterNumber(2, 2, 5), "A duplicate in the box conflicts.");
+        assertEquals(3, board.getConflictCount());
+        assertEquals(3, board.getFilledCount());
+        assertTrue(board.isConflicting(0, 0));
+        assertEquals(0, board.nextConflictCell(0));
+        assertEquals(8, board.nextConflictCell(1));
+        assertEquals(20, board.nextConflictCell(9));
+        assertEquals(-1, board.nextConflictCell(21));
+        assertFalse(board.isValidMove(0, 4, 5));
+
+        // Cell (0,0) still clashes with (2,2) after (0,8) goes away.
+        board.clearCell(0, 8);
+        assertEquals(2, board.getConflictCount());
+        assertTrue(board.isConflicting(0, 0));
+        assertTrue(board.isValidMove(0, 8, 4));
+        assertFalse(board.isValidMove(0, 8, 5), "The digit stays in the row while (0,0) holds it.");
+        board.enterNumber(2, 2, 6);
+        assertEquals(0, board.getConflictCount());
+        assertEquals(-1, board.nextConflictCell(0));
+        assertThrows(IllegalArgumentException.class, () -> board.enterNumber(1, 1, 10));
+    }
+
+    @Test
+    public void testConflictsMarkCellsDirty() {
+        SudokuBoard board = new SudokuBoard();
+        board.enterNumber(0, 0, 5);
+        board.clearDirty();
+        board.enterNumber(8, 0, 5);
+        // The earlier cell turns red too, so it must be redrawn.
+        assertTrue(board.isDirty(0, 0));
+        board.clearDirty();
+        board.clearCell(8, 0);
+        assertTrue(board.isDirty(0, 0));
+        assertFalse(board.isConflicting(0, 0));
+    }
+
+    @Test
+    public void testSolvedRequiresNoConflicts() {
+        int[][] grid = new int[9][9];
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                grid[row][col] = (row * 3 + row / 3 + col) % 9 + 1;
+            }
+        }
+        grid[0][0] = grid[0][1];
+        SudokuBoard board = new SudokuBoard();
+        board.resetBoard(grid);
+        assertEquals(81, board.getFilledCount());
+        assertFalse(board.isSolved(), "A full grid with a duplicate is not solved.");
+        // (0,0) clashes with (0,1) in its row and box and with (3,0) in its column.
+        assertEquals(3, board.getConflictCount());
+        assertTrue(board.isConflicting(3, 0));
+        assertFalse(board.enterNumber(0, 0, 2));
+        assertTrue(board.enterNumber(0, 0, 1));
+        assertEquals(0, board.getConflictCount());
+        assertTrue(board.isSolved());
+    }
+
+    @Test
+    public void testCountsMatchScanAfterRandomEntries() {
+        SudokuBoard board = new SudokuBoard(2);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int step = 0; step < 2000; step++) {
+            int row = random.nextInt(4);
+            int col = random.nextInt(4);
+            if (random.nextInt(4) == 0) {
+                board.clearCell(row, col);
+            } else {
+                board.enterNumber(row, col, random.nextInt(4) + 1);
+            }
+            int filled = 0;
+            int conflicting = 0;
+            int[][] grid = board.getBoard();
+            for (int r = 0; r < 4; r++) {
+                for (int c = 0; c < 4; c++) {
+                    if (grid[r][c] == 0) {
+                        continue;
+                    }
+                    filled++;
+                    boolean clash = false;
+                    for (int r2 = 0; r2 < 4; r2++) {
+                        for (int c2 = 0; c2 < 4; c2++) {
+                            boolean peer = r2 == r || c2 == c || (r2 / 2 == r / 2 && c2 / 2 == c / 2);
+                            clash |= peer && (r2 != r || c2 != c) && grid[r2][c2] == grid[r][c];
+                        }
+                    }
+                    assertEquals(clash, board.isConflicting(r, c));
+                    conflicting += clash ? 1 : 0;
+                }
+            }
+            assertEquals(filled, board.getFilledCount());
+            assertEquals(conflicting, board.getConflictCount());
+        }
+    }
+
+    @Test
+    public void testSolutionQueries() {
+        byte[] solution = new byte[81];
+        int[][] puzzle = new int[9][9];
+        for (int cell = 0; cell < 81; cell++) {
+            int row = cell / 9;
+            int col = cell % 9;
+            solution[cell] = (byte) ((row * 3 + row / 3 + col) % 9 + 1);
+            puzzle[row][col] = row < 4 ? solution[cell] : 0;
+        }
+        SudokuBoard board = new SudokuBoard();
+        board.resetBoard(puzzle);
+        assertFalse(board.hasSolution());
+        assertThrows(IllegalStateException.class, () -> board.isCorrect(0, 0));
+        assertEquals(0, board.getCorrectCount());
+
+        board.setSolution(solution);
+        assertEquals(36, board.getCorrectCount());
+        assertEquals(0, board.getWrongCount());
+        int digit = board.getSolutionDigit(4, 0);
+        // A wrong digit that no peer contradicts yet.
+        board.clearCell(0, 0);
+        assertTrue(board.enterNumber(4, 0, board.getSolutionDigit(0, 0)));
+        assertTrue(board.isWrong(4, 0));
+        assertFalse(board.isCorrect(4, 0));
+        assertEquals(35, board.getCorrectCount());
+        assertEquals(1, board.getWrongCount());
+
+        assertEquals(digit, board.revealCell(4, 0));
+        assertTrue(board.isCorrect(4, 0));
+        assertEquals(36, board.getCorrectCount());
+        board.enterNumber(4, 1, board.getSolutionDigit(4, 1));
+        board.resetBoard(puzzle);
+        assertTrue(board.hasSolution(), "Restarting keeps the solution.");
+        assertEquals(36, board.getCorrectCount());
+        assertThrows(IllegalArgumentException.class, () -> board.setSolution(new byte[80]));
+    }
 }
@@ -0,0 +1,51 @@
+package com.sudokumaster.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TargetedGenerator class.
+ */
+public class TargetedGeneratorTest {
+
+    @Test
+    public void testHardPuzzleIsRatedHard() {
+        try (TargetedGenerator generator = new TargetedGenerator(2)) {
+            TargetedGenerator.Result result = generator.generate(Difficulty.HARD, Duration.ofSeconds(20));
+            assertTrue(result.matched(), "A HARD puzzle should be found well within the budget.");
+            assertEquals(Difficulty.HARD, result.rating().difficulty());
+            assertEquals(result.rating(), new DifficultyRater().rate(result.board().getBoard()));
+            assertEquals(1, new SolutionCounter().countSolutions(result.board().getBoard(), 2));
+        }
+    }
+
+    @Test
+    public void testExactRatingTarget() {
+        try (TargetedGenerator generator = new TargetedGenerator()) {
+            int target = Technique.LOCKED_CANDIDATES.getScore();
+            TargetedGenerator.Result result = generator.generate(target, Duration.ofSeconds(20));
+            assertTrue(result.matched());
+            assertEquals(target, result.rating().score());
+        }
+    }
+
+    @Test
+    public void testExhaustedBudgetStillReturnsClosestPuzzle() {
+        try (TargetedGenerator generator = new TargetedGenerator(1)) {
+            TargetedGenerator.Result result = generator.generate(Difficulty.HARD, Duration.ZERO);
+            assertNotNull(result.board());
+            assertTrue(result.attempts() >= 1);
+            assertEquals(result.matched(), Difficulty.HARD.contains(result.rating().score()));
+        }
+    }
+
+    @Test
+    public void testDistance() {
+        assertEquals(0, TargetedGenerator.distance(20, 16, 38));
+        assertEquals(6, TargetedGenerator.distance(10, 16, 38));
+        assertEquals(4, TargetedGenerator.distance(42, 16, 38));
+    }
+}
@@ -0,0 +1,29 @@
+package com.sudokumaster.model;
+
+/**
+ * Puzzles shared by the model tests, as 81-character rows with 0 for empty cells.
+ */
+final class TestPuzzles {
+
+    /** A known 17-clue puzzle with a unique solution. */
+    static final String HARD_17 =
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000";
+
+    /** Solvable with singles only. */
+    static final String EASY =
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+
+    private TestPuzzles() {
+    }
+
+    /**
+     * Parses an 81-character row into a flat array of cells.
+     */
+    static byte[] parse(String line) {
+        byte[] cells = new byte[81];
+        for (int i = 0; i < 81; i++) {
+            cells[i] = (byte) (line.charAt(i) - '0');
+        }
+        return cells;
+    }
+}